@@ -0,0 +1,139 @@
+package com.pluralsight.NorthwindTradersAPI6.changes;
+
+import com.pluralsight.NorthwindTradersAPI6.models.ChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded, in-process log of product and category mutations.
+ * <p>
+ * The DAOs publish into a fixed-size ring buffer and never wait on subscribers:
+ * each subscriber drains the buffer from its own cursor on a dispatcher thread.
+ * A subscriber that falls more than a buffer's worth behind is told to reload
+ * (a "reset" event) and continues from the oldest event still held.
+ * <p>
+ * Sequences start over at 1 with every process, so event ids are prefixed with
+ * an epoch (epoch:sequence). A client resuming from an id of an earlier process
+ * is told to reload too, rather than waiting for sequences it has already seen.
+ */
+@Component
+public class ChangeFeed {
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final ChangeEvent[] buffer;
+    private final Object writeLock = new Object();
+    private volatile long lastSequence;
+
+    private final Set<ChangeSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final int maxSubscribers;
+    private final ExecutorService dispatcher = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ChangeFeed(@Value("${changes.buffer-size:4096}") int bufferSize,
+                      @Value("${changes.max-subscribers:100}") int maxSubscribers) {
+        this.buffer = new ChangeEvent[bufferSize];
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    public void publish(String entity, int entityId, String operation) {
+        synchronized (writeLock) {
+            long sequence = lastSequence + 1;
+            buffer[slot(sequence)] = new ChangeEvent(sequence, entity, entityId, operation, System.currentTimeMillis());
+            lastSequence = sequence;
+        }
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    /**
+     * @param afterSequence Resume point, from resumePoint; 0 streams everything still in the buffer.
+     * @return null when the subscriber limit has been reached.
+     */
+    public SseEmitter subscribe(long afterSequence, long timeoutMillis) {
+        if (subscriptions.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        ChangeSubscription subscription = new ChangeSubscription(this, emitter, afterSequence);
+        subscriptions.add(subscription);
+
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(error -> subscriptions.remove(subscription));
+
+        subscription.signal();
+        return emitter;
+    }
+
+    /**
+     * The sequence to resume after for a client's last event id, or -1 if the id
+     * was issued by an earlier process. A bare sequence is taken as this process's.
+     *
+     * @throws NumberFormatException if it isn't an event id at all.
+     */
+    public long resumePoint(String eventId) {
+        int separator = eventId.indexOf(':');
+        if (separator < 0) {
+            return Long.parseLong(eventId);
+        }
+        long sequence = Long.parseLong(eventId.substring(separator + 1));
+        return eventId.substring(0, separator).equals(epoch) ? sequence : -1;
+    }
+
+    String eventId(long sequence) {
+        return epoch + ":" + sequence;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getOldestSequence() {
+        return Math.max(1, lastSequence - buffer.length + 1);
+    }
+
+    /**
+     * Returns up to max events after the given sequence, or null if some of
+     * them have already been overwritten or the sequence isn't one of this
+     * process's (negative, or ahead of the feed after a restart).
+     */
+    List<ChangeEvent> read(long afterSequence, int max) {
+        long last = lastSequence;
+        if (afterSequence < 0 || afterSequence > last) {
+            return null;
+        }
+        List<ChangeEvent> events = new ArrayList<>();
+        for (long sequence = afterSequence + 1; sequence <= last && events.size() < max; sequence++) {
+            ChangeEvent event = buffer[slot(sequence)];
+            if (event == null || event.getSequence() != sequence) {
+                return null;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    void dispatch(Runnable drain) {
+        dispatcher.execute(drain);
+    }
+
+    void remove(ChangeSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % buffer.length);
+    }
+}
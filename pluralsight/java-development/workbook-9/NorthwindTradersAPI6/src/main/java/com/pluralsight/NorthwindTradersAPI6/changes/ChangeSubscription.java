@@ -0,0 +1,77 @@
+package com.pluralsight.NorthwindTradersAPI6.changes;
+
+import com.pluralsight.NorthwindTradersAPI6.models.ChangeEvent;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One SSE client. At most one drain task per subscriber runs at a time, so a
+ * slow client only ever delays itself.
+ */
+class ChangeSubscription {
+    private static final int BATCH_SIZE = 256;
+
+    private final ChangeFeed feed;
+    private final SseEmitter emitter;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private long cursor;
+
+    ChangeSubscription(ChangeFeed feed, SseEmitter emitter, long afterSequence) {
+        this.feed = feed;
+        this.emitter = emitter;
+        this.cursor = afterSequence;
+    }
+
+    void signal() {
+        if (draining.compareAndSet(false, true)) {
+            feed.dispatch(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                List<ChangeEvent> events = feed.read(cursor, BATCH_SIZE);
+                if (events == null) {
+                    reset();
+                    continue;
+                }
+                if (events.isEmpty()) {
+                    break;
+                }
+                for (ChangeEvent event : events) {
+                    emitter.send(SseEmitter.event()
+                            .id(feed.eventId(event.getSequence()))
+                            .name("change")
+                            .data(event));
+                    cursor = event.getSequence();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            feed.remove(this);
+            emitter.completeWithError(e);
+            return;
+        } finally {
+            draining.set(false);
+        }
+
+        // Catch anything published between the last read and clearing the flag.
+        if (feed.getLastSequence() > cursor) {
+            signal();
+        }
+    }
+
+    private void reset() throws IOException {
+        long oldest = feed.getOldestSequence();
+        // With an id, so a browser reconnecting right after the reset resumes from here rather than its stale id.
+        emitter.send(SseEmitter.event()
+                .id(feed.eventId(oldest - 1))
+                .name("reset")
+                .data(Map.of("oldestSequence", oldest, "lastSequence", feed.getLastSequence())));
+        cursor = oldest - 1;
+    }
+}
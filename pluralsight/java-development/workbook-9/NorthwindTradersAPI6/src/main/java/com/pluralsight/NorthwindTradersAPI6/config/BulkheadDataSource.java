@@ -0,0 +1,133 @@
+package com.pluralsight.NorthwindTradersAPI6.config;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Bulkhead in front of the connection pool. Every DAO call has to take a permit
+ * before it can borrow a connection, and the permit is given back when the
+ * connection is closed. With virtual threads the waiting requests just park on
+ * the semaphore instead of holding an OS thread each.
+ */
+public class BulkheadDataSource implements DataSource {
+    private final DataSource dataSource;
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    public BulkheadDataSource(DataSource dataSource, int maxConcurrent, long timeoutMillis) {
+        this.dataSource = dataSource;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return guard(dataSource.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return guard(dataSource.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new BulkheadFullException("No database capacity available after " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException("Interrupted while waiting for database capacity");
+        }
+    }
+
+    // Hands the permit back exactly once, no matter how many times close() is called.
+    private Connection guard(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean(false);
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+}
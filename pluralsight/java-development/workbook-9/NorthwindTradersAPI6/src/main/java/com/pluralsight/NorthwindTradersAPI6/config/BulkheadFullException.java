@@ -0,0 +1,14 @@
+package com.pluralsight.NorthwindTradersAPI6.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BulkheadFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 4995823461080475478L;
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,7 @@
 package com.pluralsight.NorthwindTradersAPI6.config;
 
+import com.pluralsight.NorthwindTradersAPI6.metrics.ConnectionPoolMetrics;
+import com.pluralsight.NorthwindTradersAPI6.metrics.MetricsRegistry;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,23 +13,44 @@ import javax.sql.DataSource;
 @Configuration
 public class DbConfiguration {
     private BasicDataSource basicDataSource;
+    private ConnectionPoolMetrics connectionPoolMetrics;
+    private DataSource dataSource;
 
     @Bean
     public DataSource dataSource() {
-        return basicDataSource;
+        return dataSource;
+    }
+
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return connectionPoolMetrics;
     }
 
     @Autowired
     public DbConfiguration(@Value("${datasource.url}") String url,
                            @Value("${datasource.username}") String username,
-                           @Value("${datasource.password}") String password
+                           @Value("${datasource.password}") String password,
+                           ConnectionPoolProperties poolProperties,
+                           MetricsRegistry metricsRegistry,
+                           @Value("${metrics.slow-query-threshold-ms:250}") long slowQueryMillis,
+                           @Value("${datasource.bulkhead.enabled:false}") boolean bulkheadEnabled,
+                           @Value("${datasource.bulkhead.timeout-ms:5000}") long bulkheadTimeoutMillis
     ) {
         basicDataSource = new BasicDataSource();
         basicDataSource.setUrl(url);
         basicDataSource.setUsername(username);
         basicDataSource.setPassword(password);
+        poolProperties.applyTo(basicDataSource);
 
+        connectionPoolMetrics = new ConnectionPoolMetrics(basicDataSource);
+        dataSource = new PoolMetricsDataSource(basicDataSource, connectionPoolMetrics);
+        dataSource = new StatementTimingDataSource(dataSource, metricsRegistry, slowQueryMillis);
 
+        // The bulkhead gets one permit per pooled connection, so the DAOs never
+        // ask DBCP for more connections than it can hand out.
+        if (bulkheadEnabled) {
+            dataSource = new BulkheadDataSource(dataSource, basicDataSource.getMaxTotal(), bulkheadTimeoutMillis);
+        }
     }
 }
 
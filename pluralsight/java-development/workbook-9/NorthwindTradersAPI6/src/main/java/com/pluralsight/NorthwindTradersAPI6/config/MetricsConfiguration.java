@@ -0,0 +1,19 @@
+package com.pluralsight.NorthwindTradersAPI6.config;
+
+import com.pluralsight.NorthwindTradersAPI6.metrics.MetricsRegistry;
+import com.pluralsight.NorthwindTradersAPI6.metrics.TimedJsonHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import tools.jackson.databind.json.JsonMapper;
+
+@Configuration
+public class MetricsConfiguration {
+
+    // Replaces Spring Boot's default JSON converter with the timed one.
+    @Bean
+    public JacksonJsonHttpMessageConverter jacksonJsonHttpMessageConverter(JsonMapper jsonMapper,
+                                                                           MetricsRegistry metricsRegistry) {
+        return new TimedJsonHttpMessageConverter(jsonMapper, metricsRegistry);
+    }
+}
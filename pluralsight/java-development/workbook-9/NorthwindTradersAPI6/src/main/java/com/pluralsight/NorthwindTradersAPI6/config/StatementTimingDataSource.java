@@ -0,0 +1,167 @@
+package com.pluralsight.NorthwindTradersAPI6.config;
+
+import com.pluralsight.NorthwindTradersAPI6.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Times every prepared statement the DAOs run. Execution time is recorded under
+ * "sql" and the time spent reading and mapping the ResultSet (from executeQuery
+ * returning until the ResultSet is closed) under "fetch", both keyed by the SQL.
+ * Statements slower than the threshold are logged with their SQL and bind count.
+ */
+public class StatementTimingDataSource implements DataSource {
+    private static final Logger slowQueryLog = LoggerFactory.getLogger("slow-query");
+
+    private final DataSource dataSource;
+    private final MetricsRegistry metricsRegistry;
+    private final long slowQueryNanos;
+
+    public StatementTimingDataSource(DataSource dataSource, MetricsRegistry metricsRegistry, long slowQueryMillis) {
+        this.dataSource = dataSource;
+        this.metricsRegistry = metricsRegistry;
+        this.slowQueryNanos = slowQueryMillis * 1_000_000;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(dataSource.getConnection(username, password));
+    }
+
+    private Connection timed(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (method.getName().equals("prepareStatement")) {
+                        return timed((PreparedStatement) result, (String) args[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement timed(PreparedStatement statement, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new StatementHandler(statement, sql));
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final String sql;
+        private int bindCount;
+
+        StatementHandler(PreparedStatement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bindCount = Math.max(bindCount, index);
+            } else if (name.equals("clearParameters")) {
+                bindCount = 0;
+            }
+
+            if (!name.startsWith("execute") || (args != null && args.length > 0)) {
+                return StatementTimingDataSource.invoke(statement, method, args);
+            }
+
+            long start = System.nanoTime();
+            Object result = StatementTimingDataSource.invoke(statement, method, args);
+            long elapsed = System.nanoTime() - start;
+
+            metricsRegistry.record("sql", sql, elapsed);
+            if (elapsed >= slowQueryNanos) {
+                slowQueryLog.warn("Slow query took {} ms with {} bind parameters: {}",
+                        elapsed / 1_000_000, bindCount, sql);
+            }
+
+            if (result instanceof ResultSet resultSet) {
+                return timed(resultSet, sql);
+            }
+            return result;
+        }
+    }
+
+    private ResultSet timed(ResultSet resultSet, String sql) {
+        long opened = System.nanoTime();
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && !resultSet.isClosed()) {
+                        metricsRegistry.record("fetch", sql, System.nanoTime() - opened);
+                    }
+                    return invoke(resultSet, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+}
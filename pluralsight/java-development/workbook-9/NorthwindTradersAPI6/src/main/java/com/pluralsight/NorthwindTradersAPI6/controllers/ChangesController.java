@@ -0,0 +1,46 @@
+package com.pluralsight.NorthwindTradersAPI6.controllers;
+
+import com.pluralsight.NorthwindTradersAPI6.changes.ChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+public class ChangesController {
+    private final ChangeFeed changeFeed;
+    private final long timeoutMillis;
+
+    @Autowired
+    public ChangesController(ChangeFeed changeFeed,
+                             @Value("${changes.stream-timeout-ms:300000}") long timeoutMillis) {
+        this.changeFeed = changeFeed;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    // Resume with ?since=<event id>, or let the browser send Last-Event-ID on reconnect.
+    @RequestMapping(path = "/changes", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) String since,
+                                    @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        String resumeFrom = since != null ? since : lastEventId;
+        long after;
+        try {
+            after = resumeFrom != null ? changeFeed.resumePoint(resumeFrom) : changeFeed.getLastSequence();
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a change event id: " + resumeFrom);
+        }
+
+        SseEmitter emitter = changeFeed.subscribe(after, timeoutMillis);
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many change feed subscribers");
+        }
+        return emitter;
+    }
+}
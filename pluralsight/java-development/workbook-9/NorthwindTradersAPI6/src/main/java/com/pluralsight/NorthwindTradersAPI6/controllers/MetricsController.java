@@ -0,0 +1,34 @@
+package com.pluralsight.NorthwindTradersAPI6.controllers;
+
+import com.pluralsight.NorthwindTradersAPI6.metrics.ConnectionPoolMetrics;
+import com.pluralsight.NorthwindTradersAPI6.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+public class MetricsController {
+    private final MetricsRegistry metricsRegistry;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+
+    @Autowired
+    public MetricsController(MetricsRegistry metricsRegistry, ConnectionPoolMetrics connectionPoolMetrics) {
+        this.metricsRegistry = metricsRegistry;
+        this.connectionPoolMetrics = connectionPoolMetrics;
+    }
+
+    @RequestMapping(path = "/metrics", method = RequestMethod.GET)
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = metricsRegistry.snapshot();
+        metrics.put("pool", connectionPoolMetrics.snapshot());
+        return metrics;
+    }
+
+    @RequestMapping(path = "/metrics/pool", method = RequestMethod.GET)
+    public Map<String, Object> getPoolMetrics() {
+        return connectionPoolMetrics.snapshot();
+    }
+}
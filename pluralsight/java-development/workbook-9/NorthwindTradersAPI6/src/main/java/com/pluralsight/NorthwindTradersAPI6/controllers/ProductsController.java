@@ -2,10 +2,13 @@ package com.pluralsight.NorthwindTradersAPI6.controllers;
 
 
 import com.pluralsight.NorthwindTradersAPI6.dao.interfaces.IProductDao;
+import com.pluralsight.NorthwindTradersAPI6.dao.interfaces.VersionConflictException;
 import com.pluralsight.NorthwindTradersAPI6.models.Product;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -24,8 +27,8 @@ public class ProductsController {
     }
 
     @RequestMapping(path = "/products/{productId}", method = RequestMethod.GET)
-    public Product getProductById(@PathVariable int productId) {
-        return productDao.getById(productId);
+    public ResponseEntity<Product> getProductById(@PathVariable int productId) {
+        return withETag(productDao.getById(productId));
     }
 
     @RequestMapping(path = "/products", method = RequestMethod.POST)
@@ -34,9 +37,19 @@ public class ProductsController {
         return productDao.insert(product);
     }
 
+    /**
+     * Replaces a product only if it is still at the version the client last saw,
+     * taken from If-Match or else the version in the body. Without either, the last
+     * writer wins. A stale version gets 409 with the current product.
+     */
     @RequestMapping(path = "/products/{productId}", method = RequestMethod.PUT)
-    public void updateProduct(@PathVariable int productId, @RequestBody Product product) {
-        productDao.update(productId, product);
+    public ResponseEntity<Product> updateProduct(@PathVariable int productId, @RequestBody Product product,
+                                                 @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        Product updated = productDao.update(productId, product, expectedVersion(ifMatch, product.getVersion()));
+        if (updated == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No product " + productId);
+        }
+        return withETag(updated);
     }
 
     @RequestMapping(path = "/products/{productId}", method = RequestMethod.DELETE)
@@ -44,4 +57,39 @@ public class ProductsController {
     public void deleteProduct(@PathVariable int productId) {
         productDao.delete(productId);
     }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<Product> versionConflict(VersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).eTag(eTag(e.getCurrent())).body(e.getCurrent());
+    }
+
+    private static ResponseEntity<Product> withETag(Product product) {
+        if (product == null || product.getVersion() == null) {
+            return ResponseEntity.ok(product);
+        }
+        return ResponseEntity.ok().eTag(eTag(product)).body(product);
+    }
+
+    private static String eTag(Product product) {
+        return "\"" + product.getVersion() + "\"";
+    }
+
+    private static Integer expectedVersion(String ifMatch, Integer bodyVersion) {
+        if (ifMatch == null) {
+            return bodyVersion;
+        }
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null; // Any current version will do.
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Integer.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Falls through; not one of ours.
+            }
+        }
+        // Weak or unknown tags can never match the strong ETags handed out above.
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match must be an ETag from this API");
+    }
 }
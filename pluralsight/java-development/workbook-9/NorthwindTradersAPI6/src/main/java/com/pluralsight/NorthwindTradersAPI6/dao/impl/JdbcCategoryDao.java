@@ -1,6 +1,7 @@
 package com.pluralsight.NorthwindTradersAPI6.dao.impl;
 
 
+import com.pluralsight.NorthwindTradersAPI6.changes.ChangeFeed;
 import com.pluralsight.NorthwindTradersAPI6.dao.interfaces.ICategoryDao;
 import com.pluralsight.NorthwindTradersAPI6.models.Category;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,10 +16,12 @@ import java.util.List;
 public class JdbcCategoryDao implements ICategoryDao {
 
     private final DataSource dataSource;
+    private final ChangeFeed changeFeed;
 
     @Autowired
-    public JdbcCategoryDao(DataSource dataSource) {
+    public JdbcCategoryDao(DataSource dataSource, ChangeFeed changeFeed) {
         this.dataSource = dataSource;
+        this.changeFeed = changeFeed;
     }
 
     @Override
@@ -84,6 +87,7 @@ public class JdbcCategoryDao implements ICategoryDao {
                 if (generatedKeys.next()) {
                     int generatedId = generatedKeys.getInt(1);
                     category.setCategoryId(generatedId);
+                    changeFeed.publish("category", generatedId, "INSERT");
                 } else {
                     throw new SQLException("Creating category failed, no ID obtained.");
                 }
@@ -105,7 +109,9 @@ public class JdbcCategoryDao implements ICategoryDao {
             statement.setString(1, category.getCategoryName());
             statement.setInt(2, id);
 
-            statement.executeUpdate();
+            if (statement.executeUpdate() > 0) {
+                changeFeed.publish("category", id, "UPDATE");
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -120,7 +126,9 @@ public class JdbcCategoryDao implements ICategoryDao {
 
             statement.setInt(1, id);
 
-            statement.executeUpdate();
+            if (statement.executeUpdate() > 0) {
+                changeFeed.publish("category", id, "DELETE");
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
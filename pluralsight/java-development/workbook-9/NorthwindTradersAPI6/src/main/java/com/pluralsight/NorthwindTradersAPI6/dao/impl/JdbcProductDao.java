@@ -1,8 +1,13 @@
 package com.pluralsight.NorthwindTradersAPI6.dao.impl;
 
 
+import com.pluralsight.NorthwindTradersAPI6.changes.ChangeFeed;
 import com.pluralsight.NorthwindTradersAPI6.dao.interfaces.IProductDao;
+import com.pluralsight.NorthwindTradersAPI6.dao.interfaces.VersionConflictException;
+import com.pluralsight.NorthwindTradersAPI6.models.Money;
 import com.pluralsight.NorthwindTradersAPI6.models.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -10,15 +15,49 @@ import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 @Component
 public class JdbcProductDao implements IProductDao {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcProductDao.class);
 
     private final DataSource dataSource;
+    private final ChangeFeed changeFeed;
 
     @Autowired
-    public JdbcProductDao(DataSource dataSource) {
+    public JdbcProductDao(DataSource dataSource, ChangeFeed changeFeed) {
         this.dataSource = dataSource;
+        this.changeFeed = changeFeed;
+        ensureVersionColumn();
+    }
+
+    private void ensureVersionColumn() {
+        // Databases created before optimistic updates don't have the column yet; add it once.
+        try (Connection connection = dataSource.getConnection()) {
+            if (hasColumn(connection.getMetaData(), connection.getCatalog(), "Products", "Version")) {
+                return;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE Products ADD COLUMN Version INT NOT NULL DEFAULT 0");
+            }
+        } catch (SQLException e) {
+            // Not evidence the column is missing (the database may just be down), so nothing is altered.
+            logger.error("Could not check for or add the Products.Version column", e);
+        }
+    }
+
+    private static boolean hasColumn(DatabaseMetaData metaData, String catalog, String table, String column) throws SQLException {
+        // Metadata lookups match names exactly, so ask in the case the database stores unquoted names in.
+        if (metaData.storesUpperCaseIdentifiers()) {
+            table = table.toUpperCase(Locale.ROOT);
+            column = column.toUpperCase(Locale.ROOT);
+        } else if (metaData.storesLowerCaseIdentifiers()) {
+            table = table.toLowerCase(Locale.ROOT);
+            column = column.toLowerCase(Locale.ROOT);
+        }
+        try (ResultSet columns = metaData.getColumns(catalog, null, table, column)) {
+            return columns.next();
+        }
     }
 
     @Override
@@ -34,8 +73,9 @@ public class JdbcProductDao implements IProductDao {
                 int productID = resultSet.getInt("ProductID");
                 String productName = resultSet.getString("ProductName");
                 int categoryID = resultSet.getInt("CategoryID");
-                double unitPrice = resultSet.getDouble("UnitPrice");
-                Product product = new Product(productID,productName,categoryID,unitPrice);
+                Money unitPrice = MoneyColumns.get(resultSet, "UnitPrice");
+                int version = resultSet.getInt("Version");
+                Product product = new Product(productID,productName,categoryID,unitPrice,version);
                 products.add(product);
             }
         } catch (SQLException e) {
@@ -57,8 +97,9 @@ public class JdbcProductDao implements IProductDao {
                     int productID = resultSet.getInt("ProductID");
                     String productName = resultSet.getString("ProductName");
                     int categoryID = resultSet.getInt("CategoryID");
-                    double unitPrice = resultSet.getDouble("UnitPrice");
-                    Product product = new Product(productID,productName,categoryID,unitPrice);
+                    Money unitPrice = MoneyColumns.get(resultSet, "UnitPrice");
+                    int version = resultSet.getInt("Version");
+                    Product product = new Product(productID,productName,categoryID,unitPrice,version);
                     return product;
                 }
             }
@@ -78,7 +119,7 @@ public class JdbcProductDao implements IProductDao {
 
             statement.setString(1, product.getProductName());
             statement.setInt(2, product.getCategoryId());
-            statement.setDouble(3, product.getUnitPrice());
+            MoneyColumns.set(statement, 3, product.getUnitPrice());
 
             int affectedRows = statement.executeUpdate();
 
@@ -90,6 +131,8 @@ public class JdbcProductDao implements IProductDao {
                 if (generatedKeys.next()) {
                     int generatedId = generatedKeys.getInt(1);
                     product.setProductId(generatedId);
+                    product.setVersion(0); // The column default.
+                    changeFeed.publish("product", generatedId, "INSERT");
                 } else {
                     throw new SQLException("Creating product failed, no ID obtained.");
                 }
@@ -102,20 +145,65 @@ public class JdbcProductDao implements IProductDao {
     }
 
     @Override
-    public void update(int id, Product product) {
-        String sql = "UPDATE Products SET ProductName = ?, CategoryID = ?, UnitPrice = ? WHERE ProductID = ?";
+    public Product update(int id, Product product, Integer expectedVersion) {
+        // Compare-and-set: the row only changes if nobody else changed it since it was read. No locks are taken.
+        String sql = "UPDATE Products SET ProductName = ?, CategoryID = ?, UnitPrice = ?, Version = Version + 1 " +
+                "WHERE ProductID = ? AND Version = ?";
 
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
 
             statement.setString(1, product.getProductName());
             statement.setInt(2, product.getCategoryId());
-            statement.setDouble(3, product.getUnitPrice());
+            MoneyColumns.set(statement, 3, product.getUnitPrice());
             statement.setInt(4, id);
 
-            statement.executeUpdate();
+            while (true) {
+                int version;
+                if (expectedVersion != null) {
+                    version = expectedVersion;
+                } else {
+                    // Unconditional update: the last writer wins, but still through the version check
+                    // so the new version returned to the caller is exact.
+                    Product current = selectCurrent(connection, id);
+                    if (current == null) {
+                        return null;
+                    }
+                    version = current.getVersion();
+                }
+                statement.setInt(5, version);
+
+                if (statement.executeUpdate() > 0) {
+                    changeFeed.publish("product", id, "UPDATE");
+                    return new Product(id, product.getProductName(), product.getCategoryId(), product.getUnitPrice(), version + 1);
+                }
+                if (expectedVersion != null) {
+                    // Missing, or changed by someone else since the caller read it.
+                    Product current = selectCurrent(connection, id);
+                    if (current == null) {
+                        return null;
+                    }
+                    throw new VersionConflictException(current);
+                }
+            }
         } catch (SQLException e) {
-            e.printStackTrace();
+            // Not null: the controller would turn that into a 404 for a product that may well exist.
+            throw new IllegalStateException("Updating product " + id + " failed", e);
+        }
+    }
+
+    // On the caller's connection: borrowing a second one while holding the first can stall or deadlock a saturated pool.
+    private Product selectCurrent(Connection connection, int productId) throws SQLException {
+        String sql = "SELECT ProductID, ProductName, CategoryID, UnitPrice, Version FROM Products WHERE ProductID = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, productId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                return new Product(resultSet.getInt("ProductID"), resultSet.getString("ProductName"),
+                        resultSet.getInt("CategoryID"), MoneyColumns.get(resultSet, "UnitPrice"), resultSet.getInt("Version"));
+            }
         }
     }
 
@@ -128,7 +216,9 @@ public class JdbcProductDao implements IProductDao {
 
             statement.setInt(1, id);
 
-            statement.executeUpdate();
+            if (statement.executeUpdate() > 0) {
+                changeFeed.publish("product", id, "DELETE");
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -9,6 +9,11 @@ public interface IProductDao {
     List<Product> getAll();
     Product getById(int id);
     Product insert(Product product);
-    void update(int id, Product product);
+    /**
+     * Compare-and-set on the product's version; null expectedVersion overwrites whatever is stored.
+     * Returns the updated product, or null if there is none, and throws VersionConflictException
+     * if the stored product is no longer at expectedVersion.
+     */
+    Product update(int id, Product product, Integer expectedVersion);
     void delete(int id);
 }
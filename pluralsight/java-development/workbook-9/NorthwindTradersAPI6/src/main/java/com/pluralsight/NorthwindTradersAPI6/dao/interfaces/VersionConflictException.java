@@ -0,0 +1,23 @@
+package com.pluralsight.NorthwindTradersAPI6.dao.interfaces;
+
+import com.pluralsight.NorthwindTradersAPI6.models.Product;
+
+/**
+ * Thrown by an update whose expected version no longer matches the stored
+ * product because someone else changed it first. Carries the current product
+ * so the caller can show it or retry against it.
+ */
+public class VersionConflictException extends RuntimeException {
+    private static final long serialVersionUID = 9021091237851777560L;
+
+    private final Product current;
+
+    public VersionConflictException(Product current) {
+        super("Product " + current.getProductId() + " is at version " + current.getVersion());
+        this.current = current;
+    }
+
+    public Product getCurrent() {
+        return current;
+    }
+}
@@ -0,0 +1,33 @@
+package com.pluralsight.NorthwindTradersAPI6.json;
+
+import com.pluralsight.NorthwindTradersAPI6.models.Money;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.exc.InvalidFormatException;
+
+/**
+ * Reads Money from a JSON number (150.75) or string ("150.75"). Decimals are
+ * parsed from the token's text, so a value never passes through a double.
+ */
+public class MoneyDeserializer extends ValueDeserializer<Money> {
+
+    @Override
+    public Money deserialize(JsonParser parser, DeserializationContext context) {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return Money.ofCents(Math.multiplyExact(parser.getLongValue(), 100));
+        }
+        if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_STRING) {
+            return (Money) context.handleUnexpectedToken(Money.class, parser);
+        }
+
+        String text = parser.getString();
+        try {
+            return Money.parse(text.trim());
+        } catch (NumberFormatException e) {
+            throw InvalidFormatException.from(parser, e.getMessage(), text, Money.class);
+        }
+    }
+}
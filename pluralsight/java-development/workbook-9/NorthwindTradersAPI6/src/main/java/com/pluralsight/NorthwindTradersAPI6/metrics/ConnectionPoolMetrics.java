@@ -0,0 +1,92 @@
+package com.pluralsight.NorthwindTradersAPI6.metrics;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live health of the DBCP pool: the gauges are read straight from the pool,
+ * everything else is recorded by PoolMetricsDataSource as connections are borrowed.
+ */
+public class ConnectionPoolMetrics {
+    private final BasicDataSource basicDataSource;
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder borrowFailures = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    // Moving average of recent borrow waits (each sample weighs 1/8), used for load shedding.
+    private final AtomicLong recentBorrowWaitNanos = new AtomicLong();
+    private volatile long lastBorrowNanos;
+
+    public ConnectionPoolMetrics(BasicDataSource basicDataSource) {
+        this.basicDataSource = basicDataSource;
+    }
+
+    public void recordBorrow(long waitNanos) {
+        borrowWait.record(waitNanos);
+        recentBorrowWaitNanos.accumulateAndGet(waitNanos, (average, sample) -> average + (sample - average) / 8);
+        lastBorrowNanos = System.nanoTime();
+    }
+
+    public void recordBorrowTimeout() {
+        borrowTimeouts.increment();
+    }
+
+    public void recordBorrowFailure() {
+        borrowFailures.increment();
+    }
+
+    public void recordStatementCacheHit() {
+        statementCacheHits.increment();
+    }
+
+    public void recordStatementCacheMiss() {
+        statementCacheMisses.increment();
+    }
+
+    public LatencyHistogram getBorrowWait() {
+        return borrowWait;
+    }
+
+    /**
+     * @param maxAgeNanos How old the last borrow may be for the average to still count.
+     * @return The recent average borrow wait, or 0 if the pool hasn't been used lately.
+     */
+    public double getRecentBorrowWaitMillis(long maxAgeNanos) {
+        if (System.nanoTime() - lastBorrowNanos > maxAgeNanos) {
+            return 0;
+        }
+        return recentBorrowWaitNanos.get() / 1_000_000.0;
+    }
+
+    public int getActiveConnections() {
+        return basicDataSource.getNumActive();
+    }
+
+    public int getIdleConnections() {
+        return basicDataSource.getNumIdle();
+    }
+
+    public int getMaxTotal() {
+        return basicDataSource.getMaxTotal();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("active", getActiveConnections());
+        result.put("idle", getIdleConnections());
+        result.put("maxTotal", getMaxTotal());
+        result.put("borrowTimeouts", borrowTimeouts.sum());
+        result.put("borrowFailures", borrowFailures.sum());
+        result.put("statementCacheHits", statementCacheHits.sum());
+        result.put("statementCacheMisses", statementCacheMisses.sum());
+        result.put("recentBorrowWaitMs", recentBorrowWaitNanos.get() / 1_000_000.0);
+        result.put("borrowWait", borrowWait.snapshot());
+        return result;
+    }
+}
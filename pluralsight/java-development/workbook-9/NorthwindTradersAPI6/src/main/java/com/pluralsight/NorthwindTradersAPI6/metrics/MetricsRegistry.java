@@ -0,0 +1,36 @@
+package com.pluralsight.NorthwindTradersAPI6.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one LatencyHistogram per (category, name), e.g. ("http", "GET /products")
+ * or ("sql", "SELECT * FROM Products").
+ */
+@Component
+public class MetricsRegistry {
+    private final Map<String, Map<String, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+
+    public void record(String category, String name, long nanos) {
+        histogram(category, name).record(nanos);
+    }
+
+    public LatencyHistogram histogram(String category, String name) {
+        return histograms
+                .computeIfAbsent(category, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        histograms.forEach((category, byName) -> {
+            Map<String, Object> snapshots = new TreeMap<>();
+            byName.forEach((name, histogram) -> snapshots.put(name, histogram.snapshot()));
+            result.put(category, snapshots);
+        });
+        return result;
+    }
+}
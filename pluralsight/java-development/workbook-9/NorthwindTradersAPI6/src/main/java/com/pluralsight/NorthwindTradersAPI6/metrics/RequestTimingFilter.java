@@ -0,0 +1,40 @@
+package com.pluralsight.NorthwindTradersAPI6.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Times every request and records it under its route pattern
+ * (GET /products/{productId}) rather than the raw URI, so ids don't
+ * create a new histogram each.
+ */
+@Component
+public class RequestTimingFilter extends OncePerRequestFilter {
+    private final MetricsRegistry metricsRegistry;
+
+    @Autowired
+    public RequestTimingFilter(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = request.getMethod() + " " + (pattern != null ? pattern : "unmatched");
+            metricsRegistry.record("http", route, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.pluralsight.NorthwindTradersAPI6.metrics;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The regular Jackson converter, with the time spent writing each response
+ * body recorded under "serialization" by response type (List&lt;Product&gt;, Category, ...).
+ */
+public class TimedJsonHttpMessageConverter extends JacksonJsonHttpMessageConverter {
+    private final MetricsRegistry metricsRegistry;
+
+    public TimedJsonHttpMessageConverter(JsonMapper jsonMapper, MetricsRegistry metricsRegistry) {
+        super(jsonMapper);
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    protected void writeInternal(Object object, ResolvableType resolvableType, HttpOutputMessage outputMessage,
+                                 Map<String, Object> hints) throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, resolvableType, outputMessage, hints);
+        } finally {
+            metricsRegistry.record("serialization", typeName(object, resolvableType), System.nanoTime() - start);
+        }
+    }
+
+    private static String typeName(Object object, ResolvableType resolvableType) {
+        Class<?> type = resolvableType.resolve(object.getClass());
+        if (resolvableType.hasGenerics()) {
+            Class<?> element = resolvableType.getGeneric(0).resolve(Object.class);
+            return type.getSimpleName() + "<" + element.getSimpleName() + ">";
+        }
+        return type.getSimpleName();
+    }
+}
@@ -0,0 +1,37 @@
+package com.pluralsight.NorthwindTradersAPI6.models;
+
+public class ChangeEvent {
+    private final long sequence;
+    private final String entity;
+    private final int entityId;
+    private final String operation;
+    private final long timestamp;
+
+    public ChangeEvent(long sequence, String entity, int entityId, String operation, long timestamp) {
+        this.sequence = sequence;
+        this.entity = entity;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.timestamp = timestamp;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public int getEntityId() {
+        return entityId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
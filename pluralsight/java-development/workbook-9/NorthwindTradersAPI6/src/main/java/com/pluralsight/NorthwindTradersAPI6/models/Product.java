@@ -1,16 +1,25 @@
 package com.pluralsight.NorthwindTradersAPI6.models;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+
 public class Product {
     private Integer productId;
     private String productName;
     private int categoryId;
-    private double unitPrice;
+    private Money unitPrice;
+    private Integer version; // Bumped by every update; a PUT can send it back to detect concurrent edits.
+
+    @JsonCreator // version, if sent, goes through its setter.
+    public Product(Integer productId, String productName, int categoryId, Money unitPrice) {
+        this(productId, productName, categoryId, unitPrice, null);
+    }
 
-    public Product(Integer productId, String productName, int categoryId, double unitPrice) {
+    public Product(Integer productId, String productName, int categoryId, Money unitPrice, Integer version) {
         this.productId = productId;
         this.productName = productName;
         this.categoryId = categoryId;
         this.unitPrice = unitPrice;
+        this.version = version;
     }
 
     public Integer getProductId() {
@@ -37,12 +46,20 @@ public class Product {
         this.categoryId = categoryId;
     }
 
-    public double getUnitPrice() {
+    public Money getUnitPrice() {
         return unitPrice;
     }
 
-    public void setUnitPrice(double unitPrice) {
+    public void setUnitPrice(Money unitPrice) {
         this.unitPrice = unitPrice;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
 
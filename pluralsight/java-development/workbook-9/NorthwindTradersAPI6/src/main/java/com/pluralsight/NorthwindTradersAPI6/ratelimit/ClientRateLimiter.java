@@ -0,0 +1,61 @@
+package com.pluralsight.NorthwindTradersAPI6.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One TokenBucket per client, in a map that never grows past maxClients.
+ * Idle buckets are swept out once the map fills up, at most once per idle
+ * interval so a flood of new addresses can't make every request scan the map.
+ * Until a sweep frees room, new clients share a single overflow bucket.
+ */
+public class ClientRateLimiter {
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AtomicLong nextSweep;
+
+    private final double tokensPerSecond;
+    private final int burst;
+    private final int maxClients;
+    private final long idleNanos;
+
+    public ClientRateLimiter(double tokensPerSecond, int burst, int maxClients, long idleMillis) {
+        this(tokensPerSecond, burst, maxClients, idleMillis, System.nanoTime());
+    }
+
+    ClientRateLimiter(double tokensPerSecond, int burst, int maxClients, long idleMillis, long startNanos) {
+        this.tokensPerSecond = tokensPerSecond;
+        this.burst = burst;
+        this.maxClients = maxClients;
+        this.idleNanos = idleMillis * 1_000_000;
+        this.overflow = new TokenBucket(tokensPerSecond, burst, startNanos);
+        this.nextSweep = new AtomicLong(startNanos);
+    }
+
+    /**
+     * @return 0 if the request may go ahead, otherwise nanoseconds until it could.
+     */
+    public long tryAcquire(String client, long nowNanos) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= maxClients) {
+                sweep(nowNanos);
+            }
+            bucket = buckets.size() < maxClients
+                    ? buckets.computeIfAbsent(client, key -> new TokenBucket(tokensPerSecond, burst, nowNanos))
+                    : overflow;
+        }
+        return bucket.tryAcquire(nowNanos);
+    }
+
+    public int getTrackedClients() {
+        return buckets.size();
+    }
+
+    private void sweep(long nowNanos) {
+        long next = nextSweep.get();
+        if (nowNanos - next >= 0 && nextSweep.compareAndSet(next, nowNanos + idleNanos)) {
+            buckets.values().removeIf(bucket -> bucket.isIdleSince(nowNanos, idleNanos));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.pluralsight.NorthwindTradersAPI6.ratelimit;
+
+import com.pluralsight.NorthwindTradersAPI6.metrics.ConnectionPoolMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns requests away before they reach the connection pool:
+ * 429 when a single client is over its rate, 503 for everyone while the pool
+ * is so busy that borrowing a connection takes longer than the threshold.
+ * Both responses carry Retry-After. /metrics is never limited.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    // How long a pool wait sample stays relevant; once it's older, requests go through again as a probe.
+    private static final long SHED_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ClientRateLimiter rateLimiter;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+    private final boolean enabled;
+    private final double shedThresholdMillis;
+
+    @Autowired
+    public RateLimitFilter(ConnectionPoolMetrics connectionPoolMetrics,
+                           @Value("${ratelimit.enabled:true}") boolean enabled,
+                           @Value("${ratelimit.requests-per-second:50}") double requestsPerSecond,
+                           @Value("${ratelimit.burst:100}") int burst,
+                           @Value("${ratelimit.max-clients:10000}") int maxClients,
+                           @Value("${ratelimit.idle-eviction-ms:60000}") long idleEvictionMillis,
+                           @Value("${loadshed.pool-wait-threshold-ms:500}") double shedThresholdMillis) {
+        this.connectionPoolMetrics = connectionPoolMetrics;
+        this.enabled = enabled;
+        this.shedThresholdMillis = shedThresholdMillis;
+        this.rateLimiter = new ClientRateLimiter(requestsPerSecond, burst, maxClients, idleEvictionMillis);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || request.getRequestURI().startsWith("/metrics");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long waitNanos = rateLimiter.tryAcquire(request.getRemoteAddr(), System.nanoTime());
+        if (waitNanos > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Rate limit exceeded");
+            return;
+        }
+
+        if (connectionPoolMetrics.getRecentBorrowWaitMillis(SHED_WINDOW_NANOS) > shedThresholdMillis) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, SHED_WINDOW_NANOS, "Server is overloaded");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos, String message)
+            throws IOException {
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + 999_999_999) / 1_000_000_000);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(status.value(), message);
+    }
+}
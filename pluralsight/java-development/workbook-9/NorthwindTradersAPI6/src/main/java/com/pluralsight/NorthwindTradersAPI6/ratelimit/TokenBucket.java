@@ -0,0 +1,49 @@
+package com.pluralsight.NorthwindTradersAPI6.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept in a single AtomicLong, in the "theoretical arrival time"
+ * form (GCRA): instead of a token count and a refill timestamp we store the
+ * time at which the bucket would be full again. Taking a token pushes that time
+ * forward by one refill interval; the request is allowed as long as the bucket
+ * would not need to be more than {@code burst} tokens in debt.
+ */
+public class TokenBucket {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double tokensPerSecond, int burst, long nowNanos) {
+        this.intervalNanos = (long) (1_000_000_000L / tokensPerSecond);
+        this.toleranceNanos = intervalNanos * Math.max(0, burst - 1);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise how many nanoseconds to wait
+     * before the next token is available.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long base = Math.max(current, nowNanos);
+            long next = base + intervalNanos;
+            long debt = next - nowNanos - intervalNanos;
+            if (debt > toleranceNanos) {
+                return debt - toleranceNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * A bucket that has been full for a while can be dropped and recreated
+     * later without changing anyone's allowance.
+     */
+    public boolean isIdleSince(long nowNanos, long idleNanos) {
+        return nowNanos - fullAt.get() > idleNanos;
+    }
+}
@@ -0,0 +1,22 @@
+-- Local stand-in for the northwind database, used by the "standin" profile
+-- so the API can be load tested without a MySQL server.
+CREATE TABLE IF NOT EXISTS Categories (
+  CategoryID INT AUTO_INCREMENT PRIMARY KEY,
+  CategoryName VARCHAR(15) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS Products (
+  ProductID INT AUTO_INCREMENT PRIMARY KEY,
+  ProductName VARCHAR(40) NOT NULL,
+  CategoryID INT,
+  UnitPrice DECIMAL(10, 2) DEFAULT 0,
+  Version INT NOT NULL DEFAULT 0
+);
+
+INSERT INTO Categories (CategoryName)
+SELECT 'Category ' || X FROM SYSTEM_RANGE(1, 8)
+WHERE NOT EXISTS (SELECT 1 FROM Categories);
+
+INSERT INTO Products (ProductName, CategoryID, UnitPrice)
+SELECT 'Product ' || X, MOD(X, 8) + 1, MOD(X * 37, 10000) / 100.0 FROM SYSTEM_RANGE(1, 77)
+WHERE NOT EXISTS (SELECT 1 FROM Products);
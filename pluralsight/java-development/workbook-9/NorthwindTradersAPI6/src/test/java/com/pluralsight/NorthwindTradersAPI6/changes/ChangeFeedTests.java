@@ -0,0 +1,62 @@
+package com.pluralsight.NorthwindTradersAPI6.changes;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChangeFeedTests {
+
+	@Test
+	void readsEventsAfterTheGivenSequence() {
+		ChangeFeed feed = new ChangeFeed(8, 1);
+		feed.publish("product", 1, "INSERT");
+		feed.publish("product", 1, "UPDATE");
+		feed.publish("category", 2, "DELETE");
+
+		assertEquals(3, feed.getLastSequence());
+		assertEquals(2, feed.read(1, 10).size());
+		assertEquals("DELETE", feed.read(2, 10).get(0).getOperation());
+		assertEquals(0, feed.read(3, 10).size());
+	}
+
+	@Test
+	void overwrittenEventsAreReportedAsAGap() {
+		ChangeFeed feed = new ChangeFeed(4, 1);
+		for (int i = 1; i <= 10; i++) {
+			feed.publish("product", i, "UPDATE");
+		}
+
+		assertEquals(7, feed.getOldestSequence());
+		assertNull(feed.read(2, 10));
+		assertEquals(4, feed.read(6, 10).size());
+	}
+
+	@Test
+	void aSequenceThisFeedHasNotReachedIsAGap() {
+		ChangeFeed feed = new ChangeFeed(8, 1);
+		feed.publish("product", 1, "INSERT");
+
+		// A client from before a restart, asking for events the new process hasn't numbered yet.
+		assertNull(feed.read(5000, 10));
+		assertNull(feed.read(-1, 10));
+	}
+
+	@Test
+	void eventIdsFromAnEarlierProcessAreNotResumed() {
+		ChangeFeed before = new ChangeFeed(8, 1);
+		ChangeFeed after = new ChangeFeed(8, 1);
+		for (int i = 1; i <= 3; i++) {
+			before.publish("product", i, "UPDATE");
+			after.publish("product", i, "UPDATE");
+		}
+		String eventId = before.eventId(2);
+
+		assertEquals(2, before.resumePoint(eventId));
+		assertEquals(-1, after.resumePoint(eventId));
+		assertNull(after.read(after.resumePoint(eventId), 10));
+		assertEquals(2, after.resumePoint("2"));
+		assertThrows(NumberFormatException.class, () -> after.resumePoint("latest"));
+	}
+}
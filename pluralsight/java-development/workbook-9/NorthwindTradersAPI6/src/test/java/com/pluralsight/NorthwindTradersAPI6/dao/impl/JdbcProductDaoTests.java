@@ -0,0 +1,70 @@
+package com.pluralsight.NorthwindTradersAPI6.dao.impl;
+
+import com.pluralsight.NorthwindTradersAPI6.changes.ChangeFeed;
+import com.pluralsight.NorthwindTradersAPI6.dao.interfaces.VersionConflictException;
+import com.pluralsight.NorthwindTradersAPI6.models.Money;
+import com.pluralsight.NorthwindTradersAPI6.models.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcProductDaoTests {
+
+    private BasicDataSource dataSource;
+    private JdbcProductDao dao;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        // One connection, so an update that borrows a second one waits out max-wait instead of finishing.
+        dataSource.setMaxTotal(1);
+        dataSource.setMaxWait(Duration.ofSeconds(2));
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE Products (ProductID INT PRIMARY KEY AUTO_INCREMENT, ProductName VARCHAR(40), " +
+                    "CategoryID INT, UnitPrice DECIMAL(10, 2), Version INT NOT NULL DEFAULT 0)");
+            statement.execute("INSERT INTO Products (ProductName, CategoryID, UnitPrice) VALUES ('Chai', 1, 18.00)");
+        }
+        dao = new JdbcProductDao(dataSource, new ChangeFeed(16, 1));
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void updateNeedsOnlyTheConnectionItHolds() {
+        Product updated = assertTimeoutPreemptively(Duration.ofSeconds(1),
+                () -> dao.update(1, new Product(null, "Chai Tea", 1, Money.parse("19.00")), null));
+
+        assertEquals(1, updated.getVersion());
+        assertEquals("Chai Tea", dao.getById(1).getProductName());
+        assertNull(dao.update(99, new Product(null, "Nobody", 1, Money.parse("1.00")), null));
+    }
+
+    @Test
+    void aStaleVersionReportsTheCurrentRow() {
+        dao.update(1, new Product(null, "Chai Tea", 1, Money.parse("19.00")), 0);
+
+        VersionConflictException conflict = assertThrows(VersionConflictException.class,
+                () -> dao.update(1, new Product(null, "Chai Latte", 1, Money.parse("20.00")), 0));
+
+        assertEquals("Chai Tea", conflict.getCurrent().getProductName());
+        assertEquals(1, conflict.getCurrent().getVersion());
+        assertNull(dao.update(99, new Product(null, "Nobody", 1, Money.parse("1.00")), 0));
+    }
+}
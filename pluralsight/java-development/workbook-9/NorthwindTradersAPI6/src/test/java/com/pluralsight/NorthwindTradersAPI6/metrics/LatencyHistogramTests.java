@@ -0,0 +1,30 @@
+package com.pluralsight.NorthwindTradersAPI6.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyHistogramTests {
+
+	@Test
+	void percentilesReportBucketUpperBounds() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 90; i++) {
+			histogram.record(800_000);      // 0.8 ms -> 1 ms bucket
+		}
+		for (int i = 0; i < 10; i++) {
+			histogram.record(40_000_000);   // 40 ms -> 50 ms bucket
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(1.0, histogram.getPercentileMillis(50));
+		assertEquals(1.0, histogram.getPercentileMillis(90));
+		assertEquals(50.0, histogram.getPercentileMillis(99));
+	}
+
+	@Test
+	void emptyHistogramReportsZero() {
+		assertEquals(0.0, new LatencyHistogram().getPercentileMillis(99));
+	}
+
+}
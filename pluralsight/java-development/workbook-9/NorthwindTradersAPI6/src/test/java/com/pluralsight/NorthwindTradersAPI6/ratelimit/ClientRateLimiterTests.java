@@ -0,0 +1,27 @@
+package com.pluralsight.NorthwindTradersAPI6.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClientRateLimiterTests {
+	private static final long MILLIS = 1_000_000L;
+
+	@Test
+	void aFullMapIsSweptAtMostOncePerIdleInterval() {
+		ClientRateLimiter limiter = new ClientRateLimiter(10, 5, 2, 1000, 0);
+		limiter.tryAcquire("a", 0);
+		limiter.tryAcquire("b", 0);
+
+		// Nothing is idle yet, so this sweep frees nothing and c shares the overflow bucket.
+		limiter.tryAcquire("c", 500 * MILLIS);
+		assertEquals(2, limiter.getTrackedClients());
+
+		// a and b have gone idle, but the next sweep isn't due until 1500ms.
+		limiter.tryAcquire("d", 1400 * MILLIS);
+		assertEquals(2, limiter.getTrackedClients());
+
+		limiter.tryAcquire("d", 1500 * MILLIS);
+		assertEquals(1, limiter.getTrackedClients());
+	}
+}
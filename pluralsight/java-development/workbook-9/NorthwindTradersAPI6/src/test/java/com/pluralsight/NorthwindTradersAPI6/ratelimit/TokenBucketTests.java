@@ -0,0 +1,35 @@
+package com.pluralsight.NorthwindTradersAPI6.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void allowsABurstThenRefillsAtTheRate() {
+		TokenBucket bucket = new TokenBucket(10, 5, 0);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, bucket.tryAcquire(0));
+		}
+
+		long wait = bucket.tryAcquire(0);
+		assertEquals(SECOND / 10, wait);
+
+		assertEquals(0, bucket.tryAcquire(SECOND / 10));
+		assertTrue(bucket.tryAcquire(SECOND / 10) > 0);
+	}
+
+	@Test
+	void bucketIsIdleOnceItHasRefilled() {
+		TokenBucket bucket = new TokenBucket(10, 5, 0);
+		bucket.tryAcquire(0);
+
+		assertFalse(bucket.isIdleSince(SECOND / 20, SECOND));
+		assertTrue(bucket.isIdleSince(3 * SECOND, SECOND));
+	}
+
+}
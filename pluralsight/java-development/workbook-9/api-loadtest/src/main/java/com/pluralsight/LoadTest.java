@@ -0,0 +1,123 @@
+package com.pluralsight;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop load generator for the Spring Boot APIs.
+ * <p>
+ * Start the API once per execution mode against the stand-in database and run
+ * this against each one with the same settings:
+ * <pre>
+ *   java -jar target/NorthwindTradersAPI6-0.0.1-SNAPSHOT.jar --spring.profiles.active=standin
+ *   java -jar target/NorthwindTradersAPI6-0.0.1-SNAPSHOT.jar --spring.profiles.active=standin,virtual
+ *
+ *   java -cp target/classes com.pluralsight.LoadTest http://localhost:8080/products 200 30 platform
+ *   java -cp target/classes com.pluralsight.LoadTest http://localhost:8080/products 200 30 virtual
+ * </pre>
+ * Arguments: url, concurrent clients, seconds to measure, label for the report.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080/products";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        String label = args.length > 3 ? args[3] : "run";
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        // Warm up the JIT and the connection pool before measuring.
+        runClients(httpClient, request, clients, Math.max(1, seconds / 5));
+        Result result = runClients(httpClient, request, clients, seconds);
+
+        System.out.println(result.report(label, url, clients, seconds));
+        System.exit(0);
+    }
+
+    private static Result runClients(HttpClient httpClient, HttpRequest request, int clients, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<Result>> futures = new ArrayList<>();
+
+        for (int i = 0; i < clients; i++) {
+            futures.add(pool.submit(() -> {
+                Result result = new Result();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        result.record(System.nanoTime() - start, response.statusCode());
+                    } catch (Exception e) {
+                        result.record(System.nanoTime() - start, -1);
+                    }
+                }
+                return result;
+            }));
+        }
+
+        Result total = new Result();
+        for (Future<Result> future : futures) {
+            total.merge(future.get());
+        }
+        pool.shutdown();
+        return total;
+    }
+
+    private static class Result {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+
+        void merge(Result other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], 200);
+            }
+            errors += other.errors;
+        }
+
+        String report(String label, String url, int clients, int seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return String.format("%-10s %s clients=%d requests=%d errors=%d throughput=%.1f req/s " +
+                            "p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms",
+                    label, url, clients, count, errors, count / (double) seconds,
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                    percentile(sorted, 99.9), percentile(sorted, 100));
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+        }
+    }
+}
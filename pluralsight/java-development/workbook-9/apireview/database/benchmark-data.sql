@@ -0,0 +1,19 @@
+-- Fills the books table with a few million generated rows for BookSearchBenchmark.
+-- Run against the bookstore database after db-script.sql:
+--   mysql -u root -p bookstore < database/benchmark-data.sql
+
+USE bookstore;
+
+SET SESSION cte_max_recursion_depth = 10000;
+
+-- 2,000 x 1,000 = 2,000,000 rows spread over 20,000 authors and 100 years.
+INSERT INTO books (title, author, publication_year)
+WITH RECURSIVE
+  a (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM a WHERE n < 2000),
+  b (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM b WHERE n < 1000)
+SELECT CONCAT('Title ', a.n, '-', b.n),
+       CONCAT('Author ', MOD(a.n * 1000 + b.n, 20000)),
+       1925 + MOD(a.n + b.n, 100)
+FROM a CROSS JOIN b;
+
+ANALYZE TABLE books;
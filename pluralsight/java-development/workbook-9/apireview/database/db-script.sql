@@ -17,3 +17,9 @@ INSERT INTO books (title, author, publication_year) VALUES
   ('Book 1', 'Author 1', 2020),
   ('Book 2', 'Author 2', 2018),
   ('Book 3', 'Author 3', 2021);
+
+-- Indexes for the /books filters. Each search only emits the predicates it was
+-- given, so every filter mix below can use one of these.
+CREATE INDEX idx_books_author_year ON books (author, publication_year);
+CREATE INDEX idx_books_title ON books (title);
+CREATE INDEX idx_books_year ON books (publication_year);
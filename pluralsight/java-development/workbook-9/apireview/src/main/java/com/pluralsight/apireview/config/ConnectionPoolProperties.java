@@ -0,0 +1,79 @@
+package com.pluralsight.apireview.config;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Pool sizing, validation, eviction and statement pooling settings,
+ * read from the datasource.pool.* entries in application.properties.
+ */
+@Component
+public class ConnectionPoolProperties {
+    @Value("${datasource.pool.initial-size:5}")
+    private int initialSize;
+
+    @Value("${datasource.pool.max-total:20}")
+    private int maxTotal;
+
+    @Value("${datasource.pool.max-idle:20}")
+    private int maxIdle;
+
+    @Value("${datasource.pool.min-idle:5}")
+    private int minIdle;
+
+    @Value("${datasource.pool.max-wait-ms:3000}")
+    private long maxWaitMillis;
+
+    @Value("${datasource.pool.validation-query:/* ping */ SELECT 1}")
+    private String validationQuery;
+
+    @Value("${datasource.pool.validation-timeout-seconds:2}")
+    private int validationTimeoutSeconds;
+
+    @Value("${datasource.pool.test-on-borrow:true}")
+    private boolean testOnBorrow;
+
+    @Value("${datasource.pool.test-while-idle:true}")
+    private boolean testWhileIdle;
+
+    @Value("${datasource.pool.eviction-interval-ms:30000}")
+    private long evictionIntervalMillis;
+
+    @Value("${datasource.pool.min-evictable-idle-ms:60000}")
+    private long minEvictableIdleMillis;
+
+    @Value("${datasource.pool.max-conn-lifetime-ms:1800000}")
+    private long maxConnLifetimeMillis;
+
+    @Value("${datasource.pool.pool-prepared-statements:true}")
+    private boolean poolPreparedStatements;
+
+    @Value("${datasource.pool.max-open-prepared-statements:100}")
+    private int maxOpenPreparedStatements;
+
+    public void applyTo(BasicDataSource basicDataSource) {
+        basicDataSource.setInitialSize(initialSize);
+        basicDataSource.setMaxTotal(maxTotal);
+        basicDataSource.setMaxIdle(maxIdle);
+        basicDataSource.setMinIdle(minIdle);
+        basicDataSource.setMaxWait(Duration.ofMillis(maxWaitMillis));
+
+        basicDataSource.setValidationQuery(validationQuery);
+        basicDataSource.setValidationQueryTimeout(Duration.ofSeconds(validationTimeoutSeconds));
+        basicDataSource.setTestOnBorrow(testOnBorrow);
+        basicDataSource.setTestWhileIdle(testWhileIdle);
+
+        basicDataSource.setDurationBetweenEvictionRuns(Duration.ofMillis(evictionIntervalMillis));
+        basicDataSource.setMinEvictableIdle(Duration.ofMillis(minEvictableIdleMillis));
+        basicDataSource.setMaxConn(Duration.ofMillis(maxConnLifetimeMillis));
+
+        basicDataSource.setPoolPreparedStatements(poolPreparedStatements);
+        basicDataSource.setMaxOpenPreparedStatements(maxOpenPreparedStatements);
+
+        // Needed so PoolMetricsDataSource can reach the statement pool behind a borrowed connection.
+        basicDataSource.setAccessToUnderlyingConnectionAllowed(true);
+    }
+}
@@ -1,5 +1,6 @@
 package com.pluralsight.apireview.config;
 
+import com.pluralsight.apireview.metrics.ConnectionPoolMetrics;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,19 +13,29 @@ import javax.sql.DataSource;
 public class DbConfiguration {
 
     private BasicDataSource basicDataSource;
+    private ConnectionPoolMetrics connectionPoolMetrics;
 
     @Bean
     public DataSource dataSource() {
-        return basicDataSource;
+        return new PoolMetricsDataSource(basicDataSource, connectionPoolMetrics);
+    }
+
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return connectionPoolMetrics;
     }
 
     public DbConfiguration(@Value("${datasource.url}") String url,
                            @Value("${datasource.username}") String username,
-                           @Value("${datasource.password}") String password) {
+                           @Value("${datasource.password}") String password,
+                           ConnectionPoolProperties poolProperties) {
         basicDataSource = new BasicDataSource();
         basicDataSource.setUrl(url);
         basicDataSource.setUsername(username);
         basicDataSource.setPassword(password);
+        poolProperties.applyTo(basicDataSource);
+
+        connectionPoolMetrics = new ConnectionPoolMetrics(basicDataSource);
     }
 
 }
@@ -0,0 +1,134 @@
+package com.pluralsight.apireview.config;
+
+import com.pluralsight.apireview.metrics.ConnectionPoolMetrics;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.DelegatingConnection;
+import org.apache.commons.dbcp2.PoolingConnection;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+
+/**
+ * Records how long each borrow waits on the pool, counts borrow timeouts and
+ * tracks whether prepareStatement was served from the pooled statement cache.
+ */
+public class PoolMetricsDataSource implements DataSource {
+    private final BasicDataSource dataSource;
+    private final ConnectionPoolMetrics metrics;
+
+    public PoolMetricsDataSource(BasicDataSource dataSource, ConnectionPoolMetrics metrics) {
+        this.dataSource = dataSource;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            if (e.getCause() instanceof NoSuchElementException) {
+                metrics.recordBorrowTimeout();
+            } else {
+                metrics.recordBorrowFailure();
+            }
+            throw e;
+        }
+        metrics.recordBorrow(System.nanoTime() - start);
+        return trackStatementCache(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return dataSource.getConnection(username, password);
+    }
+
+    private Connection trackStatementCache(Connection connection) {
+        GenericKeyedObjectPool<?, ?> statementPool = findStatementPool(connection);
+        if (statementPool == null) {
+            return connection;
+        }
+
+        // A prepareStatement that didn't create a new pooled statement was a cache hit.
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    boolean prepare = method.getName().equals("prepareStatement");
+                    long created = prepare ? statementPool.getCreatedCount() : 0;
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (prepare) {
+                        if (statementPool.getCreatedCount() == created) {
+                            metrics.recordStatementCacheHit();
+                        } else {
+                            metrics.recordStatementCacheMiss();
+                        }
+                    }
+                    return result;
+                });
+    }
+
+    private static GenericKeyedObjectPool<?, ?> findStatementPool(Connection connection) {
+        Connection current = connection;
+        while (current instanceof DelegatingConnection<?> delegating) {
+            if (current instanceof PoolingConnection pooling
+                    && pooling.getStatementPool() instanceof GenericKeyedObjectPool<?, ?> pool) {
+                return pool;
+            }
+            current = delegating.getDelegate();
+        }
+        return null;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+}
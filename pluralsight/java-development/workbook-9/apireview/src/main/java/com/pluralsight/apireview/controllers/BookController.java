@@ -1,10 +1,12 @@
 package com.pluralsight.apireview.controllers;
 
 import com.pluralsight.apireview.models.Book;
+import com.pluralsight.apireview.models.BookQuery;
 import com.pluralsight.apireview.services.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -20,11 +22,21 @@ public class BookController {
     }
 
     // @RequestMapping(path = "/", method = RequestMethod.GET)
+    // match=prefix turns title/author into "starts with"; sort=year or sort=-year for descending
     @GetMapping
     public List<Book> getAllBooks(@RequestParam(name = "title", required = false) String title,
                                   @RequestParam(name = "author", required = false) String author,
-                                  @RequestParam(name = "year", required = false) Integer publicationYear) {
-        return bookService.getAllBooks(title, author, publicationYear);
+                                  @RequestParam(name = "year", required = false) Integer publicationYear,
+                                  @RequestParam(name = "match", defaultValue = "exact") String match,
+                                  @RequestParam(name = "sort", required = false) String sort) {
+        boolean descending = sort != null && sort.startsWith("-");
+        String sortBy = descending ? sort.substring(1) : sort;
+        if (sortBy != null && !BookQuery.SORT_FIELDS.contains(sortBy)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot sort books by " + sortBy);
+        }
+
+        BookQuery query = new BookQuery(title, author, publicationYear, match.equals("prefix"), sortBy, descending);
+        return bookService.searchBooks(query);
     }
 
     //@RequestMapping(path = "/{id}", method = RequestMethod.GET)
@@ -0,0 +1,24 @@
+package com.pluralsight.apireview.controllers;
+
+import com.pluralsight.apireview.metrics.ConnectionPoolMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+public class PoolMetricsController {
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+
+    @Autowired
+    public PoolMetricsController(ConnectionPoolMetrics connectionPoolMetrics) {
+        this.connectionPoolMetrics = connectionPoolMetrics;
+    }
+
+    @RequestMapping(path = "/metrics/pool", method = RequestMethod.GET)
+    public Map<String, Object> getPoolMetrics() {
+        return connectionPoolMetrics.snapshot();
+    }
+}
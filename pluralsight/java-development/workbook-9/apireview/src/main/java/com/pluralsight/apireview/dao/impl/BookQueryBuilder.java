@@ -0,0 +1,115 @@
+package com.pluralsight.apireview.dao.impl;
+
+import com.pluralsight.apireview.models.BookQuery;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the SELECT for a book search with only the predicates that were actually
+ * supplied, so MySQL can pick an index for them (the old "(title = ? OR ? = '')"
+ * form forces a full scan).
+ * <p>
+ * Every combination of filters, match mode and sort gets exactly one SQL string,
+ * built once and cached. Identical strings mean the pooled prepared statements
+ * in DBCP are reused across requests with the same filter mix.
+ */
+public class BookQueryBuilder {
+    private static final String SELECT = "SELECT id, title, author, publication_year FROM Books";
+
+    // Column for each of BookQuery.SORT_FIELDS, in the same order.
+    private static final List<String> SORT_COLUMNS = List.of("id", "title", "author", "publication_year");
+
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 1 << 1;
+    private static final int YEAR = 1 << 2;
+    private static final int PREFIX = 1 << 3;
+    private static final int DESCENDING = 1 << 4;
+    private static final int SORT_SHIFT = 5;
+
+    private final Map<Integer, String> sqlByShape = new ConcurrentHashMap<>();
+
+    public String sql(BookQuery query) {
+        return sqlByShape.computeIfAbsent(shape(query), BookQueryBuilder::buildSql);
+    }
+
+    /**
+     * Binds the supplied filters in the same order buildSql emitted their placeholders.
+     */
+    public void bind(PreparedStatement statement, BookQuery query) throws SQLException {
+        int index = 1;
+        if (hasText(query.getTitle())) {
+            statement.setString(index++, query.isPrefixMatch() ? likePrefix(query.getTitle()) : query.getTitle());
+        }
+        if (hasText(query.getAuthor())) {
+            statement.setString(index++, query.isPrefixMatch() ? likePrefix(query.getAuthor()) : query.getAuthor());
+        }
+        if (query.getPublicationYear() != null) {
+            statement.setInt(index, query.getPublicationYear());
+        }
+    }
+
+    private static int shape(BookQuery query) {
+        int shape = 0;
+        if (hasText(query.getTitle())) {
+            shape |= TITLE;
+        }
+        if (hasText(query.getAuthor())) {
+            shape |= AUTHOR;
+        }
+        if (query.getPublicationYear() != null) {
+            shape |= YEAR;
+        }
+        if (query.isPrefixMatch() && (shape & (TITLE | AUTHOR)) != 0) {
+            shape |= PREFIX;
+        }
+        if (query.getSortBy() != null) {
+            int sortField = BookQuery.SORT_FIELDS.indexOf(query.getSortBy());
+            if (sortField < 0) {
+                throw new IllegalArgumentException("Cannot sort books by " + query.getSortBy());
+            }
+            shape |= (sortField + 1) << SORT_SHIFT;
+            if (query.isDescending()) {
+                shape |= DESCENDING;
+            }
+        }
+        return shape;
+    }
+
+    private static String buildSql(int shape) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        String comparison = (shape & PREFIX) != 0 ? " LIKE ?" : " = ?";
+        String separator = " WHERE ";
+
+        if ((shape & TITLE) != 0) {
+            sql.append(separator).append("title").append(comparison);
+            separator = " AND ";
+        }
+        if ((shape & AUTHOR) != 0) {
+            sql.append(separator).append("author").append(comparison);
+            separator = " AND ";
+        }
+        if ((shape & YEAR) != 0) {
+            sql.append(separator).append("publication_year = ?");
+        }
+
+        int sort = shape >>> SORT_SHIFT;
+        if (sort > 0) {
+            sql.append(" ORDER BY ").append(SORT_COLUMNS.get(sort - 1));
+            sql.append((shape & DESCENDING) != 0 ? " DESC" : " ASC");
+        }
+        return sql.toString();
+    }
+
+    // A LIKE pattern with no leading wildcard, so it is still an index range scan.
+    private static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+}
@@ -2,6 +2,7 @@ package com.pluralsight.apireview.dao.impl;
 
 import com.pluralsight.apireview.dao.interfaces.IBookDAO;
 import com.pluralsight.apireview.models.Book;
+import com.pluralsight.apireview.models.BookQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -14,6 +15,7 @@ import java.util.List;
 public class JdbcBookDAO implements IBookDAO {
 
     private DataSource dataSource;
+    private final BookQueryBuilder queryBuilder = new BookQueryBuilder();
 
     @Autowired
     public JdbcBookDAO(DataSource dataSource) {
@@ -22,26 +24,19 @@ public class JdbcBookDAO implements IBookDAO {
 
     @Override
     public List<Book> getAllBooks(String title, String author, Integer publicationYear) {
-        List<Book> books = new ArrayList<>();
+        return searchBooks(new BookQuery(title, author, publicationYear, false, null, false));
+    }
 
-        String sql = "SELECT * FROM Books " +
-                "WHERE (title = ? OR ? = '') " +
-                " AND (author = ? OR ? = '') " +
-                " And (publication_year = ? OR ? = -1) ";
+    @Override
+    public List<Book> searchBooks(BookQuery query) {
+        List<Book> books = new ArrayList<>();
 
-        title = title == null ? "" : title;
-        author = author == null ? "" : author;
-        publicationYear = publicationYear == null ? -1 : publicationYear;
+        String sql = queryBuilder.sql(query);
 
         try (Connection connection = dataSource.getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
 
-            preparedStatement.setString(1, title);
-            preparedStatement.setString(2, title);
-            preparedStatement.setString(3, author);
-            preparedStatement.setString(4, author);
-            preparedStatement.setInt(5, publicationYear);
-            preparedStatement.setInt(6, publicationYear);
+            queryBuilder.bind(preparedStatement, query);
 
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 while (resultSet.next()) {
@@ -1,6 +1,7 @@
 package com.pluralsight.apireview.dao.interfaces;
 
 import com.pluralsight.apireview.models.Book;
+import com.pluralsight.apireview.models.BookQuery;
 
 import java.util.List;
 
@@ -8,6 +9,8 @@ public interface IBookDAO {
 
     List<Book> getAllBooks(String title, String author, Integer publicationYear);
 
+    List<Book> searchBooks(BookQuery query);
+
     Book getBookById(Integer id);
 
     Book insertBook(Book book);
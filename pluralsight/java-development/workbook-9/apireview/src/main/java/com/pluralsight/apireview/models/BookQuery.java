@@ -0,0 +1,74 @@
+package com.pluralsight.apireview.models;
+
+import java.util.List;
+
+/**
+ * Filters and ordering for a book search. Any filter left null is not applied.
+ */
+public class BookQuery {
+    public static final List<String> SORT_FIELDS = List.of("id", "title", "author", "year");
+
+    private String title;
+    private String author;
+    private Integer publicationYear;
+    private boolean prefixMatch;
+    private String sortBy;
+    private boolean descending;
+
+    public BookQuery(String title, String author, Integer publicationYear, boolean prefixMatch, String sortBy, boolean descending) {
+        this.title = title;
+        this.author = author;
+        this.publicationYear = publicationYear;
+        this.prefixMatch = prefixMatch;
+        this.sortBy = sortBy;
+        this.descending = descending;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public Integer getPublicationYear() {
+        return publicationYear;
+    }
+
+    public void setPublicationYear(Integer publicationYear) {
+        this.publicationYear = publicationYear;
+    }
+
+    public boolean isPrefixMatch() {
+        return prefixMatch;
+    }
+
+    public void setPrefixMatch(boolean prefixMatch) {
+        this.prefixMatch = prefixMatch;
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public void setSortBy(String sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public void setDescending(boolean descending) {
+        this.descending = descending;
+    }
+}
@@ -0,0 +1,173 @@
+package com.pluralsight.apireview.services;
+
+import com.pluralsight.apireview.models.Book;
+import com.pluralsight.apireview.models.BookQuery;
+
+import java.text.Normalizer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of book search results, bounded by an estimate of the memory the
+ * cached books take rather than by entry count, since one popular author can
+ * return many more rows than a title lookup.
+ * <p>
+ * Keys are normalized the way MySQL's default case- and accent-insensitive
+ * collation compares them, so "/books?author=smith" and "?author=Smith" share
+ * an entry. On a write, only entries whose filters match the old or the new
+ * version of the book are dropped.
+ */
+public class BookSearchCache {
+    private static final int BOOK_OVERHEAD_BYTES = 64;
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+    // Bumped on every write so a search that started before it doesn't cache stale rows.
+    private long writeVersion;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * @param ttlMillis Upper bound on staleness for changes made outside this service
+     *                  (and for empty results cached while the database was unreachable).
+     */
+    public BookSearchCache(long maxBytes, long ttlMillis) {
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttlMillis * 1_000_000;
+    }
+
+    public List<Book> get(BookQuery query, Supplier<List<Book>> loader) {
+        Key key = new Key(query);
+        long version;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos) {
+                hits++;
+                return entry.books;
+            }
+            misses++;
+            version = writeVersion;
+        }
+
+        List<Book> books = List.copyOf(loader.get());
+        long size = estimateBytes(books);
+
+        synchronized (this) {
+            // Results bigger than an eighth of the budget would just push everything else out.
+            if (version == writeVersion && size <= maxBytes / 8) {
+                Entry previous = entries.put(key, new Entry(books, size, System.nanoTime()));
+                usedBytes += size - (previous == null ? 0 : previous.bytes);
+                evict();
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Drops every entry that could include the given book. Pass both the old and
+     * the new version of an updated book.
+     */
+    public synchronized void invalidate(Book... books) {
+        writeVersion++;
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            for (Book book : books) {
+                if (book != null && entry.getKey().matches(book)) {
+                    usedBytes -= entry.getValue().bytes;
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * For writes where the affected book isn't known.
+     */
+    public synchronized void clear() {
+        writeVersion++;
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            usedBytes -= eldest.next().bytes;
+            eldest.remove();
+        }
+    }
+
+    private static long estimateBytes(List<Book> books) {
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        for (Book book : books) {
+            bytes += BOOK_OVERHEAD_BYTES + 2L * (length(book.getTitle()) + length(book.getAuthor()));
+        }
+        return bytes;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    static String normalize(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(List<Book> books, long bytes, long loadedAt) {
+    }
+
+    private record Key(String title, String author, Integer year, boolean prefix, String sortBy, boolean descending) {
+        Key(BookQuery query) {
+            this(normalize(query.getTitle()), normalize(query.getAuthor()), query.getPublicationYear(),
+                    query.isPrefixMatch(), query.getSortBy(), query.getSortBy() != null && query.isDescending());
+        }
+
+        boolean matches(Book book) {
+            return matches(title, book.getTitle())
+                    && matches(author, book.getAuthor())
+                    && (year == null || Objects.equals(year, book.getPublicationYear()));
+        }
+
+        // Trailing spaces are ignored here because PAD SPACE collations ignore them in "=";
+        // that only ever widens what gets invalidated.
+        private boolean matches(String filter, String value) {
+            if (filter == null) {
+                return true;
+            }
+            String normalized = normalize(value);
+            if (normalized == null) {
+                return false;
+            }
+            String wanted = filter.stripTrailing();
+            normalized = normalized.stripTrailing();
+            return prefix ? normalized.startsWith(wanted) : normalized.equals(wanted);
+        }
+    }
+}
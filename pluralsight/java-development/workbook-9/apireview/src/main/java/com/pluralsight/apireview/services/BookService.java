@@ -2,7 +2,9 @@ package com.pluralsight.apireview.services;
 
 import com.pluralsight.apireview.dao.interfaces.IBookDAO;
 import com.pluralsight.apireview.models.Book;
+import com.pluralsight.apireview.models.BookQuery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -11,14 +13,22 @@ import java.util.List;
 public class BookService {
 
     private IBookDAO bookDAO;
+    private BookSearchCache searchCache;
 
     @Autowired
-    public BookService(IBookDAO bookDAO) {
+    public BookService(IBookDAO bookDAO,
+                       @Value("${books.search-cache.max-bytes:16777216}") long cacheMaxBytes,
+                       @Value("${books.search-cache.ttl-ms:60000}") long cacheTtlMillis) {
         this.bookDAO = bookDAO;
+        this.searchCache = new BookSearchCache(cacheMaxBytes, cacheTtlMillis);
     }
 
     public List<Book> getAllBooks(String title, String author, Integer publicationYear) {
-        return bookDAO.getAllBooks(title, author, publicationYear);
+        return searchBooks(new BookQuery(title, author, publicationYear, false, null, false));
+    }
+
+    public List<Book> searchBooks(BookQuery query) {
+        return searchCache.get(query, () -> bookDAO.searchBooks(query));
     }
 
     public Book getBookById(int id) {
@@ -26,14 +36,29 @@ public class BookService {
     }
 
     public Book insertBook(Book book) {
-        return bookDAO.insertBook(book);
+        Book inserted = bookDAO.insertBook(book);
+        searchCache.invalidate(inserted);
+        return inserted;
     }
 
     public void updateBook(int id, Book book) {
+        // The old version decides which cached searches it has to leave, the new one which it joins.
+        Book previous = bookDAO.getBookById(id);
         bookDAO.updateBook(id, book);
+        if (previous == null) {
+            searchCache.clear();
+        } else {
+            searchCache.invalidate(previous, book);
+        }
     }
 
     public void deleteBook(int id) {
+        Book previous = bookDAO.getBookById(id);
         bookDAO.deleteBook(id);
+        if (previous == null) {
+            searchCache.clear();
+        } else {
+            searchCache.invalidate(previous);
+        }
     }
 }
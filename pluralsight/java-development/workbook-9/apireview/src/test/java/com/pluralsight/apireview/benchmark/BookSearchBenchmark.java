@@ -0,0 +1,121 @@
+package com.pluralsight.apireview.benchmark;
+
+import com.pluralsight.apireview.dao.impl.BookQueryBuilder;
+import com.pluralsight.apireview.models.BookQuery;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares the old "(col = ? OR ? = '')" search with BookQueryBuilder for each
+ * filter mix: which index MySQL picks (EXPLAIN), how many rows it expects to
+ * read, and p50/p99 latency.
+ * <p>
+ * Needs a MySQL bookstore database loaded with database/db-script.sql and
+ * database/benchmark-data.sql. It is not a unit test; run it by hand:
+ * <pre>
+ *   mvn test-compile
+ *   java -cp "target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *        com.pluralsight.apireview.benchmark.BookSearchBenchmark jdbc:mysql://localhost:3306/bookstore root P@ssw0rd
+ * </pre>
+ */
+public class BookSearchBenchmark {
+    private static final String LEGACY_SQL = "SELECT * FROM Books " +
+            "WHERE (title = ? OR ? = '') " +
+            " AND (author = ? OR ? = '') " +
+            " And (publication_year = ? OR ? = -1) ";
+
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    public static void main(String[] args) throws SQLException {
+        String url = args.length > 0 ? args[0] : "jdbc:mysql://localhost:3306/bookstore";
+        String username = args.length > 1 ? args[1] : "root";
+        String password = args.length > 2 ? args[2] : "P@ssw0rd";
+
+        Map<String, BookQuery> mixes = new LinkedHashMap<>();
+        mixes.put("title", new BookQuery("Title 1234-567", null, null, false, null, false));
+        mixes.put("author", new BookQuery(null, "Author 4321", null, false, null, false));
+        mixes.put("author+year", new BookQuery(null, "Author 4321", 1990, false, null, false));
+        mixes.put("year", new BookQuery(null, null, 1990, false, "title", false));
+        mixes.put("title prefix", new BookQuery("Title 1234-5", null, null, true, null, false));
+        mixes.put("author prefix", new BookQuery(null, "Author 432", null, true, "author", false));
+        mixes.put("all three", new BookQuery("Title 1234-567", "Author 4321", 1990, false, null, false));
+
+        BookQueryBuilder builder = new BookQueryBuilder();
+
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            System.out.printf("%-14s %-8s %-22s %10s %8s %10s %10s%n",
+                    "mix", "version", "index", "est. rows", "rows", "p50 ms", "p99 ms");
+
+            for (Map.Entry<String, BookQuery> mix : mixes.entrySet()) {
+                BookQuery query = mix.getValue();
+
+                if (!query.isPrefixMatch() && query.getSortBy() == null) {
+                    report(connection, mix.getKey(), "legacy", LEGACY_SQL, statement -> bindLegacy(statement, query));
+                }
+                report(connection, mix.getKey(), "builder", builder.sql(query), statement -> builder.bind(statement, query));
+            }
+        }
+    }
+
+    private static void report(Connection connection, String mix, String version, String sql, Binder binder)
+            throws SQLException {
+        String index = "-";
+        long estimatedRows = 0;
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            binder.bind(explain);
+            try (ResultSet resultSet = explain.executeQuery()) {
+                if (resultSet.next()) {
+                    index = resultSet.getString("key") == null ? "FULL SCAN" : resultSet.getString("key");
+                    estimatedRows = resultSet.getLong("rows");
+                }
+            }
+        }
+
+        long[] timings = new long[ITERATIONS];
+        int rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+                long start = System.nanoTime();
+                rows = 0;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        rows++;
+                    }
+                }
+                if (i >= WARMUP) {
+                    timings[i - WARMUP] = System.nanoTime() - start;
+                }
+            }
+        }
+
+        Arrays.sort(timings);
+        System.out.printf("%-14s %-8s %-22s %10d %8d %10.2f %10.2f%n",
+                mix, version, index, estimatedRows, rows,
+                timings[ITERATIONS / 2] / 1_000_000.0, timings[ITERATIONS * 99 / 100] / 1_000_000.0);
+    }
+
+    private static void bindLegacy(PreparedStatement statement, BookQuery query) throws SQLException {
+        String title = query.getTitle() == null ? "" : query.getTitle();
+        String author = query.getAuthor() == null ? "" : query.getAuthor();
+        int year = query.getPublicationYear() == null ? -1 : query.getPublicationYear();
+        statement.setString(1, title);
+        statement.setString(2, title);
+        statement.setString(3, author);
+        statement.setString(4, author);
+        statement.setInt(5, year);
+        statement.setInt(6, year);
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+}
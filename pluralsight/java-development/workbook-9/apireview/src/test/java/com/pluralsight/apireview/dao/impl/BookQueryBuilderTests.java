@@ -0,0 +1,33 @@
+package com.pluralsight.apireview.dao.impl;
+
+import com.pluralsight.apireview.models.BookQuery;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BookQueryBuilderTests {
+	private final BookQueryBuilder builder = new BookQueryBuilder();
+
+	@Test
+	void emitsOnlyTheSuppliedPredicates() {
+		assertEquals("SELECT id, title, author, publication_year FROM Books",
+				builder.sql(new BookQuery(null, "", null, false, null, false)));
+		assertEquals("SELECT id, title, author, publication_year FROM Books WHERE author = ? AND publication_year = ?",
+				builder.sql(new BookQuery(null, "Author 1", 2020, false, null, false)));
+	}
+
+	@Test
+	void prefixMatchAndSorting() {
+		assertEquals("SELECT id, title, author, publication_year FROM Books WHERE title LIKE ? ORDER BY publication_year DESC",
+				builder.sql(new BookQuery("Book", null, null, true, "year", true)));
+	}
+
+	@Test
+	void sameShapeReusesTheSameSql() {
+		String first = builder.sql(new BookQuery("Book 1", null, 2020, false, "title", false));
+		String second = builder.sql(new BookQuery("Book 2", null, 1999, false, "title", false));
+		assertSame(first, second);
+	}
+
+}
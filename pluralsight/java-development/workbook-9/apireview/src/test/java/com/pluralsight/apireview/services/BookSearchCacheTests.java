@@ -0,0 +1,48 @@
+package com.pluralsight.apireview.services;
+
+import com.pluralsight.apireview.models.Book;
+import com.pluralsight.apireview.models.BookQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookSearchCacheTests {
+	private final BookSearchCache cache = new BookSearchCache(1_000_000, 60_000);
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private void search(String title, String author, Integer year) {
+		cache.get(new BookQuery(title, author, year, false, null, false), () -> {
+			loads.incrementAndGet();
+			return List.of(new Book(1, "Book 1", "Author 1", 2020));
+		});
+	}
+
+	@Test
+	void normalizedFiltersShareAnEntry() {
+		search(null, "Author 1", null);
+		search("", "author 1", null);
+
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	void writesOnlyInvalidateMatchingSearches() {
+		search(null, "Author 1", null);
+		search(null, "Author 2", null);
+		search(null, null, 1999);
+
+		cache.invalidate(new Book(7, "New Book", "Author 2", 2021));
+
+		search(null, "Author 1", null);
+		search(null, null, 1999);
+		assertEquals(3, loads.get());
+
+		search(null, "Author 2", null);
+		assertEquals(4, loads.get());
+	}
+
+}
@@ -19,7 +19,8 @@ CREATE TABLE users (
     username VARCHAR(50) NOT NULL,
     hashed_password VARCHAR(255) NOT NULL,
     role VARCHAR(50) NOT NULL,
-    PRIMARY KEY (user_id)
+    PRIMARY KEY (user_id),
+    UNIQUE KEY users_username (username)
 );
 
 
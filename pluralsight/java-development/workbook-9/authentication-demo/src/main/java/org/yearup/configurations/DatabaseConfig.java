@@ -5,27 +5,58 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class DatabaseConfig
 {
     private BasicDataSource basicDataSource;
+    private BasicDataSource exportDataSource;
 
     @Bean
+    @Primary
     public BasicDataSource dataSource()
     {
         return basicDataSource;
     }
 
+    /**
+     * A small pool of its own for the user export, so its connection properties
+     * (useCursorFetch, for streaming) don't apply to every other query.
+     */
+    @Bean
+    public BasicDataSource exportDataSource()
+    {
+        return exportDataSource;
+    }
+
     @Autowired
     public DatabaseConfig(@Value("${datasource.url}") String url,
                           @Value("${datasource.username}") String username,
-                          @Value("${datasource.password}") String password)
+                          @Value("${datasource.password}") String password,
+                          @Value("${datasource.export.max-total:2}") int exportMaxTotal,
+                          @Value("${datasource.export.max-wait-ms:3000}") long exportMaxWaitMillis,
+                          @Value("${datasource.export.connection-properties:}") String exportConnectionProperties)
     {
         basicDataSource = new BasicDataSource();
         basicDataSource.setUrl(url);
         basicDataSource.setUsername(username);
         basicDataSource.setPassword(password);
+
+        exportDataSource = new BasicDataSource();
+        exportDataSource.setUrl(url);
+        exportDataSource.setUsername(username);
+        exportDataSource.setPassword(password);
+        exportDataSource.setInitialSize(0);
+        exportDataSource.setMinIdle(0);
+        exportDataSource.setMaxTotal(exportMaxTotal);
+        exportDataSource.setMaxIdle(exportMaxTotal);
+        // With every export connection busy, give up rather than hold a request thread indefinitely.
+        exportDataSource.setMaxWaitMillis(exportMaxWaitMillis);
+        if (!exportConnectionProperties.isBlank())
+        {
+            exportDataSource.setConnectionProperties(exportConnectionProperties);
+        }
     }
 
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package org.yearup.controllers;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
@@ -16,35 +18,81 @@ import org.springframework.web.server.ResponseStatusException;
 import org.yearup.data.UserDao;
 import org.yearup.models.authentication.LoginDto;
 import org.yearup.models.authentication.LoginResponseDto;
+import org.yearup.models.authentication.RefreshTokenDto;
 import org.yearup.models.authentication.RegisterUserDto;
 import org.yearup.models.User;
+import org.yearup.security.LoginAttemptLimiter;
+import org.yearup.security.PasswordHashingBusyException;
+import org.yearup.security.SecurityMetrics;
 import org.yearup.security.jwt.JWTFilter;
+import org.yearup.security.jwt.RefreshTokenStore;
 import org.yearup.security.jwt.TokenProvider;
 
+import java.util.Locale;
+
 @RestController
 @CrossOrigin
 @PreAuthorize("permitAll()")
 public class AuthenticationController {
 
     private final TokenProvider tokenProvider;
+    private final RefreshTokenStore refreshTokenStore;
+    private final LoginAttemptLimiter loginAttemptLimiter;
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
+    private final SecurityMetrics securityMetrics;
     private UserDao userDao;
 
-    public AuthenticationController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder, UserDao userDao) {
+    public AuthenticationController(TokenProvider tokenProvider, RefreshTokenStore refreshTokenStore, LoginAttemptLimiter loginAttemptLimiter, AuthenticationManagerBuilder authenticationManagerBuilder, SecurityMetrics securityMetrics, UserDao userDao) {
         this.tokenProvider = tokenProvider;
+        this.refreshTokenStore = refreshTokenStore;
+        this.loginAttemptLimiter = loginAttemptLimiter;
         this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.securityMetrics = securityMetrics;
         this.userDao = userDao;
     }
 
     @RequestMapping(value = "/login", method = RequestMethod.POST)
-    public ResponseEntity<LoginResponseDto> login(@Valid @RequestBody LoginDto loginDto) {
+    public ResponseEntity<LoginResponseDto> login(@Valid @RequestBody LoginDto loginDto, HttpServletRequest request) {
+
+        // Throttle before the user lookup and BCrypt check, which are what an attacker is trying to make us pay for.
+        long retryAfterMillis = loginAttemptLimiter.tryAcquire(loginDto.getUsername(), request.getRemoteAddr());
+        if (retryAfterMillis > 0)
+        {
+            securityMetrics.count(SecurityMetrics.Outcome.LOGIN_THROTTLED);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000))
+                    .build();
+        }
 
         UsernamePasswordAuthenticationToken authenticationToken =
                 new UsernamePasswordAuthenticationToken(loginDto.getUsername(), loginDto.getPassword());
 
-        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
+        long start = System.nanoTime();
+        Authentication authentication;
+        try
+        {
+            authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
+        }
+        catch (BadCredentialsException e)
+        {
+            // Unknown users get the same exception (and a dummy hash check, against timing attacks);
+            // UserModelDetailsService has already counted those.
+            if (loginDto.getUsername() != null && userDao.getByUserName(loginDto.getUsername().toLowerCase(Locale.ROOT)) != null)
+            {
+                securityMetrics.count(SecurityMetrics.Outcome.BAD_PASSWORD);
+            }
+            throw e;
+        }
+        finally
+        {
+            securityMetrics.record(SecurityMetrics.Stage.LOGIN, start);
+        }
+        securityMetrics.count(SecurityMetrics.Outcome.LOGIN_SUCCEEDED);
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = tokenProvider.createToken(authentication, false);
+        loginAttemptLimiter.succeeded(loginDto.getUsername());
+        String jwt = tokenProvider.createToken(authentication, loginDto.isRememberMe());
+        String refreshToken = refreshTokenStore.issue(authentication.getName(),
+                TokenProvider.joinAuthorities(authentication), loginDto.isRememberMe());
 
         try
         {
@@ -54,7 +102,7 @@ public class AuthenticationController {
 
             HttpHeaders httpHeaders = new HttpHeaders();
             httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
-            return new ResponseEntity<>(new LoginResponseDto(jwt, user), httpHeaders, HttpStatus.OK);
+            return new ResponseEntity<>(new LoginResponseDto(jwt, refreshToken, user), httpHeaders, HttpStatus.OK);
         }
         catch(Exception ex)
         {
@@ -62,27 +110,69 @@ public class AuthenticationController {
         }
     }
 
+    /**
+     * Trades a refresh token for a new access token and a new refresh token, without
+     * checking the password or reading the user from the database.
+     */
+    @RequestMapping(value = "/refresh", method = RequestMethod.POST)
+    public ResponseEntity<LoginResponseDto> refresh(@Valid @RequestBody RefreshTokenDto refreshTokenDto) {
+
+        RefreshTokenStore.Rotation rotation = refreshTokenStore.rotate(refreshTokenDto.getRefreshToken());
+        if (rotation == null)
+        {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token is invalid or expired.");
+        }
+
+        String jwt = tokenProvider.createToken(rotation.username(), rotation.authorities());
+
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
+        return new ResponseEntity<>(new LoginResponseDto(jwt, rotation.refreshToken(), null), httpHeaders, HttpStatus.OK);
+    }
+
+    /**
+     * Signs out: revokes the access token this request was made with and, if one is
+     * given, the refresh token's whole family.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @RequestMapping(value = "/revoke", method = RequestMethod.POST)
+    public void revoke(Authentication authentication, @Valid @RequestBody(required = false) RefreshTokenDto refreshTokenDto) {
+
+        if (!tokenProvider.revoke((String) authentication.getCredentials()))
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "This token can't be revoked.");
+        }
+        if (refreshTokenDto != null)
+        {
+            refreshTokenStore.revoke(refreshTokenDto.getRefreshToken());
+        }
+    }
+
     @ResponseStatus(HttpStatus.CREATED)
     @RequestMapping(value = "/register", method = RequestMethod.POST)
     public ResponseEntity<User> register(@Valid @RequestBody RegisterUserDto newUser) {
 
+        User user;
         try
         {
-            boolean exists = userDao.exists(newUser.getUsername());
-            if (exists)
-            {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User Already Exists.");
-            }
-
-            // create user
-            User user = userDao.create(new User(0, newUser.getUsername(), newUser.getPassword(), newUser.getRole()));
-
-            return new ResponseEntity<>(user, HttpStatus.CREATED);
+            // create user; the insert itself checks for an existing username
+            user = userDao.create(new User(0, newUser.getUsername(), newUser.getPassword(), newUser.getRole()));
+        }
+        catch (PasswordHashingBusyException e)
+        {
+            throw e;
         }
         catch (Exception e)
         {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
         }
+
+        if (user == null)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User Already Exists.");
+        }
+        return new ResponseEntity<>(user, HttpStatus.CREATED);
     }
 
 }
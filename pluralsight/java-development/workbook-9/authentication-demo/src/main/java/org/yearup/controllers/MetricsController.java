@@ -0,0 +1,81 @@
+package org.yearup.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.data.UserCache;
+import org.yearup.security.BoundedPasswordEncoder;
+import org.yearup.security.SecurityMetrics;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency per security stage, authentication outcome counts and the state of the
+ * password hashing pool and user cache, for sizing the auth tier. Only answered
+ * for callers on this machine (e.g. a local scraper), so it needs no token.
+ */
+@RestController
+@RequestMapping("metrics")
+@PreAuthorize("permitAll()")
+public class MetricsController
+{
+    private SecurityMetrics securityMetrics;
+    private BoundedPasswordEncoder passwordEncoder;
+    private UserCache userCache;
+
+    @Autowired
+    public MetricsController(SecurityMetrics securityMetrics, BoundedPasswordEncoder passwordEncoder, UserCache userCache)
+    {
+        this.securityMetrics = securityMetrics;
+        this.passwordEncoder = passwordEncoder;
+        this.userCache = userCache;
+    }
+
+    @GetMapping("security")
+    public Map<String, Object> security(HttpServletRequest request)
+    {
+        if (!isLoopback(request.getRemoteAddr()))
+        {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+
+        Map<String, Object> passwordHashing = new LinkedHashMap<>();
+        passwordHashing.put("strength", passwordEncoder.getStrength());
+        passwordHashing.put("queueDepth", passwordEncoder.getQueueDepth());
+        passwordHashing.put("active", passwordEncoder.getActiveCount());
+        passwordHashing.put("completed", passwordEncoder.getCompletedCount());
+        passwordHashing.put("rejected", passwordEncoder.getRejectedCount());
+
+        Map<String, Object> users = new LinkedHashMap<>();
+        users.put("hits", userCache.getHits());
+        users.put("misses", userCache.getMisses());
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("stages", securityMetrics.stageSnapshots());
+        metrics.put("outcomes", securityMetrics.outcomeCounts());
+        metrics.put("passwordHashing", passwordHashing);
+        metrics.put("userCache", users);
+        return metrics;
+    }
+
+    private static boolean isLoopback(String address)
+    {
+        try
+        {
+            // A literal IP, so this never does a DNS lookup.
+            return address != null && InetAddress.getByName(address).isLoopbackAddress();
+        }
+        catch (UnknownHostException e)
+        {
+            return false;
+        }
+    }
+}
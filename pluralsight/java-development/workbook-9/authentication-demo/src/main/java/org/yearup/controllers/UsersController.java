@@ -0,0 +1,133 @@
+package org.yearup.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.data.UserDao;
+import org.yearup.data.UserProvisioner;
+import org.yearup.models.User;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+@RestController
+@CrossOrigin
+@RequestMapping("users")
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+public class UsersController
+{
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    private UserDao userDao;
+    private UserProvisioner userProvisioner;
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    public UsersController(UserDao userDao, UserProvisioner userProvisioner, ObjectMapper objectMapper)
+    {
+        this.userDao = userDao;
+        this.userProvisioner = userProvisioner;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * One page of users in id order; pass the last id you got as after to get the next page.
+     */
+    @GetMapping("")
+    public List<User> getPage(@RequestParam(defaultValue = "0") int after,
+                              @RequestParam(defaultValue = "100") int limit)
+    {
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return userDao.getPage(after, limit);
+    }
+
+    /**
+     * Every user as newline-delimited JSON, written as rows are read so memory stays
+     * flat however many users there are. If the download breaks off, pass the last
+     * id received as after to resume.
+     */
+    @GetMapping("export")
+    public void export(@RequestParam(defaultValue = "0") int after, HttpServletResponse response) throws IOException
+    {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null); // One object per line, with the newline written below.
+        try
+        {
+            userDao.exportUsers(after, user -> writeLine(generator, user));
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause(); // The client went away; the export has already stopped reading.
+        }
+        generator.flush();
+    }
+
+    /**
+     * Creates users from a text/csv (header row: username,password,role) or
+     * application/x-ndjson upload. One result per row is streamed back as NDJSON
+     * while the upload is still being read. Rows rejected on sight come back
+     * before their batch does, so match results up by line rather than by order.
+     */
+    @PostMapping(path = "bulk", consumes = {"text/csv", "application/x-ndjson"})
+    public void provision(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        try
+        {
+            if (request.getContentType() != null && MediaType.parseMediaType(request.getContentType()).isCompatibleWith(TEXT_CSV))
+            {
+                userProvisioner.provisionCsv(reader, result -> writeLine(generator, result));
+            }
+            else
+            {
+                userProvisioner.provisionNdjson(reader, result -> writeLine(generator, result));
+            }
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+        generator.flush();
+    }
+
+    private static void writeLine(JsonGenerator generator, Object value)
+    {
+        try
+        {
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
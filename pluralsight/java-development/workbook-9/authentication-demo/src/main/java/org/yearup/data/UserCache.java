@@ -0,0 +1,145 @@
+package org.yearup.data;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.yearup.models.User;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Users by username, so a login's lookup in UserModelDetailsService and the one
+ * in AuthenticationController cost a single query between them, and repeat logins
+ * none until the entry's TTL runs out.
+ * <p>
+ * Usernames that don't exist are cached too (negative caching), so guessing at
+ * accounts doesn't reach the database. Writes must go through invalidate or put;
+ * a lookup that raced a write is returned but not stored, so a stale "not found"
+ * can't outlive the registration that replaced it.
+ * <p>
+ * Keys are lowercased to match MySQL's case-insensitive username comparison, and
+ * callers always get their own copy of the User.
+ */
+@Component
+public class UserCache
+{
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong writeVersion = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public UserCache(@Value("${users.cache.ttl-seconds:60}") long ttlSeconds,
+                     @Value("${users.cache.max-entries:10000}") int maxEntries)
+    {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The cached user, or the loader's result if there is no live entry. A null
+     * from the loader means the user doesn't exist and is cached as such; an
+     * exception isn't cached at all.
+     */
+    public User get(String username, Loader loader) throws SQLException
+    {
+        String key = username.toLowerCase(Locale.ROOT);
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.expiresAtNanos() < 0)
+        {
+            hits.incrementAndGet();
+            return copy(entry.user());
+        }
+        misses.incrementAndGet();
+
+        long version = writeVersion.get();
+        User user = loader.load(username);
+        if (writeVersion.get() == version)
+        {
+            store(key, user);
+        }
+        return copy(user);
+    }
+
+    /**
+     * Records a user that was just written, replacing any negative entry.
+     */
+    public void put(User user)
+    {
+        writeVersion.incrementAndGet();
+        store(user.getUsername().toLowerCase(Locale.ROOT), copy(user));
+    }
+
+    public void invalidate(String username)
+    {
+        writeVersion.incrementAndGet();
+        entries.remove(username.toLowerCase(Locale.ROOT));
+    }
+
+    public void clear()
+    {
+        writeVersion.incrementAndGet();
+        entries.clear();
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    private void store(String key, User user)
+    {
+        if (maxEntries <= 0 || ttlNanos <= 0)
+        {
+            return;
+        }
+        if (entries.size() >= maxEntries)
+        {
+            evict();
+        }
+        entries.put(key, new Entry(user, System.nanoTime() + ttlNanos));
+    }
+
+    private void evict()
+    {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.expiresAtNanos() >= 0);
+
+        // Still full of live users: make room for a tenth more rather than evicting on every put.
+        Iterator<String> keys = entries.keySet().iterator();
+        int excess = entries.size() - maxEntries + maxEntries / 10 + 1;
+        while (excess-- > 0 && keys.hasNext())
+        {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static User copy(User user)
+    {
+        return user == null ? null : new User(user.getId(), user.getUsername(), user.getPassword(), user.getRole());
+    }
+
+    public interface Loader
+    {
+        User load(String username) throws SQLException;
+    }
+
+    // user is null for a username that doesn't exist.
+    private record Entry(User user, long expiresAtNanos)
+    {
+    }
+}
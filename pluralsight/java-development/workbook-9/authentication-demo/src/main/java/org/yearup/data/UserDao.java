@@ -2,12 +2,19 @@ package org.yearup.data;
 
 import org.yearup.models.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserDao {
 
     List<User> getAll();
 
+    List<User> getPage(int afterUserId, int limit);
+
+    void exportUsers(int afterUserId, Consumer<User> consumer);
+
     User getUserById(int userId);
 
     User getByUserName(String username);
@@ -16,5 +23,11 @@ public interface UserDao {
 
     User create(User user);
 
+    Set<String> getExistingUsernames(Collection<String> usernames);
+
+    List<User> createBatch(List<User> hashedUsers);
+
+    void updatePassword(String username, String hashedPassword);
+
     boolean exists(String username);
 }
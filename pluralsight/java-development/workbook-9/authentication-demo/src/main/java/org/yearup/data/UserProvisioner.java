@@ -0,0 +1,348 @@
+package org.yearup.data;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.yearup.models.ProvisionResult;
+import org.yearup.models.User;
+import org.yearup.security.BoundedPasswordEncoder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Creates users from a CSV (username,password,role with a header row) or NDJSON
+ * upload, batch-size rows at a time: validate, drop names seen earlier in the
+ * upload, find the names already taken in one query, hash the rest in parallel,
+ * insert them as one JDBC batch, and report every row before reading the next batch.
+ * Memory is bounded by the batch size plus the set of names seen so far.
+ * <p>
+ * CSV is read as RFC 4180: a field in double quotes may hold commas, line breaks
+ * and doubled quotes, so any password can be uploaded. A row's line number is the
+ * line it starts on.
+ */
+@Component
+public class UserProvisioner
+{
+    private static final int MAX_USERNAME_LENGTH = 50;
+    private static final int MAX_ROLE_LENGTH = 50;
+    // A quoted field is never closed past this, so an unbalanced quote can't pull the rest of the upload into one record.
+    private static final int MAX_RECORD_LENGTH = 8192;
+
+    private final UserDao userDao;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    @Autowired
+    public UserProvisioner(UserDao userDao, BoundedPasswordEncoder passwordEncoder, ObjectMapper objectMapper,
+                           @Value("${users.bulk.batch-size:500}") int batchSize)
+    {
+        this.userDao = userDao;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    public void provisionCsv(BufferedReader reader, Consumer<ProvisionResult> results) throws IOException
+    {
+        String header = readCsvRecord(reader);
+        if (header == null)
+        {
+            return;
+        }
+        List<String> columns = parseCsv(header);
+        if (columns == null)
+        {
+            results.accept(ProvisionResult.invalid(1, null, "Header must name username, password and role columns."));
+            return;
+        }
+        columns.replaceAll(column -> column.trim().toLowerCase(Locale.ROOT));
+        int usernameColumn = columns.indexOf("username");
+        int passwordColumn = columns.indexOf("password");
+        int roleColumn = columns.indexOf("role");
+        if (usernameColumn < 0 || passwordColumn < 0 || roleColumn < 0)
+        {
+            results.accept(ProvisionResult.invalid(1, null, "Header must name username, password and role columns."));
+            return;
+        }
+
+        int firstLine = 2 + lineBreaks(header);
+        provision(UserProvisioner::readCsvRecord, reader, firstLine, (lineNumber, record) -> {
+            List<String> fields = parseCsv(record);
+            if (fields == null)
+            {
+                return new Row(lineNumber, null, null, null, "Malformed quoting.");
+            }
+            if (fields.size() != columns.size())
+            {
+                return new Row(lineNumber, null, null, null, "Expected " + columns.size() + " fields.");
+            }
+            return new Row(lineNumber, fields.get(usernameColumn).trim(), fields.get(passwordColumn), fields.get(roleColumn).trim(), null);
+        }, results);
+    }
+
+    public void provisionNdjson(BufferedReader reader, Consumer<ProvisionResult> results) throws IOException
+    {
+        provision(BufferedReader::readLine, reader, 1, (lineNumber, line) -> {
+            try
+            {
+                JsonNode node = objectMapper.readTree(line);
+                return new Row(lineNumber, node.path("username").asText(null), node.path("password").asText(null),
+                        node.path("role").asText(null), null);
+            }
+            catch (IOException e)
+            {
+                return new Row(lineNumber, null, null, null, "Not a JSON object.");
+            }
+        }, results);
+    }
+
+    private void provision(RecordReader records, BufferedReader reader, int firstLine, RowParser parser,
+                           Consumer<ProvisionResult> results) throws IOException
+    {
+        Set<String> seen = new HashSet<>();
+        List<Row> batch = new ArrayList<>(batchSize);
+        int nextLine = firstLine;
+        String record;
+        while ((record = records.read(reader)) != null)
+        {
+            int lineNumber = nextLine;
+            nextLine += 1 + lineBreaks(record);
+            if (record.isBlank())
+            {
+                continue;
+            }
+
+            Row row = parser.parse(lineNumber, record);
+            String problem = row.problem() != null ? row.problem() : validate(row);
+            if (problem != null)
+            {
+                results.accept(ProvisionResult.invalid(row.line(), row.username(), problem));
+            }
+            else if (!seen.add(row.username().toLowerCase(Locale.ROOT)))
+            {
+                results.accept(ProvisionResult.duplicate(row.line(), row.username()));
+            }
+            else
+            {
+                batch.add(row);
+                if (batch.size() == batchSize)
+                {
+                    insert(batch, results);
+                    batch.clear();
+                }
+            }
+        }
+        insert(batch, results);
+    }
+
+    private void insert(List<Row> batch, Consumer<ProvisionResult> results)
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+
+        List<String> usernames = new ArrayList<>(batch.size());
+        for (Row row : batch)
+        {
+            usernames.add(row.username());
+        }
+        Set<String> existing = userDao.getExistingUsernames(usernames);
+
+        List<Row> fresh = new ArrayList<>(batch.size());
+        List<String> passwords = new ArrayList<>(batch.size());
+        for (Row row : batch)
+        {
+            if (existing.contains(row.username().toLowerCase(Locale.ROOT)))
+            {
+                results.accept(ProvisionResult.duplicate(row.line(), row.username()));
+            }
+            else
+            {
+                fresh.add(row);
+                passwords.add(row.password());
+            }
+        }
+        if (fresh.isEmpty())
+        {
+            return;
+        }
+
+        List<String> hashes = passwordEncoder.encodeAll(passwords);
+        List<User> users = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++)
+        {
+            Row row = fresh.get(i);
+            users.add(new User(0, row.username(), hashes.get(i), row.role()));
+        }
+
+        List<User> created = userDao.createBatch(users);
+        for (int i = 0; i < fresh.size(); i++)
+        {
+            Row row = fresh.get(i);
+            User user = created.get(i);
+            results.accept(user == null ? ProvisionResult.duplicate(row.line(), row.username()) : ProvisionResult.created(row.line(), user));
+        }
+    }
+
+    // The same rules /register's RegisterUserDto enforces, plus the column widths.
+    private static String validate(Row row)
+    {
+        if (row.username() == null || row.username().isBlank())
+        {
+            return "username is required.";
+        }
+        if (row.username().length() > MAX_USERNAME_LENGTH)
+        {
+            return "username is longer than " + MAX_USERNAME_LENGTH + " characters.";
+        }
+        if (row.password() == null || row.password().isEmpty())
+        {
+            return "password is required.";
+        }
+        if (row.role() == null || row.role().isBlank())
+        {
+            return "Please select a role for this user.";
+        }
+        if (row.role().length() > MAX_ROLE_LENGTH)
+        {
+            return "role is longer than " + MAX_ROLE_LENGTH + " characters.";
+        }
+        return null;
+    }
+
+    /**
+     * The next CSV record, which runs on over following lines while a quoted field
+     * is open; null at the end of the input.
+     */
+    static String readCsvRecord(BufferedReader reader) throws IOException
+    {
+        String line = reader.readLine();
+        if (line == null || quotes(line) % 2 == 0)
+        {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        boolean open = true;
+        while (open && record.length() < MAX_RECORD_LENGTH && (line = reader.readLine()) != null)
+        {
+            record.append('\n').append(line);
+            open ^= quotes(line) % 2 == 1;
+        }
+        return record.toString();
+    }
+
+    /**
+     * The fields of one RFC 4180 record, or null if its quoting is malformed: an
+     * unclosed quote, or anything but a comma after a closing one.
+     */
+    static List<String> parseCsv(String record)
+    {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true)
+        {
+            field.setLength(0);
+            if (i < record.length() && record.charAt(i) == '"')
+            {
+                i++;
+                while (true)
+                {
+                    if (i >= record.length())
+                    {
+                        return null;
+                    }
+                    char c = record.charAt(i++);
+                    if (c != '"')
+                    {
+                        field.append(c);
+                    }
+                    else if (i < record.length() && record.charAt(i) == '"')
+                    {
+                        field.append('"');
+                        i++;
+                    }
+                    else
+                    {
+                        break;
+                    }
+                }
+                if (i < record.length() && record.charAt(i) != ',')
+                {
+                    return null;
+                }
+            }
+            else
+            {
+                int end = record.indexOf(',', i);
+                if (end < 0)
+                {
+                    end = record.length();
+                }
+                if (record.indexOf('"', i) >= 0 && record.indexOf('"', i) < end)
+                {
+                    return null; // Quotes are only allowed around a whole field.
+                }
+                field.append(record, i, end);
+                i = end;
+            }
+            fields.add(field.toString());
+            if (i >= record.length())
+            {
+                return fields;
+            }
+            i++; // Past the comma.
+        }
+    }
+
+    private static int quotes(String text)
+    {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (text.charAt(i) == '"')
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int lineBreaks(String record)
+    {
+        int count = 0;
+        for (int i = 0; i < record.length(); i++)
+        {
+            if (record.charAt(i) == '\n')
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private record Row(int line, String username, String password, String role, String problem)
+    {
+    }
+
+    private interface RecordReader
+    {
+        String read(BufferedReader reader) throws IOException;
+    }
+
+    private interface RowParser
+    {
+        Row parse(int lineNumber, String record);
+    }
+}
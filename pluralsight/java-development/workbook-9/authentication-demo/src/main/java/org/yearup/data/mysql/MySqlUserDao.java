@@ -1,51 +1,239 @@
 package org.yearup.data.mysql;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.yearup.data.UserCache;
 import org.yearup.data.UserDao;
 import org.yearup.models.User;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Component
 public class MySqlUserDao extends MySqlDaoBase implements UserDao
 {
+    // The unique key on username is the duplicate check. A NOT EXISTS subquery would take gap locks under
+    // REPEATABLE READ, and concurrent registrations of new names would deadlock on them.
+    private static final String INSERT_SQL = "INSERT INTO users (username, hashed_password, role) VALUES (?, ?, ?)";
+
+    private final DataSource exportDataSource;
+    private final UserCache userCache;
+    private final PasswordEncoder passwordEncoder;
+    private final int exportFetchSize;
+
     @Autowired
-    public MySqlUserDao(DataSource dataSource)
+    public MySqlUserDao(DataSource dataSource, @Qualifier("exportDataSource") DataSource exportDataSource,
+                        UserCache userCache, PasswordEncoder passwordEncoder,
+                        @Value("${users.export.fetch-size:1000}") int exportFetchSize)
     {
         super(dataSource);
+        this.exportDataSource = exportDataSource;
+        this.userCache = userCache;
+        this.passwordEncoder = passwordEncoder;
+        this.exportFetchSize = exportFetchSize;
     }
 
 
+    /**
+     * Inserts the user in one round trip and returns it with its generated id, or
+     * returns null if the username is already taken.
+     */
     @Override
     public User create(User newUser)
     {
-        String sql = "INSERT INTO users (username, hashed_password, role) VALUES (?, ?, ?)";
-        String hashedPassword = new BCryptPasswordEncoder().encode(newUser.getPassword());
+        String hashedPassword = passwordEncoder.encode(newUser.getPassword());
 
-        try (Connection connection = getConnection())
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS))
         {
-            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, newUser.getUsername());
-            ps.setString(2, hashedPassword);
-            ps.setString(3, newUser.getRole());
+            int id = insertIfAbsent(ps, newUser.getUsername(), hashedPassword, newUser.getRole());
+            if (id == 0)
+            {
+                return null;
+            }
 
-            ps.executeUpdate();
+            User user = new User(id, newUser.getUsername(), hashedPassword, newUser.getRole());
+            userCache.put(user);
 
-            User user = getByUserName(newUser.getUsername());
             user.setPassword("");
-
             return user;
+        }
+        catch (SQLIntegrityConstraintViolationException e)
+        {
+            userCache.invalidate(newUser.getUsername());
+            return null;
+        }
+        catch (SQLException e)
+        {
+            userCache.invalidate(newUser.getUsername());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Which of the usernames are already taken, lowercased, in one query.
+     */
+    @Override
+    public Set<String> getExistingUsernames(Collection<String> usernames)
+    {
+        Set<String> existing = new HashSet<>();
+        if (usernames.isEmpty())
+        {
+            return existing;
+        }
+
+        String sql = "SELECT username FROM users " +
+                " WHERE username IN (" + String.join(", ", Collections.nCopies(usernames.size(), "?")) + ")";
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            int index = 1;
+            for (String username : usernames)
+            {
+                statement.setString(index++, username);
+            }
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                while (row.next())
+                {
+                    existing.add(row.getString("username").toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        return existing;
+    }
+
+    /**
+     * Inserts users whose passwords are already hashed as one JDBC batch in one
+     * transaction, and returns them with their ids, in the same order. If another
+     * request took one of the names first, the batch is rolled back and the rows are
+     * inserted one at a time instead, with null in the result for each name taken.
+     */
+    @Override
+    public List<User> createBatch(List<User> hashedUsers)
+    {
+        List<User> created = new ArrayList<>(hashedUsers.size());
+        try (Connection connection = getConnection())
+        {
+            connection.setAutoCommit(false);
+            try
+            {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS))
+                {
+                    for (User user : hashedUsers)
+                    {
+                        statement.setString(1, user.getUsername());
+                        statement.setString(2, user.getPassword());
+                        statement.setString(3, user.getRole());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    try (ResultSet keys = statement.getGeneratedKeys())
+                    {
+                        for (User user : hashedUsers)
+                        {
+                            keys.next();
+                            created.add(new User(keys.getInt(1), user.getUsername(), user.getPassword(), user.getRole()));
+                        }
+                    }
+                }
+                connection.commit();
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                if (!violatesConstraint(e))
+                {
+                    throw e; // Not a username taken since the caller checked, so row by row would fail the same way.
+                }
+                created.clear();
+                connection.setAutoCommit(true);
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS))
+                {
+                    for (User user : hashedUsers)
+                    {
+                        int id = insertIfAbsent(statement, user.getUsername(), user.getPassword(), user.getRole());
+                        created.add(id == 0 ? null : new User(id, user.getUsername(), user.getPassword(), user.getRole()));
+                    }
+                }
+            }
+            finally
+            {
+                connection.setAutoCommit(true);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        for (User user : created)
+        {
+            if (user != null)
+            {
+                userCache.put(user);
+            }
+        }
+        return created;
+    }
+
+    // A batch reports its failure as a BatchUpdateException, with the row's own exception as its cause or next exception.
+    private static boolean violatesConstraint(SQLException e)
+    {
+        for (Throwable cause = e; cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof SQLIntegrityConstraintViolationException)
+            {
+                return true;
+            }
+            if (cause instanceof SQLException && ((SQLException) cause).getNextException() != null
+                    && violatesConstraint(((SQLException) cause).getNextException()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void updatePassword(String username, String hashedPassword)
+    {
+        String sql = "UPDATE users SET hashed_password = ? WHERE username = ?";
 
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            statement.setString(1, hashedPassword);
+            statement.setString(2, username);
+
+            statement.executeUpdate();
         }
         catch (SQLException e)
         {
             throw new RuntimeException(e);
         }
+        finally
+        {
+            userCache.invalidate(username);
+        }
     }
 
     @Override
@@ -54,12 +242,10 @@ public class MySqlUserDao extends MySqlDaoBase implements UserDao
         List<User> users = new ArrayList<>();
 
         String sql = "SELECT * FROM users";
-        try (Connection connection = getConnection())
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet row = statement.executeQuery())
         {
-            PreparedStatement statement = connection.prepareStatement(sql);
-
-            ResultSet row = statement.executeQuery();
-
             while (row.next())
             {
                 User user = mapRow(row);
@@ -74,21 +260,90 @@ public class MySqlUserDao extends MySqlDaoBase implements UserDao
         return users;
     }
 
+    /**
+     * Up to limit users with an id above afterUserId, in id order. Pass the last id
+     * of one page to get the next; each page is an index range scan however deep it is.
+     */
+    @Override
+    public List<User> getPage(int afterUserId, int limit)
+    {
+        List<User> users = new ArrayList<>();
+
+        String sql = "SELECT * FROM users " +
+                " WHERE user_id > ? " +
+                " ORDER BY user_id " +
+                " LIMIT ?";
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            statement.setInt(1, afterUserId);
+            statement.setInt(2, limit);
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                while (row.next())
+                {
+                    users.add(mapRow(row));
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        return users;
+    }
+
+    /**
+     * Hands every user with an id above afterUserId to the consumer, in id order,
+     * without holding more than one fetch of rows in memory.
+     */
+    @Override
+    public void exportUsers(int afterUserId, Consumer<User> consumer)
+    {
+        String sql = "SELECT * FROM users " +
+                " WHERE user_id > ? " +
+                " ORDER BY user_id";
+        try (Connection connection = exportDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+        {
+            // Rows arrive in chunks instead of all at once (MySQL needs useCursorFetch=true, set on the export pool only).
+            statement.setFetchSize(exportFetchSize);
+            statement.setInt(1, afterUserId);
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                while (row.next())
+                {
+                    consumer.accept(mapRow(row));
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            // A failed export must not look like a complete (shorter) one.
+            throw new IllegalStateException("Export failed", e);
+        }
+    }
+
     @Override
     public User getUserById(int id)
     {
         String sql = "SELECT * FROM users WHERE user_id = ?";
-        try (Connection connection = getConnection())
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql))
         {
-            PreparedStatement statement = connection.prepareStatement(sql);
             statement.setInt(1, id);
 
-            ResultSet row = statement.executeQuery();
-
-            if(row.next())
+            try (ResultSet row = statement.executeQuery())
             {
-                User user = mapRow(row);
-                return user;
+                if(row.next())
+                {
+                    User user = mapRow(row);
+                    return user;
+                }
             }
         }
         catch (SQLException e)
@@ -100,28 +355,38 @@ public class MySqlUserDao extends MySqlDaoBase implements UserDao
 
     @Override
     public User getByUserName(String username)
+    {
+        try
+        {
+            return userCache.get(username, this::selectByUserName);
+        }
+        catch (SQLException e)
+        {
+            System.out.println(e);
+        }
+
+        return null;
+    }
+
+    private User selectByUserName(String username) throws SQLException
     {
         String sql = "SELECT * " +
                 " FROM users " +
                 " WHERE username = ?";
 
-        try (Connection connection = getConnection())
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql))
         {
-            PreparedStatement statement = connection.prepareStatement(sql);
             statement.setString(1, username);
 
-            ResultSet row = statement.executeQuery();
-            if(row.next())
+            try (ResultSet row = statement.executeQuery())
             {
-
-                User user = mapRow(row);
-                return user;
+                if(row.next())
+                {
+                    return mapRow(row);
+                }
             }
         }
-        catch (SQLException e)
-        {
-            System.out.println(e);
-        }
 
         return null;
     }
@@ -146,6 +411,29 @@ public class MySqlUserDao extends MySqlDaoBase implements UserDao
         return user != null;
     }
 
+    // The new user's id, or 0 if the username was already taken.
+    private int insertIfAbsent(PreparedStatement statement, String username, String hashedPassword, String role) throws SQLException
+    {
+        statement.setString(1, username);
+        statement.setString(2, hashedPassword);
+        statement.setString(3, role);
+
+        try
+        {
+            statement.executeUpdate();
+        }
+        catch (SQLIntegrityConstraintViolationException e)
+        {
+            return 0;
+        }
+
+        try (ResultSet keys = statement.getGeneratedKeys())
+        {
+            keys.next();
+            return keys.getInt(1);
+        }
+    }
+
     private User mapRow(ResultSet row) throws SQLException
     {
         int userId = row.getInt("user_id");
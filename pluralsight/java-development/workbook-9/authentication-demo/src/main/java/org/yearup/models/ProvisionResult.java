@@ -0,0 +1,30 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * What happened to one row of a bulk provisioning upload. line is the row's line
+ * number in the upload; id is set only when status is "created".
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProvisionResult(int line, String username, String status, Integer id, String message)
+{
+    public static final String CREATED = "created";
+    public static final String DUPLICATE = "duplicate";
+    public static final String INVALID = "invalid";
+
+    public static ProvisionResult created(int line, User user)
+    {
+        return new ProvisionResult(line, user.getUsername(), CREATED, user.getId(), null);
+    }
+
+    public static ProvisionResult duplicate(int line, String username)
+    {
+        return new ProvisionResult(line, username, DUPLICATE, null, "User Already Exists.");
+    }
+
+    public static ProvisionResult invalid(int line, String username, String message)
+    {
+        return new ProvisionResult(line, username, INVALID, null, message);
+    }
+}
@@ -9,6 +9,7 @@ public class LoginDto {
 
    private String username;
    private String password;
+   private boolean rememberMe;
 
    public String getUsername() {
       return username;
@@ -26,6 +27,14 @@ public class LoginDto {
       this.password = password;
    }
 
+   public boolean isRememberMe() {
+      return rememberMe;
+   }
+
+   public void setRememberMe(boolean rememberMe) {
+      this.rememberMe = rememberMe;
+   }
+
    @Override
    public String toString() {
       return "LoginDTO{" +
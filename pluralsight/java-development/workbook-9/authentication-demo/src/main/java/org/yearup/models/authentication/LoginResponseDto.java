@@ -1,5 +1,6 @@
 package org.yearup.models.authentication;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.yearup.models.User;
 
@@ -9,9 +10,11 @@ import org.yearup.models.User;
     pass to the server for a login endpoint, and TokenDto represents the object that's returned from the server
     to the client from a login endpoint.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class LoginResponseDto {
 
     private String token;
+    private String refreshToken;
     private User user;
 
     public LoginResponseDto(String token, User user) {
@@ -19,6 +22,12 @@ public class LoginResponseDto {
         this.user = user;
     }
 
+    public LoginResponseDto(String token, String refreshToken, User user) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.user = user;
+    }
+
     @JsonProperty("token")
     String getToken() {
         return token;
@@ -28,6 +37,15 @@ public class LoginResponseDto {
         this.token = token;
     }
 
+    @JsonProperty("refreshToken")
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
     @JsonProperty("user")
     public User getUser() {
         return user;
@@ -0,0 +1,20 @@
+package org.yearup.models.authentication;
+
+import javax.validation.constraints.NotEmpty;
+
+/*
+    The refresh token a client got from /login or a previous /refresh, traded in for a new access token.
+ */
+public class RefreshTokenDto {
+
+   @NotEmpty
+   private String refreshToken;
+
+   public String getRefreshToken() {
+      return refreshToken;
+   }
+
+   public void setRefreshToken(String refreshToken) {
+      this.refreshToken = refreshToken;
+   }
+}
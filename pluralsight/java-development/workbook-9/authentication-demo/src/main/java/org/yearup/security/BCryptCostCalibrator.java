@@ -0,0 +1,51 @@
+package org.yearup.security;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks the BCrypt cost factor whose hash time comes closest to a target without
+ * going over it on this machine.
+ * <p>
+ * Each step of the cost doubles the work, so only the cheapest cost is timed and
+ * the rest are extrapolated; calibrating doesn't spend seconds hashing at the
+ * expensive end of the range.
+ */
+final class BCryptCostCalibrator {
+
+    private static final int PROBE_COST = 6;
+    private static final int PROBES = 5;
+
+    private BCryptCostCalibrator() {
+    }
+
+    /**
+     * @return the highest cost in [minCost, maxCost] expected to hash within targetMillis, or minCost if none is.
+     */
+    static int calibrate(long targetMillis, int minCost, int maxCost) {
+        double probeNanos = timeHash(PROBE_COST);
+
+        int cost = minCost;
+        for (int candidate = minCost + 1; candidate <= maxCost; candidate++) {
+            double expectedNanos = probeNanos * Math.pow(2, candidate - PROBE_COST);
+            if (expectedNanos > targetMillis * 1_000_000.0) {
+                break;
+            }
+            cost = candidate;
+        }
+        return cost;
+    }
+
+    // The fastest of several runs, after a warm-up run, to keep JIT and scheduler noise out.
+    private static double timeHash(int cost) {
+        String salt = BCrypt.gensalt(cost);
+        BCrypt.hashpw("calibration", salt);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < PROBES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,223 @@
+package org.yearup.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BCrypt hashing and verification on a small dedicated pool, so a burst of logins
+ * or signups uses at most password.hashing.threads cores instead of every Tomcat
+ * thread. Once the queue is full, requests fail straight away with
+ * PasswordHashingBusyException (503) rather than piling up.
+ * <p>
+ * The cost factor is password.bcrypt.strength, or, when that is 0, calibrated at
+ * startup to take about password.bcrypt.target-millis per hash. Hashes stored at a
+ * lower cost are upgraded on the user's next successful login (see
+ * UserModelDetailsService.updatePassword), unless the pool is busy at the time.
+ */
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final int poolSize;
+    private final long timeoutMillis;
+    private final AtomicLong rejected = new AtomicLong();
+    private final SecurityMetrics securityMetrics;
+
+    @Autowired
+    public BoundedPasswordEncoder(@Value("${password.bcrypt.strength:0}") int strength,
+                                  @Value("${password.bcrypt.target-millis:250}") long targetMillis,
+                                  @Value("${password.bcrypt.min-strength:10}") int minStrength,
+                                  @Value("${password.bcrypt.max-strength:16}") int maxStrength,
+                                  @Value("${password.hashing.threads:0}") int threads,
+                                  @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${password.hashing.timeout-millis:5000}") long timeoutMillis,
+                                  SecurityMetrics securityMetrics) {
+        this.securityMetrics = securityMetrics;
+        if (strength <= 0) {
+            strength = BCryptCostCalibrator.calibrate(targetMillis, minStrength, maxStrength);
+            LOG.info("Calibrated BCrypt strength {} for a {} ms target", strength, targetMillis);
+        }
+        this.strength = strength;
+        this.bcrypt = new BCryptPasswordEncoder(strength);
+        this.timeoutMillis = timeoutMillis;
+
+        this.poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hashes many passwords in parallel on the same pool, in the same order. At
+     * most one hash per pool thread is queued at a time, so logins arriving during a
+     * bulk import wait behind at most one hash each rather than the whole list.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        Semaphore inFlight = new Semaphore(poolSize);
+        List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                if (!inFlight.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new PasswordHashingBusyException("Password hashing timed out");
+                }
+                futures.add(submitWhenQueued(() -> {
+                    try {
+                        return bcrypt.encode(rawPassword);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            List<String> hashes = new ArrayList<>(futures.size());
+            for (Future<String> future : futures) {
+                hashes.add(await(future));
+            }
+            return hashes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted waiting for password hashing");
+        } finally {
+            for (Future<String> future : futures) {
+                future.cancel(true); // No-op for finished hashes; stops the rest if one failed.
+            }
+        }
+    }
+
+    /**
+     * True for hashes stored below the current strength. Upgrading costs an extra
+     * hash, so it is put off while other work is queued.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return executor.getQueue().isEmpty() && bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> work) {
+        Future<T> future;
+        try {
+            future = executor.submit(timed(work));
+        } catch (RejectedExecutionException e) {
+            throw busy("Password hashing queue is full");
+        }
+        return await(future);
+    }
+
+    // Splits each hash's latency into time spent queued and time spent hashing.
+    private <T> Callable<T> timed(Callable<T> work) {
+        long queuedAt = System.nanoTime();
+        return () -> {
+            securityMetrics.record(SecurityMetrics.Stage.PASSWORD_QUEUE, queuedAt);
+            long start = System.nanoTime();
+            try {
+                return work.call();
+            } finally {
+                securityMetrics.record(SecurityMetrics.Stage.PASSWORD_HASH, start);
+            }
+        };
+    }
+
+    private PasswordHashingBusyException busy(String message) {
+        rejected.incrementAndGet();
+        securityMetrics.count(SecurityMetrics.Outcome.HASHING_BUSY);
+        return new PasswordHashingBusyException(message);
+    }
+
+    // Bulk work backs off while logins have the queue full, rather than failing the whole import.
+    private <T> Future<T> submitWhenQueued(Callable<T> work) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            try {
+                return executor.submit(timed(work));
+            } catch (RejectedExecutionException e) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw busy("Password hashing queue is full");
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw busy("Password hashing timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.yearup.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durations in microseconds, counted into log-linear buckets: each power of two is
+ * split into 8 sub-buckets, so a percentile is accurate to within 12.5% from 1 us
+ * up to hours. Recording is a few atomic adds with no locks or allocation, cheap
+ * enough to run on every request.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void recordNanos(long nanos)
+    {
+        long micros = Math.max(0, nanos / 1000);
+        buckets.incrementAndGet(bucketOf(micros));
+        count.increment();
+        totalMicros.add(micros);
+        if (micros > maxMicros.get())
+        {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    public Snapshot snapshot()
+    {
+        long[] counts = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long mean = total == 0 ? 0 : totalMicros.sum() / Math.max(1, count.sum());
+        return new Snapshot(total, mean, percentile(counts, total, 0.50), percentile(counts, total, 0.90),
+                percentile(counts, total, 0.99), maxMicros.get());
+    }
+
+    // Values below 8 get a bucket each; above that, the top 3 bits after the leading one pick the sub-bucket.
+    private static int bucketOf(long micros)
+    {
+        if (micros < SUB_BUCKETS)
+        {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // The upper bound of the bucket holding the value at quantile q.
+    private static long percentile(long[] counts, long total, double q)
+    {
+        if (total == 0)
+        {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            seen += counts[i];
+            if (seen >= rank)
+            {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(counts.length - 1);
+    }
+
+    private static long upperBoundOf(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    public record Snapshot(long count, long meanMicros, long p50Micros, long p90Micros, long p99Micros, long maxMicros)
+    {
+    }
+}
@@ -0,0 +1,193 @@
+package org.yearup.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Throttles /login by username and by client address before any database or
+ * BCrypt work is done, so a credential-stuffing run costs the server a map lookup
+ * per attempt instead of a hash.
+ * <p>
+ * Each key counts attempts in a sliding window (the current fixed window plus the
+ * previous one, weighted by how much of it still overlaps). A key over its limit
+ * is blocked, for login.limit.base-block-seconds at first and twice as long for
+ * each further strike, up to login.limit.max-block-seconds. A block starts the
+ * count over, so after it the key gets a full allowance again before the next,
+ * longer one. A successful login clears its username's count and strikes; the
+ * address keeps counting, since it may be shared.
+ * <p>
+ * Counters are updated with compare-and-set, never locks. Each map holds at most
+ * login.limit.max-keys entries: idle keys are evicted first, then ones that are
+ * neither blocked nor carrying strikes. Those are never evicted, so spraying other
+ * names or addresses can't wipe a key's block or back-off. While the map is full of
+ * them, new keys share one overflow window, and the map is swept at most once a
+ * second rather than on every new key.
+ */
+@Component
+public class LoginAttemptLimiter
+{
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private final long windowMillis;
+    private final int usernameLimit;
+    private final int addressLimit;
+    private final long baseBlockMillis;
+    private final long maxBlockMillis;
+    private final int maxKeys;
+    private final Keys usernames = new Keys();
+    private final Keys addresses = new Keys();
+
+    @Autowired
+    public LoginAttemptLimiter(@Value("${login.limit.window-seconds:60}") long windowSeconds,
+                               @Value("${login.limit.per-username:5}") int usernameLimit,
+                               @Value("${login.limit.per-address:30}") int addressLimit,
+                               @Value("${login.limit.base-block-seconds:30}") long baseBlockSeconds,
+                               @Value("${login.limit.max-block-seconds:3600}") long maxBlockSeconds,
+                               @Value("${login.limit.max-keys:100000}") int maxKeys)
+    {
+        this.windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+        this.usernameLimit = usernameLimit;
+        this.addressLimit = addressLimit;
+        this.baseBlockMillis = TimeUnit.SECONDS.toMillis(baseBlockSeconds);
+        this.maxBlockMillis = TimeUnit.SECONDS.toMillis(maxBlockSeconds);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Counts a login attempt against both keys.
+     *
+     * @return 0 if the attempt may go ahead, otherwise how many milliseconds until it may be retried.
+     */
+    public long tryAcquire(String username, String address)
+    {
+        long now = System.currentTimeMillis();
+        long usernameWait = acquire(usernames, username == null ? "" : username.toLowerCase(Locale.ROOT), usernameLimit, now);
+        long addressWait = acquire(addresses, address == null ? "" : address, addressLimit, now);
+        return Math.max(usernameWait, addressWait);
+    }
+
+    public void succeeded(String username)
+    {
+        usernames.windows.remove(username.toLowerCase(Locale.ROOT));
+    }
+
+    private long acquire(Keys keys, String key, int limit, long now)
+    {
+        AtomicReference<Window> counter = keys.windows.get(key);
+        if (counter == null)
+        {
+            if (keys.windows.size() >= maxKeys)
+            {
+                evict(keys, now);
+            }
+            counter = keys.windows.size() < maxKeys
+                    ? keys.windows.computeIfAbsent(key, k -> new AtomicReference<>(new Window(now, 0, 0, 0, 0)))
+                    : keys.overflow;
+        }
+
+        while (true)
+        {
+            Window current = counter.get();
+            if (now < current.blockedUntil())
+            {
+                return current.blockedUntil() - now;
+            }
+
+            Window rolled = current.roll(now, windowMillis, maxBlockMillis);
+            Window next;
+            long wait = 0;
+            if (rolled.estimate(now, windowMillis) >= limit)
+            {
+                int strikes = rolled.strikes() + 1;
+                wait = Math.min(maxBlockMillis, baseBlockMillis << Math.min(strikes - 1, 30));
+                // The block replaces the count: once it ends the key starts a fresh window, and only the strikes carry over.
+                next = new Window(now, 0, 0, strikes, now + wait);
+            }
+            else
+            {
+                next = new Window(rolled.start(), rolled.count() + 1, rolled.previousCount(), rolled.strikes(), rolled.blockedUntil());
+            }
+            if (counter.compareAndSet(current, next))
+            {
+                return wait;
+            }
+        }
+    }
+
+    private void evict(Keys keys, long now)
+    {
+        long due = keys.nextSweep.get();
+        if (now < due || !keys.nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_MILLIS))
+        {
+            return; // Swept a moment ago, or another thread is sweeping: the caller uses the overflow window.
+        }
+        keys.windows.values().removeIf(counter -> counter.get().isIdle(now, windowMillis, maxBlockMillis));
+
+        // Still full of active keys: make room for a tenth more, but never at the cost of a block or strikes.
+        Iterator<AtomicReference<Window>> counters = keys.windows.values().iterator();
+        int excess = keys.windows.size() - maxKeys + maxKeys / 10 + 1;
+        while (excess > 0 && counters.hasNext())
+        {
+            if (!counters.next().get().isPenalized(now, windowMillis, maxBlockMillis))
+            {
+                counters.remove();
+                excess--;
+            }
+        }
+    }
+
+    // One kind of key (usernames or addresses), with the window new keys share while the map is full.
+    private static final class Keys
+    {
+        final Map<String, AtomicReference<Window>> windows = new ConcurrentHashMap<>();
+        final AtomicReference<Window> overflow = new AtomicReference<>(new Window(0, 0, 0, 0, 0));
+        final AtomicLong nextSweep = new AtomicLong();
+    }
+
+    /**
+     * Attempts in the fixed window starting at start and in the one before it,
+     * plus the back-off state. Immutable, so it can be swapped in with one CAS.
+     */
+    private record Window(long start, int count, int previousCount, int strikes, long blockedUntil)
+    {
+        Window roll(long now, long windowMillis, long maxBlockMillis)
+        {
+            if (now < start + windowMillis)
+            {
+                return this;
+            }
+            long windowStart = now - (now - start) % windowMillis;
+            int previous = windowStart == start + windowMillis ? count : 0;
+            // Strikes are forgiven once a key has been quiet for as long as the longest block.
+            int remainingStrikes = now - Math.max(blockedUntil, start + windowMillis) >= maxBlockMillis ? 0 : strikes;
+            return new Window(windowStart, 0, previous, remainingStrikes, blockedUntil);
+        }
+
+        double estimate(long now, long windowMillis)
+        {
+            double overlap = 1.0 - (double) (now - start) / windowMillis;
+            return previousCount * overlap + count;
+        }
+
+        boolean isIdle(long now, long windowMillis, long maxBlockMillis)
+        {
+            return !isPenalized(now, windowMillis, maxBlockMillis) && now >= start + 2 * windowMillis;
+        }
+
+        // Blocked, or carrying strikes that haven't been forgiven yet.
+        boolean isPenalized(long now, long windowMillis, long maxBlockMillis)
+        {
+            return now < blockedUntil
+                    || strikes > 0 && now - Math.max(blockedUntil, start + windowMillis) < maxBlockMillis;
+        }
+    }
+}
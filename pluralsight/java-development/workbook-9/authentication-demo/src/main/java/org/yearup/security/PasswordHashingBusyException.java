@@ -0,0 +1,18 @@
+package org.yearup.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the password hashing executor is saturated, so the request fails
+ * fast instead of queueing behind other logins and signups.
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Too many logins right now, try again shortly.")
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 4113851470562087304L;
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
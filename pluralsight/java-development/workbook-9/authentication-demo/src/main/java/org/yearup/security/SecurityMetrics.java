@@ -0,0 +1,81 @@
+package org.yearup.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How long each security stage takes and how authentication attempts turn out,
+ * for capacity planning the auth tier. Served by MetricsController at
+ * /metrics/security.
+ */
+@Component
+public class SecurityMetrics
+{
+    public enum Stage
+    {
+        JWT_FILTER,         // Resolving and checking the bearer token on every request.
+        LOGIN,              // All of /login's authentication, including the two below.
+        USER_DETAILS,       // Loading the user for a login.
+        PASSWORD_QUEUE,     // Waiting for a password hashing thread.
+        PASSWORD_HASH       // BCrypt itself, for encode and matches.
+    }
+
+    public enum Outcome
+    {
+        NO_TOKEN,
+        VALID_TOKEN,
+        EXPIRED_TOKEN,
+        BAD_SIGNATURE,
+        MALFORMED_TOKEN,
+        REVOKED_TOKEN,
+        LOGIN_SUCCEEDED,
+        UNKNOWN_USER,
+        NOT_ACTIVATED,
+        BAD_PASSWORD,
+        LOGIN_THROTTLED,
+        HASHING_BUSY
+    }
+
+    private final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+    private final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+
+    public SecurityMetrics()
+    {
+        for (Stage stage : Stage.values())
+        {
+            stages.put(stage, new LatencyHistogram());
+        }
+        for (Outcome outcome : Outcome.values())
+        {
+            outcomes.put(outcome, new LongAdder());
+        }
+    }
+
+    public void record(Stage stage, long startNanos)
+    {
+        stages.get(stage).recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public void count(Outcome outcome)
+    {
+        outcomes.get(outcome).increment();
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> stageSnapshots()
+    {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<>();
+        stages.forEach((stage, histogram) -> snapshots.put(stage.name().toLowerCase(), histogram.snapshot()));
+        return snapshots;
+    }
+
+    public Map<String, Long> outcomeCounts()
+    {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome.name().toLowerCase(), count.sum()));
+        return counts;
+    }
+}
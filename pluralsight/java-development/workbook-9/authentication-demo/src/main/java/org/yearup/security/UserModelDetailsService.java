@@ -8,7 +8,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -18,25 +20,51 @@ import java.util.stream.Collectors;
  * Authenticate a user from the database.
  */
 @Component("userDetailsService")
-public class UserModelDetailsService implements UserDetailsService {
+public class UserModelDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final Logger log = LoggerFactory.getLogger(UserModelDetailsService.class);
 
     private final UserDao userDao;
+    private final SecurityMetrics securityMetrics;
 
-    public UserModelDetailsService(UserDao userDao) {
+    public UserModelDetailsService(UserDao userDao, SecurityMetrics securityMetrics) {
         this.userDao = userDao;
+        this.securityMetrics = securityMetrics;
     }
 
     @Override
     public UserDetails loadUserByUsername(final String login) {
         log.debug("Authenticating user '{}'", login);
-        String lowercaseLogin = login.toLowerCase();
-        return createSpringSecurityUser(lowercaseLogin, userDao.getByUserName(lowercaseLogin));
+        long start = System.nanoTime();
+        try {
+            String lowercaseLogin = login.toLowerCase();
+            User user = userDao.getByUserName(lowercaseLogin);
+            if (user == null) {
+                securityMetrics.count(SecurityMetrics.Outcome.UNKNOWN_USER);
+                throw new UsernameNotFoundException("User " + lowercaseLogin + " was not found");
+            }
+            return createSpringSecurityUser(lowercaseLogin, user);
+        } finally {
+            securityMetrics.record(SecurityMetrics.Stage.USER_DETAILS, start);
+        }
+    }
+
+    /**
+     * Called by Spring Security after a successful login whose stored hash is below
+     * the encoder's current strength, with the password re-hashed at that strength.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        log.debug("Upgrading password hash for user '{}'", user.getUsername());
+        userDao.updatePassword(user.getUsername(), newPassword);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
     }
 
     private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, User user) {
         if (!user.isActivated()) {
+            securityMetrics.count(SecurityMetrics.Outcome.NOT_ACTIVATED);
             throw new UserNotActivatedException("User " + lowercaseLogin + " was not activated");
         }
         List<GrantedAuthority> grantedAuthorities = user.getAuthorities().stream()
@@ -4,18 +4,21 @@ import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.DefaultSecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.yearup.security.SecurityMetrics;
 
 public class JWTConfigurer extends SecurityConfigurerAdapter<DefaultSecurityFilterChain, HttpSecurity> {
 
     private TokenProvider tokenProvider;
+    private SecurityMetrics securityMetrics;
 
-    public JWTConfigurer(TokenProvider tokenProvider) {
+    public JWTConfigurer(TokenProvider tokenProvider, SecurityMetrics securityMetrics) {
         this.tokenProvider = tokenProvider;
+        this.securityMetrics = securityMetrics;
     }
 
     @Override
     public void configure(HttpSecurity http) {
-        JWTFilter customFilter = new JWTFilter(tokenProvider);
+        JWTFilter customFilter = new JWTFilter(tokenProvider, securityMetrics);
         http.addFilterBefore(customFilter, UsernamePasswordAuthenticationFilter.class);
     }
 }
@@ -6,7 +6,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
+import org.yearup.security.SecurityMetrics;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
@@ -24,21 +26,31 @@ public class JWTFilter extends GenericFilterBean {
 
     public static final String AUTHORIZATION_HEADER = "Authorization";
 
+    // The first pass's result, reused when the container dispatches the same request to /error.
+    private static final String AUTHENTICATION_ATTRIBUTE = JWTFilter.class.getName() + ".authentication";
+
     private TokenProvider tokenProvider;
+    private SecurityMetrics securityMetrics;
 
-    public JWTFilter(TokenProvider tokenProvider) {
+    public JWTFilter(TokenProvider tokenProvider, SecurityMetrics securityMetrics) {
         this.tokenProvider = tokenProvider;
+        this.securityMetrics = securityMetrics;
     }
 
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
             throws IOException, ServletException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
-        String jwt = resolveToken(httpServletRequest);
         String requestURI = httpServletRequest.getRequestURI();
 
-        if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-            Authentication authentication = tokenProvider.getAuthentication(jwt);
+        Authentication authentication;
+        if (servletRequest.getDispatcherType() == DispatcherType.ERROR) {
+            authentication = (Authentication) servletRequest.getAttribute(AUTHENTICATION_ATTRIBUTE);
+        } else {
+            authentication = authenticate(httpServletRequest);
+            servletRequest.setAttribute(AUTHENTICATION_ATTRIBUTE, authentication);
+        }
+        if (authentication != null) {
             SecurityContextHolder.getContext().setAuthentication(authentication);
             LOG.debug("set Authentication to custom security context for '{}', uri: {}", authentication.getName(), requestURI);
         } else {
@@ -48,6 +60,20 @@ public class JWTFilter extends GenericFilterBean {
         filterChain.doFilter(servletRequest, servletResponse);
     }
 
+    // One verify-and-parse per request; repeat tokens are answered from TokenProvider's cache.
+    private Authentication authenticate(HttpServletRequest request) {
+        long start = System.nanoTime();
+        String jwt = resolveToken(request);
+        Authentication authentication = null;
+        if (StringUtils.hasText(jwt)) {
+            authentication = tokenProvider.authenticate(jwt); // Counts the token's outcome.
+        } else {
+            securityMetrics.count(SecurityMetrics.Outcome.NO_TOKEN);
+        }
+        securityMetrics.record(SecurityMetrics.Stage.JWT_FILTER, start);
+        return authentication;
+    }
+
     private String resolveToken(HttpServletRequest request) {
         String bearerToken = request.getHeader(AUTHORIZATION_HEADER);
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,190 @@
+package org.yearup.security.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Opaque refresh tokens, so a client renews its short-lived access token with a
+ * map lookup and a hash instead of logging in again.
+ * <p>
+ * A token is [family id].[secret], where the family is the chain started by one
+ * login. Every refresh rotates: the family moves on to a new secret and only that
+ * one is accepted. Presenting any other token of a known family means an earlier
+ * one was copied, so the whole family is revoked and both the thief and the user
+ * have to log in again.
+ * <p>
+ * Each family keeps only the SHA-256 of its current secret, so the store holds
+ * one entry per session however often it is refreshed. Families expire as a
+ * whole; when jwt.refresh-store.max-entries is reached, expired families go first,
+ * then the ones closest to expiry. Tokens live in memory only: a restart signs
+ * everyone out, the same as it would with a rotated jwt.secret.
+ */
+@Component
+public class RefreshTokenStore
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RefreshTokenStore.class);
+
+    private static final int FAMILY_ID_BYTES = 16;
+    private static final int SECRET_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final SecureRandom random = new SecureRandom();
+    private final long timeoutMillis;
+    private final long rememberMeTimeoutMillis;
+    private final int maxFamilies;
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RefreshTokenStore(@Value("${jwt.refresh-token-timeout-seconds:86400}") long timeoutSeconds,
+                             @Value("${jwt.refresh-token-remember-me-seconds:2592000}") long rememberMeTimeoutSeconds,
+                             @Value("${jwt.refresh-store.max-entries:100000}") int maxFamilies)
+    {
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.rememberMeTimeoutMillis = TimeUnit.SECONDS.toMillis(rememberMeTimeoutSeconds);
+        this.maxFamilies = maxFamilies;
+    }
+
+    /**
+     * Starts a new family for a login and returns its first refresh token.
+     *
+     * @param authorities the comma-joined authorities to put in renewed access tokens.
+     */
+    public String issue(String username, String authorities, boolean rememberMe)
+    {
+        long lifetime = rememberMe ? rememberMeTimeoutMillis : timeoutMillis;
+        String familyId = randomString(FAMILY_ID_BYTES);
+        String secret = randomString(SECRET_BYTES);
+
+        if (families.size() >= maxFamilies)
+        {
+            evict();
+        }
+        families.put(familyId, new Family(username, authorities, System.currentTimeMillis() + lifetime,
+                new AtomicReference<>(new Current(0, digest(secret)))));
+        return familyId + "." + secret;
+    }
+
+    /**
+     * Spends the refresh token and returns the family's next one, or null if the
+     * token is unknown, expired or revoked. Any token of the family other than its
+     * current one revokes the family.
+     */
+    public Rotation rotate(String refreshToken)
+    {
+        int dot = refreshToken == null ? -1 : refreshToken.indexOf('.');
+        if (dot < 0)
+        {
+            return null;
+        }
+        String familyId = refreshToken.substring(0, dot);
+        Family family = families.get(familyId);
+        if (family == null)
+        {
+            return null;
+        }
+        if (System.currentTimeMillis() >= family.expiresAtMillis())
+        {
+            families.remove(familyId, family);
+            return null;
+        }
+
+        Current current = family.current().get();
+        String secret = randomString(SECRET_BYTES);
+        // A concurrent refresh with the same token loses the CAS and counts as reuse too: only one caller can hold the next token.
+        if (!MessageDigest.isEqual(current.hash(), digest(refreshToken.substring(dot + 1)))
+                || !family.current().compareAndSet(current, new Current(current.generation() + 1, digest(secret))))
+        {
+            families.remove(familyId, family);
+            LOG.warn("Refresh token reused for user '{}' after {} refreshes; revoked its session",
+                    family.username(), current.generation());
+            return null;
+        }
+        return new Rotation(family.username(), family.authorities(), familyId + "." + secret);
+    }
+
+    /**
+     * Revokes the family the token belongs to, e.g. when the user signs out.
+     */
+    public void revoke(String refreshToken)
+    {
+        int dot = refreshToken == null ? -1 : refreshToken.indexOf('.');
+        if (dot > 0)
+        {
+            families.remove(refreshToken.substring(0, dot));
+        }
+    }
+
+    int size()
+    {
+        return families.size();
+    }
+
+    private void evict()
+    {
+        long now = System.currentTimeMillis();
+        families.values().removeIf(family -> now >= family.expiresAtMillis());
+
+        // Still full of live sessions: end the ones closest to expiry, a tenth more than needed so this stays rare.
+        int excess = families.size() - maxFamilies + maxFamilies / 10 + 1;
+        if (excess <= 0)
+        {
+            return;
+        }
+        List<Map.Entry<String, Family>> oldest = new ArrayList<>(families.entrySet());
+        oldest.sort(Comparator.comparingLong(entry -> entry.getValue().expiresAtMillis()));
+        for (int i = 0; i < excess && i < oldest.size(); i++)
+        {
+            families.remove(oldest.get(i).getKey(), oldest.get(i).getValue());
+        }
+        LOG.warn("Refresh token store is full; ended {} sessions early", Math.min(excess, oldest.size()));
+    }
+
+    private String randomString(int bytes)
+    {
+        byte[] value = new byte[bytes];
+        random.nextBytes(value);
+        return ENCODER.encodeToString(value);
+    }
+
+    private static byte[] digest(String secret)
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.US_ASCII));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rotation(String username, String authorities, String refreshToken)
+    {
+    }
+
+    // One login's chain of refresh tokens; it expires as a whole, so rotating doesn't extend a session forever.
+    private record Family(String username, String authorities, long expiresAtMillis, AtomicReference<Current> current)
+    {
+    }
+
+    // Replaced, never mutated, so a rotation is a single compare-and-set.
+    private record Current(int generation, byte[] hash)
+    {
+    }
+}
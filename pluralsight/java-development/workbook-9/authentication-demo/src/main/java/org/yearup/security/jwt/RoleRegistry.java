@@ -0,0 +1,69 @@
+package org.yearup.security.jwt;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared, immutable authorities for the "auth" claim, so turning a token into an
+ * Authentication doesn't split the claim or allocate authorities each time.
+ * <p>
+ * There are only a handful of distinct claim strings ("ROLE_USER", "ROLE_ADMIN"),
+ * so each one is parsed once into an unmodifiable list. Principals are not shared:
+ * Spring's User is mutable (eraseCredentials), so each request gets its own. Both
+ * maps are bounded; past the bound, results are still correct, just no longer shared.
+ */
+public class RoleRegistry
+{
+    private static final int MAX_ROLE_SETS = 256;
+
+    private final Map<String, List<GrantedAuthority>> authoritiesByClaim = new ConcurrentHashMap<>();
+    private final Map<String, GrantedAuthority> authoritiesByName = new ConcurrentHashMap<>();
+
+    /**
+     * The authorities in a comma-joined claim, as one shared unmodifiable list.
+     */
+    public List<GrantedAuthority> authorities(String claim)
+    {
+        List<GrantedAuthority> authorities = authoritiesByClaim.get(claim);
+        if (authorities != null)
+        {
+            return authorities;
+        }
+        authorities = parse(claim);
+        if (authoritiesByClaim.size() < MAX_ROLE_SETS)
+        {
+            List<GrantedAuthority> existing = authoritiesByClaim.putIfAbsent(claim, authorities);
+            return existing != null ? existing : authorities;
+        }
+        return authorities;
+    }
+
+    private List<GrantedAuthority> parse(String claim)
+    {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String name : claim.split(","))
+        {
+            if (name.isEmpty())
+            {
+                continue;
+            }
+            GrantedAuthority authority = authoritiesByName.get(name);
+            if (authority == null)
+            {
+                authority = new SimpleGrantedAuthority(name);
+                if (authoritiesByName.size() < MAX_ROLE_SETS)
+                {
+                    authoritiesByName.putIfAbsent(name, authority);
+                }
+            }
+            authorities.add(authority);
+        }
+        return Collections.unmodifiableList(authorities);
+    }
+}
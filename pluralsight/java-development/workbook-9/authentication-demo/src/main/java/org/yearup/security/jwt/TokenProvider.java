@@ -1,10 +1,13 @@
 package org.yearup.security.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
@@ -12,14 +15,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
+import org.yearup.security.SecurityMetrics;
 
 import java.security.Key;
-import java.util.Arrays;
+import java.security.SecureRandom;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Component
@@ -32,16 +36,29 @@ public class TokenProvider implements InitializingBean
 
     private final String secret;
     private final long tokenTimeout;
+    private final VerifiedTokenCache verifiedTokens;
+    private final RoleRegistry roleRegistry;
+    private final TokenRevocationList revocationList;
+    private final SecurityMetrics securityMetrics;
+    private final SecureRandom random = new SecureRandom();
 
     private Key key;
+    private JwtParser parser; // Immutable and thread safe, so it's built once rather than per request.
 
 
     public TokenProvider(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.token-timeout-seconds}") long tokenTimeoutSeconds)
+            @Value("${jwt.token-timeout-seconds}") long tokenTimeoutSeconds,
+            @Value("${jwt.verified-cache-size:10000}") int verifiedCacheSize,
+            TokenRevocationList revocationList,
+            SecurityMetrics securityMetrics)
     {
         this.secret = secret;
         this.tokenTimeout = tokenTimeoutSeconds * 1000;
+        this.verifiedTokens = new VerifiedTokenCache(verifiedCacheSize);
+        this.roleRegistry = new RoleRegistry();
+        this.revocationList = revocationList;
+        this.securityMetrics = securityMetrics;
     }
 
     @Override
@@ -49,37 +66,121 @@ public class TokenProvider implements InitializingBean
     {
         byte[] keyBytes = Decoders.BASE64.decode(secret);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
+    /**
+     * A short-lived access token; rememberMe only affects the refresh token issued
+     * alongside it (see RefreshTokenStore).
+     */
     public String createToken(Authentication authentication, boolean rememberMe)
     {
-        String authorities = authentication.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.joining(","));
+        return createToken(authentication.getName(), joinAuthorities(authentication));
+    }
 
+    /**
+     * @param authorities comma-joined, as returned by joinAuthorities.
+     */
+    public String createToken(String subject, String authorities)
+    {
         long now = (new Date()).getTime();
         Date expirationDate = new Date(now + this.tokenTimeout);
 
         return Jwts.builder()
-                .setSubject(authentication.getName())
+                .setId(Long.toHexString(newTokenId()))
+                .setSubject(subject)
                 .claim(AUTHORITIES_KEY, authorities)
                 .signWith(key, SignatureAlgorithm.HS512)
                 .setExpiration(expirationDate)
                 .compact();
     }
 
+    /**
+     * Verifies the token and builds its Authentication in a single parse, or returns
+     * null if the token isn't valid. A token that has already been verified is served
+     * from the cache until it expires, without parsing it again. Either way, a
+     * revoked token is turned away.
+     */
+    public Authentication authenticate(String token)
+    {
+        VerifiedTokenCache.Entry verified = verifiedTokens.get(token);
+        if (verified != null)
+        {
+            if (revocationList.isRevoked(verified.tokenId()))
+            {
+                securityMetrics.count(SecurityMetrics.Outcome.REVOKED_TOKEN);
+                return null;
+            }
+            securityMetrics.count(SecurityMetrics.Outcome.VALID_TOKEN);
+            return new UsernamePasswordAuthenticationToken(new User(verified.username(), "", verified.authorities()), token, verified.authorities());
+        }
+
+        Claims claims;
+        try
+        {
+            claims = parser.parseClaimsJws(token).getBody();
+        }
+        catch (Exception e)
+        {
+            logger.info("Token Invalid.");
+            logger.trace("Token Invalid trace: {}.", e.toString());
+            securityMetrics.count(e instanceof ExpiredJwtException ? SecurityMetrics.Outcome.EXPIRED_TOKEN
+                    : e instanceof SignatureException ? SecurityMetrics.Outcome.BAD_SIGNATURE
+                    : SecurityMetrics.Outcome.MALFORMED_TOKEN);
+            return null;
+        }
+
+        long tokenId = tokenId(claims);
+        if (revocationList.isRevoked(tokenId))
+        {
+            logger.info("Token Revoked.");
+            securityMetrics.count(SecurityMetrics.Outcome.REVOKED_TOKEN);
+            return null;
+        }
+        securityMetrics.count(SecurityMetrics.Outcome.VALID_TOKEN);
+
+        String claim = Objects.toString(claims.get(AUTHORITIES_KEY, String.class), "");
+        Collection<? extends GrantedAuthority> authorities = roleRegistry.authorities(claim);
+        User principal = new User(claims.getSubject(), "", authorities);
+        if (claims.getExpiration() != null)
+        {
+            verifiedTokens.put(token, claims.getSubject(), authorities, tokenId, claims.getExpiration().getTime());
+        }
+        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+    }
+
+    /**
+     * Revokes a valid token until it expires. Returns false if the token isn't valid
+     * or was issued without an id, so it can't be revoked.
+     */
+    public boolean revoke(String token)
+    {
+        Claims claims;
+        try
+        {
+            claims = parser.parseClaimsJws(token).getBody();
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+
+        long tokenId = tokenId(claims);
+        if (tokenId == 0 || claims.getExpiration() == null)
+        {
+            return false;
+        }
+        revocationList.revoke(tokenId, claims.getExpiration().getTime());
+        verifiedTokens.remove(token);
+        return true;
+    }
+
     public Authentication getAuthentication(String token)
     {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
 
-        Collection<? extends GrantedAuthority> authorities =
-                Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
+        String claim = Objects.toString(claims.get(AUTHORITIES_KEY, String.class), "");
+        Collection<? extends GrantedAuthority> authorities = roleRegistry.authorities(claim);
 
         User principal = new User(claims.getSubject(), "", authorities);
 
@@ -90,8 +191,8 @@ public class TokenProvider implements InitializingBean
     {
         try
         {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
+            Claims claims = parser.parseClaimsJws(authToken).getBody();
+            return !revocationList.isRevoked(tokenId(claims));
         }
         catch (Exception e)
         {
@@ -100,4 +201,41 @@ public class TokenProvider implements InitializingBean
         }
         return false;
     }
+
+    public static String joinAuthorities(Authentication authentication)
+    {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+    }
+
+    // Random and never 0, which TokenRevocationList uses for "no id".
+    private long newTokenId()
+    {
+        long tokenId;
+        do
+        {
+            tokenId = random.nextLong();
+        }
+        while (tokenId == 0);
+        return tokenId;
+    }
+
+    // 0 for tokens issued before jti was added; those can't be revoked and just run out.
+    private static long tokenId(Claims claims)
+    {
+        String id = claims.getId();
+        if (id == null)
+        {
+            return 0;
+        }
+        try
+        {
+            return Long.parseUnsignedLong(id, 16);
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,264 @@
+package org.yearup.security.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access tokens revoked before their expiry, by token id (the jti claim).
+ * <p>
+ * JWTFilter checks every request against this list, so reads never lock or
+ * allocate: they go through an immutable snapshot holding a Bloom filter, which
+ * answers "not revoked" for almost every token, and an open-addressed table of
+ * the exact ids, consulted only when the filter says maybe. Revocations are rare,
+ * so each one rebuilds the snapshot.
+ * <p>
+ * Revocations are appended to jwt.revocation.file so they survive a restart, and
+ * dropped from memory and the file once the token would have expired anyway.
+ */
+@Component
+public class TokenRevocationList implements DisposableBean
+{
+    private static final Logger LOG = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final Path file;
+    private final Map<Long, Long> expiresAtById = new HashMap<>(); // Guarded by this; the source for snapshots.
+    private final ScheduledExecutorService sweeper;
+    private volatile Snapshot snapshot = Snapshot.of(Map.of());
+
+    @Autowired
+    public TokenRevocationList(@Value("${jwt.revocation.file:}") String file,
+                               @Value("${jwt.revocation.sweep-seconds:60}") long sweepSeconds)
+    {
+        this.file = file.isEmpty() ? null : Path.of(file);
+        load();
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Constant time and allocation free.
+     */
+    public boolean isRevoked(long tokenId)
+    {
+        return snapshot.contains(tokenId);
+    }
+
+    public synchronized void revoke(long tokenId, long expiresAtMillis)
+    {
+        if (tokenId == 0 || expiresAtMillis <= System.currentTimeMillis())
+        {
+            return; // Tokens without an id can't be revoked, and expired ones don't need to be.
+        }
+        if (expiresAtById.putIfAbsent(tokenId, expiresAtMillis) != null)
+        {
+            return;
+        }
+        append(tokenId, expiresAtMillis);
+        removeExpired();
+        snapshot = Snapshot.of(expiresAtById);
+    }
+
+    public synchronized int size()
+    {
+        return expiresAtById.size();
+    }
+
+    @Override
+    public void destroy()
+    {
+        sweeper.shutdownNow();
+    }
+
+    synchronized void sweep()
+    {
+        if (removeExpired())
+        {
+            snapshot = Snapshot.of(expiresAtById);
+            compact();
+        }
+    }
+
+    private boolean removeExpired()
+    {
+        long now = System.currentTimeMillis();
+        return expiresAtById.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    private synchronized void load()
+    {
+        if (file == null || !Files.exists(file))
+        {
+            return;
+        }
+        try
+        {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.US_ASCII);
+            for (String line : lines)
+            {
+                String[] fields = line.split(",");
+                if (fields.length != 2)
+                {
+                    continue; // A line torn by a crash mid-append.
+                }
+                try
+                {
+                    expiresAtById.put(Long.parseUnsignedLong(fields[0], 16), Long.parseLong(fields[1]));
+                }
+                catch (NumberFormatException e)
+                {
+                    LOG.warn("Skipping unreadable revocation entry '{}'", line);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not read " + file, e);
+        }
+        removeExpired();
+        snapshot = Snapshot.of(expiresAtById);
+        compact();
+    }
+
+    private void append(long tokenId, long expiresAtMillis)
+    {
+        if (file == null)
+        {
+            return;
+        }
+        try
+        {
+            Files.writeString(file, Long.toHexString(tokenId) + "," + expiresAtMillis + "\n", StandardCharsets.US_ASCII,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+        }
+        catch (IOException e)
+        {
+            // Still revoked in memory; it just won't survive a restart.
+            LOG.error("Could not persist revocation to {}", file, e);
+        }
+    }
+
+    // Rewrites the file with only the live entries, so it doesn't grow forever.
+    private void compact()
+    {
+        if (file == null)
+        {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try
+        {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.US_ASCII))
+            {
+                for (Map.Entry<Long, Long> entry : expiresAtById.entrySet())
+                {
+                    writer.write(Long.toHexString(entry.getKey()) + "," + entry.getValue() + "\n");
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            LOG.error("Could not compact {}", file, e);
+        }
+    }
+
+    /**
+     * A Bloom filter (about 10 bits and 4 probes per id, so roughly 1% false
+     * positives) in front of an open-addressed table of the exact ids. 0 marks an
+     * empty slot, which is why 0 is never issued as a token id.
+     */
+    private record Snapshot(long[] bloom, long[] ids)
+    {
+        private static final int PROBES = 4;
+
+        static Snapshot of(Map<Long, Long> expiresAtById)
+        {
+            int count = expiresAtById.size();
+            long[] bloom = new long[Math.max(1, tableSize(count * 10) / 64)];
+            long[] ids = new long[tableSize(count * 2)];
+            for (long id : expiresAtById.keySet())
+            {
+                long hash = mix(id);
+                long step = mix(hash) | 1;
+                int bits = bloom.length * 64;
+                for (int i = 0; i < PROBES; i++)
+                {
+                    int bit = (int) ((hash + i * step) & (bits - 1));
+                    bloom[bit >>> 6] |= 1L << bit;
+                }
+
+                int slot = (int) (hash & (ids.length - 1));
+                while (ids[slot] != 0)
+                {
+                    slot = (slot + 1) & (ids.length - 1);
+                }
+                ids[slot] = id;
+            }
+            return new Snapshot(bloom, ids);
+        }
+
+        boolean contains(long id)
+        {
+            long hash = mix(id);
+            long step = mix(hash) | 1;
+            int bits = bloom.length * 64;
+            for (int i = 0; i < PROBES; i++)
+            {
+                int bit = (int) ((hash + i * step) & (bits - 1));
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0)
+                {
+                    return false;
+                }
+            }
+
+            int slot = (int) (hash & (ids.length - 1));
+            while (ids[slot] != 0)
+            {
+                if (ids[slot] == id)
+                {
+                    return true;
+                }
+                slot = (slot + 1) & (ids.length - 1);
+            }
+            return false;
+        }
+
+        // Smallest power of two of at least 64 that holds n.
+        private static int tableSize(int n)
+        {
+            return Math.max(64, Integer.highestOneBit(Math.max(1, n - 1)) << 1);
+        }
+
+        // SplitMix64's finalizer; token ids are random already, this just spreads the probes.
+        private static long mix(long z)
+        {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.yearup.security.jwt;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens whose signature has already been checked, so a client sending the same
+ * bearer token again skips parsing and the HMAC.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the token rather than the token itself,
+ * so the cache never holds usable credentials, and they are dropped once the token
+ * expires. The hot path is a lock-free map lookup; when the map is full, expired
+ * entries are swept first and then arbitrary ones, which only costs a re-verify.
+ */
+class VerifiedTokenCache
+{
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final int maxEntries;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    VerifiedTokenCache(int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The verified subject and authorities of the token, or null if it isn't cached or has expired.
+     */
+    Entry get(String token)
+    {
+        if (maxEntries <= 0)
+        {
+            return null;
+        }
+        Key key = Key.of(token);
+        Entry entry = entries.get(key);
+        if (entry == null)
+        {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAtMillis())
+        {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    void put(String token, String username, Collection<? extends GrantedAuthority> authorities, long tokenId, long expiresAtMillis)
+    {
+        if (maxEntries <= 0)
+        {
+            return;
+        }
+        if (entries.size() >= maxEntries)
+        {
+            evict();
+        }
+        entries.put(Key.of(token), new Entry(username, authorities, tokenId, expiresAtMillis));
+    }
+
+    void remove(String token)
+    {
+        entries.remove(Key.of(token));
+    }
+
+    void clear()
+    {
+        entries.clear();
+    }
+
+    int size()
+    {
+        return entries.size();
+    }
+
+    private void evict()
+    {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> now >= entry.expiresAtMillis());
+
+        // Still full of live tokens: make room for a tenth more rather than evicting on every put.
+        Iterator<Key> keys = entries.keySet().iterator();
+        int excess = entries.size() - maxEntries + maxEntries / 10 + 1;
+        while (excess-- > 0 && keys.hasNext())
+        {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    // The username rather than a User: that is mutable, so each request builds its own.
+    record Entry(String username, Collection<? extends GrantedAuthority> authorities, long tokenId, long expiresAtMillis)
+    {
+    }
+
+    // The first 128 bits of the token's SHA-256.
+    private record Key(long high, long low)
+    {
+        static Key of(String token)
+        {
+            MessageDigest digest = SHA_256.get();
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new Key(hash.getLong(), hash.getLong());
+        }
+    }
+}
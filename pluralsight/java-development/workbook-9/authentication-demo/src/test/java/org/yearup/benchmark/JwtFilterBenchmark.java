@@ -0,0 +1,109 @@
+package org.yearup.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.yearup.security.SecurityMetrics;
+import org.yearup.security.jwt.JWTFilter;
+import org.yearup.security.jwt.TokenProvider;
+import org.yearup.security.jwt.TokenRevocationList;
+
+import java.lang.management.ManagementFactory;
+import java.security.Key;
+
+/**
+ * Per-request cost of authenticating a bearer token: the old filter (a new parser
+ * built twice, once to validate and once to read the claims), the single-parse
+ * filter with the verified-token cache turned off, and with it on.
+ * <p>
+ * It is not a unit test; run it by hand:
+ * <pre>
+ *   mvn test-compile
+ *   java -cp "target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *        org.yearup.benchmark.JwtFilterBenchmark
+ * </pre>
+ */
+public class JwtFilterBenchmark
+{
+    private static final String SECRET = "q8iMBSth1xu3cC+YWZPd/4XyelVYi2Bo3qr4dC1ugJL+bShsS6NTviJMdgC3rwIE7pRmxQIFzWpQW1Yb5XGWcZ1vpxs5afVogHNDZhyi5gOj8FsdRZnNLJz7P3PjGMi8whO0l9vnHRAKv5ZSoBQ7bw9KNUw7yoFGXuoGUEa9HsUyM56MKx6xVpxdFFeLkoHF3BU4hSkD7VDghZs2BzmOa1YcyN76qGY6nH5zjD1Gwea1NpxXTS6VvYF1qEchz2hGdZHNHE9T0QpBzeGsDJssYJ2zi9PZwjfZECyYyFiZC5jwDyD2oLkI6C95db8bf2KzI/g8FcBGNT2XG6HswnPtGeUfMqekk3xjJMK3iHfR6Q7y1I7D8ivjqP0oUDycT6f9rx3N6RbDfKTG9krAxzcCX9+gqR6GJO+x3moX82aZyW5WfgXek2uKGJJjP2pMnyoI6C/Uj8RAd3jAbhptx5/hQ91fxJiybG9RvfhPQEXyEYOMsI+Ve4rVd0JGneiD9azN2GzStQey9g7uGm04bE1Y+GgC/mSxIi5PIMhSPd+rBb7Sx3JJk1f7nH68iK+iXjtRGLFm0avq+2RiV4aw1nvQksh0aiMjDSZXqWpeN7o1oHe+FK1EeS4B2k3t+k6NU06QDmlGh6W1SjU2sJx0X+hxXU/IpDVgN5N0xfG9m3sQjFOLUQHbzqYceCstwIq3tsWZ+xhH/D51k36mR+sQ3xk8Jw3tj6Gd4w9jhIwAWY5/wf2T2VNrmYdR08H0BdMv8uR+lfmfbz+/vT+EAAAA==";
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    // The filter's own bookkeeping is part of what's measured.
+    private static final SecurityMetrics metrics = new SecurityMetrics();
+
+    public static void main(String[] args) throws Exception
+    {
+        TokenProvider uncached = tokenProvider(0);
+        TokenProvider cached = tokenProvider(10_000);
+        String token = cached.createToken(new UsernamePasswordAuthenticationToken("user", "",
+                AuthorityUtils.createAuthorityList("ROLE_USER")), false);
+
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/demo/secured");
+        request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + token);
+
+        System.out.printf("%-22s %12s %14s%n", "filter", "ns/request", "bytes/request");
+        report("legacy (parse twice)", () -> {
+            // What JWTFilter used to do: validateToken, then getAuthentication, each with a fresh parser.
+            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+            Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(claims.getSubject(), token,
+                    AuthorityUtils.commaSeparatedStringToAuthorityList(claims.get("auth").toString())));
+        });
+        report("single parse", () -> filter(new JWTFilter(uncached, metrics), request));
+        report("single parse + cache", () -> filter(new JWTFilter(cached, metrics), request));
+    }
+
+    private static TokenProvider tokenProvider(int verifiedCacheSize)
+    {
+        TokenProvider tokenProvider = new TokenProvider(SECRET, 3600, verifiedCacheSize, new TokenRevocationList("", 60), metrics);
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    private static void filter(JWTFilter filter, MockHttpServletRequest request) throws Exception
+    {
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        if (SecurityContextHolder.getContext().getAuthentication() == null)
+        {
+            throw new IllegalStateException("Token was rejected");
+        }
+    }
+
+    private static void report(String name, Request request) throws Exception
+    {
+        for (int i = 0; i < WARMUP; i++)
+        {
+            request.run();
+            SecurityContextHolder.clearContext();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            request.run();
+            SecurityContextHolder.clearContext();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-22s %12d %14d%n", name, elapsed / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    private interface Request
+    {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,105 @@
+package org.yearup.benchmark;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.yearup.security.jwt.RoleRegistry;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Garbage made turning a token's subject and "auth" claim into an Authentication:
+ * the old way (split the claim, new authorities, list and User every time) against
+ * RoleRegistry's shared authorities, with a new User per request as TokenProvider does. Reports bytes and time per
+ * request, the collections the run triggered, and what the garbage rate would be
+ * at 10,000 requests a second.
+ * <p>
+ * It is not a unit test; run it by hand, ideally with a small heap so the GC
+ * difference shows (e.g. -Xmx64m):
+ * <pre>
+ *   mvn test-compile
+ *   java -Xmx64m -cp "target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *        org.yearup.benchmark.RoleRegistryBenchmark
+ * </pre>
+ */
+public class RoleRegistryBenchmark
+{
+    private static final int USERS = 1_000;
+    private static final int WARMUP = 1_000_000;
+    private static final int ITERATIONS = 10_000_000;
+    private static final int REQUESTS_PER_SECOND = 10_000;
+
+    private static Object sink;
+
+    public static void main(String[] args)
+    {
+        String[] usernames = new String[USERS];
+        String[] claims = new String[USERS];
+        for (int i = 0; i < USERS; i++)
+        {
+            usernames[i] = "user" + i;
+            claims[i] = i % 10 == 0 ? "ROLE_ADMIN" : "ROLE_USER";
+        }
+        RoleRegistry registry = new RoleRegistry();
+
+        System.out.printf("%-10s %12s %14s %8s %10s %16s%n",
+                "version", "ns/request", "bytes/request", "GCs", "GC ms", "MB/s @ 10k rps");
+        report("legacy", i -> {
+            Collection<? extends GrantedAuthority> authorities = Arrays.stream(claims[i].split(","))
+                    .map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toList());
+            User principal = new User(usernames[i], "", authorities);
+            return new UsernamePasswordAuthenticationToken(principal, "token", authorities);
+        });
+        report("registry", i -> {
+            Collection<? extends GrantedAuthority> authorities = registry.authorities(claims[i]);
+            return new UsernamePasswordAuthenticationToken(new User(usernames[i], "", authorities), "token", authorities);
+        });
+    }
+
+    private static void report(String name, Request request)
+    {
+        for (int i = 0; i < WARMUP; i++)
+        {
+            sink = request.build(i % USERS);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            sink = request.build(i % USERS);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytesPerRequest = (threads.getThreadAllocatedBytes(threadId) - allocatedBefore) / ITERATIONS;
+
+        System.out.printf("%-10s %12d %14d %8d %10d %16.1f%n", name, elapsed / ITERATIONS, bytesPerRequest,
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore,
+                bytesPerRequest * (double) REQUESTS_PER_SECOND / (1024 * 1024));
+    }
+
+    private static long gcCount()
+    {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis()
+    {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private interface Request
+    {
+        Authentication build(int user);
+    }
+}
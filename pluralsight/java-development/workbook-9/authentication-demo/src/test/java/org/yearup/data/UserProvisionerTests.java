@@ -0,0 +1,58 @@
+package org.yearup.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserProvisionerTests
+{
+    @Test
+    void plainFieldsAreSplitOnCommas()
+    {
+        assertEquals(List.of("ann", "secret", "ROLE_USER"), UserProvisioner.parseCsv("ann,secret,ROLE_USER"));
+        assertEquals(List.of("ann", "", ""), UserProvisioner.parseCsv("ann,,"));
+    }
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndLineBreaks()
+    {
+        assertEquals(List.of("ann", "se,cr\"et", "ROLE_USER"), UserProvisioner.parseCsv("ann,\"se,cr\"\"et\",ROLE_USER"));
+        assertEquals(List.of("ann", "two\nlines", "ROLE_USER"), UserProvisioner.parseCsv("\"ann\",\"two\nlines\",ROLE_USER"));
+        assertEquals(List.of("ann", "", "ROLE_USER"), UserProvisioner.parseCsv("ann,\"\",ROLE_USER"));
+    }
+
+    @Test
+    void malformedQuotingIsRejected()
+    {
+        assertNull(UserProvisioner.parseCsv("ann,\"unclosed,ROLE_USER"));
+        assertNull(UserProvisioner.parseCsv("ann,\"quoted\"tail,ROLE_USER"));
+        assertNull(UserProvisioner.parseCsv("ann,half\"quoted,ROLE_USER"));
+    }
+
+    @Test
+    void aRecordRunsOnWhileAQuotedFieldIsOpen() throws IOException
+    {
+        BufferedReader reader = new BufferedReader(new StringReader(
+                "ann,\"first\nsecond\nthird\",ROLE_USER\nbob,\"a \"\"b\"\"\",ROLE_ADMIN\n"));
+
+        assertEquals("ann,\"first\nsecond\nthird\",ROLE_USER", UserProvisioner.readCsvRecord(reader));
+        assertEquals("bob,\"a \"\"b\"\"\",ROLE_ADMIN", UserProvisioner.readCsvRecord(reader));
+        assertNull(UserProvisioner.readCsvRecord(reader));
+    }
+
+    @Test
+    void anUnclosedQuoteStopsAtTheEndOfTheInput() throws IOException
+    {
+        BufferedReader reader = new BufferedReader(new StringReader("ann,\"open\nbob,x,ROLE_USER"));
+
+        String record = UserProvisioner.readCsvRecord(reader);
+        assertEquals("ann,\"open\nbob,x,ROLE_USER", record);
+        assertNull(UserProvisioner.parseCsv(record));
+        assertNull(UserProvisioner.readCsvRecord(reader));
+    }
+}
@@ -0,0 +1,213 @@
+package org.yearup.data.mysql;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Wraps a DataSource and remembers where every Connection, Statement and ResultSet
+ * it hands out was opened, so a test can fail on any that weren't closed.
+ * <p>
+ * A ResultSet counts as closed when its Statement is, as JDBC specifies; a
+ * Statement has to be closed itself, since returning a pooled connection doesn't
+ * close it.
+ */
+class LeakDetectingDataSource implements DataSource
+{
+    private final DataSource dataSource;
+    private final Map<Object, Throwable> open = new ConcurrentHashMap<>();
+
+    LeakDetectingDataSource(DataSource dataSource)
+    {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @throws AssertionError listing each resource still open, with the stack that opened it.
+     */
+    void assertNoLeaks()
+    {
+        if (!open.isEmpty())
+        {
+            int count = open.size();
+            String leaks = open.entrySet().stream()
+                    .map(leak -> leak.getKey() + " opened at\n" + stackOf(leak.getValue()))
+                    .collect(Collectors.joining("\n"));
+            open.clear();
+            throw new AssertionError(count + " JDBC resources left open:\n" + leaks);
+        }
+    }
+
+    int openCount()
+    {
+        return open.size();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException
+    {
+        return track(dataSource.getConnection(), Connection.class, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException
+    {
+        return track(dataSource.getConnection(username, password), Connection.class, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T track(T resource, Class<T> type, Tracker owner)
+    {
+        Tracker tracker = new Tracker(resource, type.getSimpleName(), owner);
+        T proxy = (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, tracker);
+        open.put(tracker, new Throwable());
+        if (owner != null)
+        {
+            owner.children.put(tracker, Boolean.TRUE);
+        }
+        return proxy;
+    }
+
+    private class Tracker implements InvocationHandler
+    {
+        private final Object target;
+        private final String name;
+        private final Tracker owner;
+        private final Map<Tracker, Boolean> children = new ConcurrentHashMap<>();
+
+        Tracker(Object target, String name, Tracker owner)
+        {
+            this.target = target;
+            this.name = name;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            Object result;
+            try
+            {
+                result = method.invoke(target, args);
+            }
+            catch (InvocationTargetException e)
+            {
+                throw e.getCause();
+            }
+
+            if (method.getName().equals("close"))
+            {
+                closed();
+            }
+            else if (!(target instanceof Connection || target instanceof Statement))
+            {
+                return result; // e.g. ResultSet.getStatement(), which hands back something already tracked.
+            }
+            else if (result instanceof CallableStatement callable)
+            {
+                return track(callable, CallableStatement.class, null);
+            }
+            else if (result instanceof PreparedStatement prepared)
+            {
+                return track(prepared, PreparedStatement.class, null);
+            }
+            else if (result instanceof Statement statement)
+            {
+                return track(statement, Statement.class, null);
+            }
+            else if (result instanceof ResultSet resultSet)
+            {
+                return track(resultSet, ResultSet.class, this);
+            }
+            return result;
+        }
+
+        private void closed()
+        {
+            open.remove(this);
+            for (Tracker child : children.keySet())
+            {
+                child.closed(); // Closing a Statement closes its ResultSets.
+            }
+            if (owner != null)
+            {
+                owner.children.remove(this);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+
+    private static String stackOf(Throwable throwable)
+    {
+        StringBuilder stack = new StringBuilder();
+        for (StackTraceElement frame : throwable.getStackTrace())
+        {
+            if (frame.getClassName().startsWith("org.yearup") && !frame.getClassName().contains("LeakDetecting"))
+            {
+                stack.append("    at ").append(frame).append('\n');
+            }
+        }
+        return stack.toString();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException
+    {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException
+    {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException
+    {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException
+    {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException
+    {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException
+    {
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException
+    {
+        return dataSource.isWrapperFor(iface);
+    }
+}
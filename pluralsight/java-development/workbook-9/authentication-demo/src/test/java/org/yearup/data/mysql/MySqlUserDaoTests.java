@@ -0,0 +1,241 @@
+package org.yearup.data.mysql;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.yearup.data.UserCache;
+import org.yearup.models.User;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MySqlUserDaoTests
+{
+    private BasicDataSource database;
+    private LeakDetectingDataSource dataSource;
+    private LeakDetectingDataSource exportDataSource;
+    private MySqlUserDao dao;
+
+    @BeforeEach
+    void openDatabase() throws SQLException
+    {
+        database = new BasicDataSource();
+        database.setUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        database.setUsername("sa");
+        database.setPassword("");
+
+        try (Connection connection = database.getConnection();
+             Statement statement = connection.createStatement())
+        {
+            statement.execute("CREATE TABLE users (" +
+                    " user_id INT NOT NULL AUTO_INCREMENT," +
+                    " username VARCHAR(50) NOT NULL," +
+                    " hashed_password VARCHAR(255) NOT NULL," +
+                    " role VARCHAR(50) NOT NULL," +
+                    " PRIMARY KEY (user_id)," +
+                    " UNIQUE KEY users_username (username))");
+        }
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO users (username, hashed_password, role) VALUES (?, 'hash', 'ROLE_USER')"))
+        {
+            for (int i = 1; i <= 250; i++)
+            {
+                statement.setString(1, "user" + i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        dataSource = new LeakDetectingDataSource(database);
+        exportDataSource = new LeakDetectingDataSource(database);
+        dao = new MySqlUserDao(dataSource, exportDataSource, new UserCache(60, 1000), new BCryptPasswordEncoder(4), 50);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException
+    {
+        try
+        {
+            dataSource.assertNoLeaks();
+            exportDataSource.assertNoLeaks();
+        }
+        finally
+        {
+            database.close();
+        }
+    }
+
+    @Test
+    void pagesThroughUsersByKey()
+    {
+        List<User> users = new ArrayList<>();
+        int after = 0;
+        List<User> page;
+        while (!(page = dao.getPage(after, 100)).isEmpty())
+        {
+            assertTrue(page.size() <= 100);
+            users.addAll(page);
+            after = page.get(page.size() - 1).getId();
+        }
+
+        assertEquals(250, users.size());
+        for (int i = 1; i < users.size(); i++)
+        {
+            assertTrue(users.get(i - 1).getId() < users.get(i).getId());
+        }
+    }
+
+    @Test
+    void exportsEveryUserAfterTheResumePoint()
+    {
+        List<User> all = new ArrayList<>();
+        dao.exportUsers(0, all::add);
+        assertEquals(250, all.size());
+
+        List<User> rest = new ArrayList<>();
+        dao.exportUsers(all.get(199).getId(), rest::add);
+        assertEquals(50, rest.size());
+        assertEquals("user201", rest.get(0).getUsername());
+    }
+
+    @Test
+    void exportStreamsThroughTheExportPoolOnly()
+    {
+        List<Integer> openWhileStreaming = new ArrayList<>();
+        dao.exportUsers(249, user -> {
+            openWhileStreaming.add(exportDataSource.openCount());
+            openWhileStreaming.add(dataSource.openCount());
+        });
+
+        assertTrue(openWhileStreaming.get(0) > 0);
+        assertEquals(0, openWhileStreaming.get(1));
+    }
+
+    @Test
+    void exportClosesItsCursorWhenTheConsumerGivesUp()
+    {
+        assertThrows(IllegalStateException.class, () -> dao.exportUsers(0, user -> {
+            throw new IllegalStateException("client went away");
+        }));
+    }
+
+    @Test
+    void everyReadAndWriteClosesItsResources()
+    {
+        assertEquals(250, dao.getAll().size());
+        assertEquals("user1", dao.getUserById(1).getUsername());
+        assertNull(dao.getUserById(999));
+
+        User created = dao.create(new User(0, "newbie", "secret", "ROLE_USER"));
+        assertEquals(251, created.getId());
+        assertNull(dao.create(new User(0, "newbie", "secret", "ROLE_USER")));
+        assertTrue(dao.exists("newbie"));
+
+        dao.updatePassword("newbie", "rehashed");
+        assertEquals("rehashed", dao.getByUserName("newbie").getPassword());
+    }
+
+    @Test
+    void findsExistingUsernamesInOneQuery()
+    {
+        Set<String> existing = dao.getExistingUsernames(List.of("user1", "nobody", "user250"));
+        assertEquals(Set.of("user1", "user250"), existing);
+        assertTrue(dao.getExistingUsernames(List.of()).isEmpty());
+    }
+
+    @Test
+    void concurrentRegistrationsEachGetAnAnswer() throws Exception
+    {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+            {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    int created = 0;
+                    for (int i = 0; i < 20; i++)
+                    {
+                        assertNotNull(dao.create(new User(0, "new" + thread + "_" + i, "secret", "ROLE_USER")));
+                        created += dao.create(new User(0, "contended" + i, "secret", "ROLE_USER")) != null ? 1 : 0;
+                    }
+                    return created;
+                }));
+            }
+            int contendedWins = 0;
+            for (Future<Integer> result : results)
+            {
+                contendedWins += result.get();
+            }
+
+            // Only the unique key decides: one winner per contended name, and every distinct name inserted.
+            assertEquals(20, contendedWins);
+            assertEquals(250 + threads * 20 + 20, dao.getAll().size());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void createsABatchAndFallsBackRowByRowOnAConflict()
+    {
+        List<User> created = dao.createBatch(List.of(
+                new User(0, "batch1", "hash1", "ROLE_USER"),
+                new User(0, "batch2", "hash2", "ROLE_ADMIN")));
+        assertEquals(List.of(251, 252), List.of(created.get(0).getId(), created.get(1).getId()));
+        assertEquals("hash2", dao.getByUserName("batch2").getPassword());
+
+        // user7 was taken after the caller checked: only that row is refused.
+        created = dao.createBatch(List.of(
+                new User(0, "batch3", "hash3", "ROLE_USER"),
+                new User(0, "user7", "hash", "ROLE_USER"),
+                new User(0, "batch4", "hash4", "ROLE_USER")));
+        assertNotNull(created.get(0));
+        assertNull(created.get(1));
+        assertNotNull(created.get(2));
+        assertEquals(254, dao.getAll().size());
+    }
+
+    @Test
+    void aBatchThatFailsForAnyOtherReasonIsNotRetriedRowByRow()
+    {
+        // Too wide for the column: not a conflict, so no row of the batch may be inserted.
+        assertThrows(RuntimeException.class, () -> dao.createBatch(List.of(
+                new User(0, "batch5", "hash5", "ROLE_USER"),
+                new User(0, "batch6", "hash6", "R".repeat(60)))));
+
+        assertNull(dao.getByUserName("batch5"));
+        assertEquals(250, dao.getAll().size());
+    }
+
+    @Test
+    void detectorReportsAStatementThatWasNeverClosed() throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection())
+        {
+            connection.prepareStatement("SELECT * FROM users").executeQuery();
+        }
+
+        assertEquals(2, dataSource.openCount()); // The statement and its result set.
+        AssertionError leak = assertThrows(AssertionError.class, dataSource::assertNoLeaks);
+        assertTrue(leak.getMessage().contains("PreparedStatement"));
+    }
+}
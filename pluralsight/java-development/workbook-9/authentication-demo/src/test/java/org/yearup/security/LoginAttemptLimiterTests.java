@@ -0,0 +1,133 @@
+package org.yearup.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAttemptLimiterTests
+{
+    @Test
+    void attemptsUpToTheLimitGoAheadAndTheNextIsBlocked()
+    {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(60, 3, 100, 30, 3600, 1000);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(0, limiter.tryAcquire("ann", "10.0.0.1"));
+        }
+        long wait = limiter.tryAcquire("ann", "10.0.0.1");
+
+        assertTrue(wait > 29_000 && wait <= 30_000, "waited " + wait);
+        // Usernames are counted case-insensitively, and other users are unaffected.
+        assertTrue(limiter.tryAcquire("ANN", "10.0.0.2") > 0);
+        assertEquals(0, limiter.tryAcquire("bob", "10.0.0.1"));
+    }
+
+    @Test
+    void theWindowSlidesOnceAttemptsAreOldEnough() throws Exception
+    {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(1, 3, 100, 30, 3600, 1000);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(0, limiter.tryAcquire("ann", "10.0.0.1"));
+        }
+        Thread.sleep(2100);
+
+        assertEquals(0, limiter.tryAcquire("ann", "10.0.0.1"));
+    }
+
+    @Test
+    void anExpiredBlockStartsAFreshWindowAndTheNextBlockIsLonger() throws Exception
+    {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(60, 3, 100, 1, 2, 1000);
+
+        long first = exhaust(limiter, "ann");
+        assertTrue(first > 0 && first <= 1000, "first block " + first);
+        Thread.sleep(first + 50);
+
+        // The attempts before the block no longer count: a full allowance, then a doubled block.
+        long second = exhaust(limiter, "ann");
+        assertTrue(second > 1000 && second <= 2000, "second block " + second);
+        Thread.sleep(second + 50);
+
+        // Capped at max-block-seconds.
+        long third = exhaust(limiter, "ann");
+        assertTrue(third > 1000 && third <= 2000, "third block " + third);
+    }
+
+    @Test
+    void aSuccessfulLoginClearsTheUsernameButNotTheAddress()
+    {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(60, 3, 5, 30, 3600, 1000);
+
+        limiter.tryAcquire("ann", "10.0.0.1");
+        limiter.tryAcquire("ann", "10.0.0.1");
+        limiter.succeeded("Ann");
+
+        assertEquals(0, limiter.tryAcquire("ann", "10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("ann", "10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("ann", "10.0.0.1"));
+        // Five attempts from the address so far; its limit is five.
+        assertTrue(limiter.tryAcquire("bob", "10.0.0.1") > 0);
+    }
+
+    @Test
+    void aBlockedUsernameCanLogInOnceTheBlockEnds() throws Exception
+    {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(60, 3, 100, 1, 3600, 1000);
+
+        long wait = exhaust(limiter, "ann");
+        Thread.sleep(wait + 50);
+
+        assertEquals(0, limiter.tryAcquire("ann", "10.0.0.1"));
+        limiter.succeeded("ann");
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(0, limiter.tryAcquire("ann", "10.0.0.1"));
+        }
+    }
+
+    @Test
+    void sprayingOtherNamesCannotEvictABlock()
+    {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(60, 3, 100_000, 30, 3600, 10);
+        long wait = exhaust(limiter, "ann");
+        assertTrue(wait > 0);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            limiter.tryAcquire("spray" + i, "10.9.0.1");
+        }
+
+        assertTrue(limiter.tryAcquire("ann", "10.0.3.1") > 0);
+    }
+
+    @Test
+    void whenOnlyPenalizedKeysAreLeftNewKeysShareOneWindow()
+    {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(60, 3, 100_000, 30, 3600, 4);
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(exhaust(limiter, "blocked" + i) > 0);
+        }
+
+        // No room, so these newcomers count against the same overflow window.
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(0, limiter.tryAcquire("new" + i, "10.0.4.1"));
+        }
+        assertTrue(limiter.tryAcquire("new3", "10.0.4.1") > 0);
+        assertTrue(limiter.tryAcquire("blocked0", "10.0.4.1") > 0);
+    }
+
+    // Attempts until the username is blocked, from addresses of their own, and returns the block.
+    private static long exhaust(LoginAttemptLimiter limiter, String username)
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(0, limiter.tryAcquire(username, "10.0.1." + i), "attempt " + (i + 1));
+        }
+        return limiter.tryAcquire(username, "10.0.2.1");
+    }
+}
@@ -0,0 +1,139 @@
+package org.yearup.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenStoreTests
+{
+    private static final long DAY = 86400;
+    private static final long MONTH = 2592000;
+
+    @Test
+    void rotationHandsOutTheNextTokenOfTheSameSession()
+    {
+        RefreshTokenStore store = new RefreshTokenStore(DAY, MONTH, 100);
+        String first = store.issue("ann", "ROLE_USER", false);
+
+        RefreshTokenStore.Rotation rotation = store.rotate(first);
+        assertNotNull(rotation);
+        assertEquals("ann", rotation.username());
+        assertEquals("ROLE_USER", rotation.authorities());
+        assertNotEquals(first, rotation.refreshToken());
+
+        // The chain goes on, and it stays one entry however often it is refreshed.
+        RefreshTokenStore.Rotation next = store.rotate(rotation.refreshToken());
+        assertNotNull(next);
+        assertNotNull(store.rotate(next.refreshToken()));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void replayingASpentTokenRevokesTheWholeFamily()
+    {
+        RefreshTokenStore store = new RefreshTokenStore(DAY, MONTH, 100);
+        String victim = store.issue("ann", "ROLE_USER", false);
+        String other = store.issue("bob", "ROLE_USER", false);
+
+        // A thief refreshes first, then the user presents the spent token.
+        String stolen = store.rotate(victim).refreshToken();
+        assertNull(store.rotate(victim));
+
+        assertNull(store.rotate(stolen));
+        assertNotNull(store.rotate(other));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void anUnknownSecretForAKnownFamilyCountsAsReuse()
+    {
+        RefreshTokenStore store = new RefreshTokenStore(DAY, MONTH, 100);
+        String token = store.issue("ann", "ROLE_USER", false);
+        String familyId = token.substring(0, token.indexOf('.'));
+
+        assertNull(store.rotate(familyId + ".forged"));
+        assertNull(store.rotate(token));
+    }
+
+    @Test
+    void malformedAndUnknownTokensAreRejected()
+    {
+        RefreshTokenStore store = new RefreshTokenStore(DAY, MONTH, 100);
+        store.issue("ann", "ROLE_USER", false);
+
+        assertNull(store.rotate(null));
+        assertNull(store.rotate(""));
+        assertNull(store.rotate("no-dot"));
+        assertNull(store.rotate("unknown.family"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void revokeEndsTheSession()
+    {
+        RefreshTokenStore store = new RefreshTokenStore(DAY, MONTH, 100);
+        String token = store.issue("ann", "ROLE_USER", false);
+
+        store.revoke(token);
+
+        assertNull(store.rotate(token));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void expiredFamiliesAreRejectedAndEvictedFirst()
+    {
+        RefreshTokenStore store = new RefreshTokenStore(0, MONTH, 10);
+        String expired = store.issue("ann", "ROLE_USER", false);
+        assertNull(store.rotate(expired));
+
+        for (int i = 0; i < 9; i++)
+        {
+            store.issue("user" + i, "ROLE_USER", false);
+        }
+        String kept = store.issue("bob", "ROLE_USER", true);
+        for (int i = 0; i < 5; i++)
+        {
+            store.issue("again" + i, "ROLE_USER", true);
+        }
+
+        assertTrue(store.size() <= 10);
+        assertNotNull(store.rotate(kept));
+    }
+
+    @Test
+    void evictionUnderPressureNeverKeepsASuccessorWithoutItsFamily()
+    {
+        RefreshTokenStore store = new RefreshTokenStore(DAY, MONTH, 10);
+        String victim = store.issue("ann", "ROLE_USER", true);
+        String stolen = store.rotate(victim).refreshToken();
+
+        // Fill the store far past its bound with shorter sessions.
+        for (int i = 0; i < 100; i++)
+        {
+            store.issue("user" + i, "ROLE_USER", false);
+            assertTrue(store.size() <= 10);
+        }
+
+        // The long-lived session survived, and its history with it: the replay is still caught.
+        assertNull(store.rotate(victim));
+        assertNull(store.rotate(stolen));
+    }
+
+    @Test
+    void evictingASessionEndsEveryTokenInIt()
+    {
+        RefreshTokenStore store = new RefreshTokenStore(DAY, MONTH, 10);
+        String victim = store.issue("ann", "ROLE_USER", false);
+        String current = store.rotate(victim).refreshToken();
+
+        // Longer sessions push the victim's family out as a whole.
+        for (int i = 0; i < 100; i++)
+        {
+            store.issue("user" + i, "ROLE_USER", true);
+        }
+
+        assertNull(store.rotate(victim));
+        assertNull(store.rotate(current));
+    }
+}
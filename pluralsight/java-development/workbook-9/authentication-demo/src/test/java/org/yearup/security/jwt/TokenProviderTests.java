@@ -0,0 +1,79 @@
+package org.yearup.security.jwt;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.yearup.security.SecurityMetrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenProviderTests
+{
+    private TokenRevocationList revocationList;
+    private SecurityMetrics securityMetrics;
+    private TokenProvider tokenProvider;
+
+    @BeforeEach
+    void createProvider()
+    {
+        String secret = Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded());
+        revocationList = new TokenRevocationList("", 3600);
+        securityMetrics = new SecurityMetrics();
+        tokenProvider = new TokenProvider(secret, 60, 100, revocationList, securityMetrics);
+        tokenProvider.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void stopSweeper()
+    {
+        revocationList.destroy();
+    }
+
+    @Test
+    void eachAuthenticationGetsItsOwnPrincipal()
+    {
+        String token = tokenProvider.createToken("ann", "ROLE_USER");
+
+        Authentication parsed = tokenProvider.authenticate(token);
+        Authentication cached = tokenProvider.authenticate(token);
+
+        assertEquals("ann", cached.getName());
+        assertEquals("ROLE_USER", cached.getAuthorities().iterator().next().getAuthority());
+        assertNotSame(parsed.getPrincipal(), cached.getPrincipal());
+
+        // Spring erases credentials on the principal it is handed; that must not leak into another request.
+        ((User) parsed.getPrincipal()).eraseCredentials();
+        assertEquals("", ((User) cached.getPrincipal()).getPassword());
+        assertEquals("", ((User) tokenProvider.getAuthentication(token).getPrincipal()).getPassword());
+    }
+
+    @Test
+    void aRevokedTokenIsTurnedAwayEvenWhenCached()
+    {
+        String token = tokenProvider.createToken("ann", "ROLE_USER");
+        assertNotNull(tokenProvider.authenticate(token));
+
+        assertTrue(tokenProvider.revoke(token));
+
+        assertNull(tokenProvider.authenticate(token));
+    }
+
+    @Test
+    void aTamperedSignatureIsCountedAsOne()
+    {
+        String token = tokenProvider.createToken("ann", "ROLE_USER");
+        int signature = token.lastIndexOf('.') + 1;
+        String tampered = token.substring(0, signature) + (token.charAt(signature) == 'A' ? 'B' : 'A') + token.substring(signature + 1);
+
+        assertNull(tokenProvider.authenticate(tampered));
+        assertNull(tokenProvider.authenticate("not.a.token"));
+
+        assertEquals(1, securityMetrics.outcomeCounts().get("bad_signature"));
+        assertEquals(1, securityMetrics.outcomeCounts().get("malformed_token"));
+    }
+}
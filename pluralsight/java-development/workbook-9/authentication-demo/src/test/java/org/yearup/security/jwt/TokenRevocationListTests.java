@@ -0,0 +1,140 @@
+package org.yearup.security.jwt;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTests
+{
+    private static final long HOUR = 3_600_000;
+
+    @TempDir
+    Path directory;
+
+    private final List<TokenRevocationList> lists = new ArrayList<>();
+
+    @AfterEach
+    void stopSweepers()
+    {
+        lists.forEach(TokenRevocationList::destroy);
+    }
+
+    @Test
+    void revokedTokensAreReportedAndOthersAreNot()
+    {
+        TokenRevocationList list = open("");
+
+        list.revoke(42, System.currentTimeMillis() + HOUR);
+
+        assertTrue(list.isRevoked(42));
+        assertFalse(list.isRevoked(43));
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    void idlessAndExpiredTokensAreNotStored()
+    {
+        TokenRevocationList list = open("");
+
+        list.revoke(0, System.currentTimeMillis() + HOUR);
+        list.revoke(7, System.currentTimeMillis() - 1);
+
+        assertEquals(0, list.size());
+        assertFalse(list.isRevoked(7));
+    }
+
+    @Test
+    void noRevokedIdIsEverMissed()
+    {
+        TokenRevocationList list = open("");
+        SplittableRandom random = new SplittableRandom(1);
+        List<Long> ids = new ArrayList<>();
+        long expiresAt = System.currentTimeMillis() + HOUR;
+
+        for (int i = 0; i < 5000; i++)
+        {
+            long id = random.nextLong() | 1;
+            ids.add(id);
+            list.revoke(id, expiresAt);
+        }
+
+        for (long id : ids)
+        {
+            assertTrue(list.isRevoked(id), () -> "missed " + Long.toHexString(id));
+        }
+    }
+
+    @Test
+    void revocationsSurviveARestart() throws Exception
+    {
+        Path file = directory.resolve("revoked.txt");
+        TokenRevocationList list = open(file.toString());
+        SplittableRandom random = new SplittableRandom(2);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+        {
+            long id = random.nextLong() | 1;
+            ids.add(id);
+            list.revoke(id, System.currentTimeMillis() + HOUR);
+        }
+        // A crash mid-append leaves a torn last line.
+        Files.writeString(file, "abc", StandardCharsets.US_ASCII, StandardOpenOption.APPEND);
+
+        TokenRevocationList reloaded = open(file.toString());
+
+        assertEquals(500, reloaded.size());
+        for (long id : ids)
+        {
+            assertTrue(reloaded.isRevoked(id), () -> "missed " + Long.toHexString(id));
+        }
+        // Loading compacted the file: one line per live entry, the torn one gone.
+        assertEquals(500, Files.readAllLines(file, StandardCharsets.US_ASCII).size());
+    }
+
+    @Test
+    void sweepPurgesExpiredEntriesAndKeepsLiveOnesAcrossCompaction() throws Exception
+    {
+        Path file = directory.resolve("revoked.txt");
+        TokenRevocationList list = open(file.toString());
+        long now = System.currentTimeMillis();
+        for (long id = 1; id <= 100; id++)
+        {
+            list.revoke(id, id % 2 == 0 ? now + HOUR : now + 100);
+        }
+
+        Thread.sleep(200);
+        list.sweep();
+
+        assertEquals(50, list.size());
+        for (long id = 1; id <= 100; id++)
+        {
+            assertEquals(id % 2 == 0, list.isRevoked(id), "id " + id);
+        }
+        assertEquals(50, Files.readAllLines(file, StandardCharsets.US_ASCII).size());
+
+        TokenRevocationList reloaded = open(file.toString());
+        assertEquals(50, reloaded.size());
+        for (long id = 2; id <= 100; id += 2)
+        {
+            assertTrue(reloaded.isRevoked(id), "id " + id);
+        }
+    }
+
+    private TokenRevocationList open(String file)
+    {
+        // A long sweep period, so only the test's own sweep() calls run.
+        TokenRevocationList list = new TokenRevocationList(file, 3600);
+        lists.add(list);
+        return list;
+    }
+}
@@ -1,22 +1,21 @@
 package com.pluralsight.ledger3.dao.impl;
 
 import com.pluralsight.ledger3.dao.interfaces.ITransactionDAO;
+import com.pluralsight.ledger3.models.Money;
 import com.pluralsight.ledger3.models.Transaction;
-import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
 
-@Component
 public class SimpleTransactionDAO implements ITransactionDAO {
     private List<Transaction> transactions;
 
     public SimpleTransactionDAO() {
         this.transactions = new ArrayList<>();
         // Add some initial transactions
-        transactions.add(new Transaction(1, 150.75, "Amazon"));
-        transactions.add(new Transaction(2, 89.99, "Walmart"));
-        transactions.add(new Transaction(3, 200.00, "Best Buy"));
+        transactions.add(new Transaction(1, Money.parse("150.75"), "Amazon"));
+        transactions.add(new Transaction(2, Money.parse("89.99"), "Walmart"));
+        transactions.add(new Transaction(3, Money.parse("200.00"), "Best Buy"));
     }
 
     @Override
@@ -47,6 +46,17 @@ public class SimpleTransactionDAO implements ITransactionDAO {
         return null;
     }
 
+    @Override
+    public List<Transaction> getTransactionsByVendor(String vendor) {
+        List<Transaction> matches = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getVendor() != null && transaction.getVendor().equals(vendor)) {
+                matches.add(transaction);
+            }
+        }
+        return matches;
+    }
+
     @Override
     public void update(int transactionId, Transaction transaction) {
         int index = getTransactionIndex(transactionId);
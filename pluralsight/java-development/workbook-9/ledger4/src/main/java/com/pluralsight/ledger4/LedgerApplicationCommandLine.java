@@ -1,5 +1,6 @@
 package com.pluralsight.ledger4;
 
+import com.pluralsight.ledger4.models.Money;
 import com.pluralsight.ledger4.models.Transaction;
 import com.pluralsight.ledger4.services.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -73,8 +74,7 @@ public class LedgerApplicationCommandLine implements CommandLineRunner {
     private void addTransaction(Scanner scanner) {
         // This method adds a new transaction based on user input.
         System.out.print("Enter transaction amount: ");
-        double amount = scanner.nextDouble();
-        scanner.nextLine(); // Consumes the newline character.
+        Money amount = Money.parse(scanner.nextLine().trim()); // Parsed to exact cents, never through a double.
         System.out.print("Enter vendor name: ");
         String vendor = scanner.nextLine();
 
@@ -99,8 +99,7 @@ public class LedgerApplicationCommandLine implements CommandLineRunner {
         }
 
         System.out.print("Enter new transaction amount: ");
-        double amount = scanner.nextDouble();
-        scanner.nextLine(); // Consumes the newline character.
+        Money amount = Money.parse(scanner.nextLine().trim()); // Parsed to exact cents, never through a double.
         System.out.print("Enter new vendor name: ");
         String vendor = scanner.nextLine();
 
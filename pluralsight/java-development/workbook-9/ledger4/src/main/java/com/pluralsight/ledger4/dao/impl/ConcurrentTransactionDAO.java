@@ -0,0 +1,130 @@
+package com.pluralsight.ledger4.dao.impl;
+
+import com.pluralsight.ledger4.dao.interfaces.ITransactionDAO;
+import com.pluralsight.ledger4.models.Money;
+import com.pluralsight.ledger4.models.Transaction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory ITransactionDAO that is safe to share between threads.
+ * <p>
+ * Transactions are kept in a ConcurrentHashMap keyed by ID, so lookups, updates and
+ * deletes don't scan, and IDs come from an AtomicInteger instead of "max + 1".
+ * A second map from vendor to IDs serves getTransactionsByVendor. Writes to the same
+ * ID are serialized by the map's per-key locking; reads never take a lock and see
+ * a weakly consistent view that concurrent writers are free to change underneath.
+ * <p>
+ * The DAO stores and hands out copies, so a caller changing a Transaction it got
+ * back can't move it to another vendor without the index knowing.
+ * <p>
+ * JdbcTransactionDAO is the bean this application runs with; this one is the
+ * in-memory stand-in for tests and local caching.
+ */
+public class ConcurrentTransactionDAO implements ITransactionDAO {
+    private final ConcurrentMap<Integer, Transaction> transactions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Integer>> idsByVendor = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public ConcurrentTransactionDAO() {
+        // Add some initial transactions
+        add(new Transaction(Money.parse("150.75"), "Amazon"));
+        add(new Transaction(Money.parse("89.99"), "Walmart"));
+        add(new Transaction(Money.parse("200.00"), "Best Buy"));
+    }
+
+    @Override
+    public Transaction add(Transaction transaction) {
+        int transactionId = sequence.incrementAndGet();
+        transaction.setTransactionId(transactionId);
+        transactions.compute(transactionId, (id, ignored) -> {
+            Transaction stored = copyOf(id, transaction);
+            index(stored);
+            return stored;
+        });
+        return transaction;
+    }
+
+    @Override
+    public List<Transaction> getAllTransactions() {
+        List<Transaction> snapshot = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions.values()) {
+            snapshot.add(copyOf(transaction.getTransactionId(), transaction));
+        }
+        snapshot.sort(Comparator.comparing(Transaction::getTransactionId));
+        return snapshot;
+    }
+
+    @Override
+    public Transaction getTransactionById(int transactionId) {
+        Transaction transaction = transactions.get(transactionId);
+        return transaction == null ? null : copyOf(transactionId, transaction);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsByVendor(String vendor) {
+        List<Transaction> matches = new ArrayList<>();
+        Set<Integer> ids = vendor == null ? null : idsByVendor.get(vendor);
+        if (ids == null) {
+            return matches;
+        }
+        for (Integer id : ids) {
+            Transaction transaction = transactions.get(id);
+            // The ID can still be listed for a moment after a writer moved or deleted it.
+            if (transaction != null && vendor.equals(transaction.getVendor())) {
+                matches.add(copyOf(id, transaction));
+            }
+        }
+        matches.sort(Comparator.comparing(Transaction::getTransactionId));
+        return matches;
+    }
+
+    @Override
+    public void update(int transactionId, Transaction transaction) {
+        transactions.computeIfPresent(transactionId, (id, existing) -> {
+            Transaction stored = copyOf(id, transaction);
+            unindex(existing);
+            index(stored);
+            return stored;
+        });
+    }
+
+    @Override
+    public void delete(int transactionId) {
+        transactions.computeIfPresent(transactionId, (id, existing) -> {
+            unindex(existing);
+            return null;
+        });
+    }
+
+    private void index(Transaction transaction) {
+        if (transaction.getVendor() != null) {
+            // Added inside compute so it can't race unindex dropping the same vendor's empty set.
+            idsByVendor.compute(transaction.getVendor(), (vendor, ids) -> {
+                Set<Integer> updated = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                updated.add(transaction.getTransactionId());
+                return updated;
+            });
+        }
+    }
+
+    private void unindex(Transaction transaction) {
+        if (transaction.getVendor() != null) {
+            // Drops the vendor's entry once its last ID is gone, so the index doesn't keep every vendor ever seen.
+            idsByVendor.computeIfPresent(transaction.getVendor(), (vendor, ids) -> {
+                ids.remove(transaction.getTransactionId());
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static Transaction copyOf(int transactionId, Transaction transaction) {
+        return new Transaction(transactionId, transaction.getAmount(), transaction.getVendor());
+    }
+}
@@ -1,6 +1,7 @@
 package com.pluralsight.ledger4.dao.impl;
 
 import com.pluralsight.ledger4.dao.interfaces.ITransactionDAO;
+import com.pluralsight.ledger4.models.Money;
 import com.pluralsight.ledger4.models.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -43,17 +44,17 @@ public class JdbcTransactionDAO implements ITransactionDAO {
                     String insertDataQuery = "INSERT INTO transactions (amount, vendor) VALUES (?, ?)";
                     try (PreparedStatement insertDataStatement = connection.prepareStatement(insertDataQuery)) {
                         // Insert first transaction.
-                        insertDataStatement.setDouble(1, 2000.00);
+                        MoneyColumns.set(insertDataStatement, 1, Money.ofCents(200000));
                         insertDataStatement.setString(2, "Raymond");
                         insertDataStatement.executeUpdate();
 
                         // Insert second transaction.
-                        insertDataStatement.setDouble(1, 2500.00);
+                        MoneyColumns.set(insertDataStatement, 1, Money.ofCents(250000));
                         insertDataStatement.setString(2, "John");
                         insertDataStatement.executeUpdate();
 
                         // Insert third transaction.
-                        insertDataStatement.setDouble(1, 4000.00);
+                        MoneyColumns.set(insertDataStatement, 1, Money.ofCents(400000));
                         insertDataStatement.setString(2, "Jane");
                         insertDataStatement.executeUpdate();
                     }
@@ -71,7 +72,7 @@ public class JdbcTransactionDAO implements ITransactionDAO {
         try (Connection connection = dataSource.getConnection();
              PreparedStatement insertStatement = connection.prepareStatement(insertDataQuery, Statement.RETURN_GENERATED_KEYS)) {
             // Setting parameters for the insert query.
-            insertStatement.setDouble(1, transaction.getAmount());
+            MoneyColumns.set(insertStatement, 1, transaction.getAmount());
             insertStatement.setString(2, transaction.getVendor());
             int affectedRows = insertStatement.executeUpdate(); // Execute the insert query.
 
@@ -106,7 +107,7 @@ public class JdbcTransactionDAO implements ITransactionDAO {
             while (resultSet.next()) {
                 // Extract data from each row in the result set.
                 int transactionId = resultSet.getInt("transaction_id");
-                double amount = resultSet.getDouble("amount");
+                Money amount = MoneyColumns.get(resultSet, "amount");
                 String vendor = resultSet.getString("vendor");
                 // Create a Transaction object and add it to the list.
                 transactions.add(new Transaction(transactionId, amount, vendor));
@@ -130,7 +131,7 @@ public class JdbcTransactionDAO implements ITransactionDAO {
                 if (resultSet.next()) {
                     // Extract data from the result set.
                     int transactionIdFromDb = resultSet.getInt("transaction_id");
-                    double amount = resultSet.getDouble("amount");
+                    Money amount = MoneyColumns.get(resultSet, "amount");
                     String vendor = resultSet.getString("vendor");
                     // Create a Transaction object.
                     transaction = new Transaction(transactionIdFromDb, amount, vendor);
@@ -142,6 +143,30 @@ public class JdbcTransactionDAO implements ITransactionDAO {
         return transaction; // Return the found transaction or null.
     }
 
+    @Override
+    public List<Transaction> getTransactionsByVendor(String vendor) {
+        // This method retrieves all transactions for a single vendor.
+        List<Transaction> transactions = new ArrayList<>();
+        String getByVendorQuery = "SELECT * FROM transactions WHERE vendor = ?";
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement selectStatement = connection.prepareStatement(getByVendorQuery)) {
+            selectStatement.setString(1, vendor); // Set the vendor parameter in the query.
+            try (ResultSet resultSet = selectStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    // Extract data from each row in the result set.
+                    int transactionId = resultSet.getInt("transaction_id");
+                    Money amount = MoneyColumns.get(resultSet, "amount");
+                    String vendorFromDb = resultSet.getString("vendor");
+                    transactions.add(new Transaction(transactionId, amount, vendorFromDb));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace(); // Log or handle the SQL exception.
+        }
+        return transactions; // Return the vendor's transactions.
+    }
+
     @Override
     public void update(int transactionId, Transaction transaction) {
         // This method updates an existing transaction in the database.
@@ -149,7 +174,7 @@ public class JdbcTransactionDAO implements ITransactionDAO {
         try (Connection connection = dataSource.getConnection();
              PreparedStatement updateStatement = connection.prepareStatement(updateDataQuery)) {
             // Setting parameters for the update query.
-            updateStatement.setDouble(1, transaction.getAmount());
+            MoneyColumns.set(updateStatement, 1, transaction.getAmount());
             updateStatement.setString(2, transaction.getVendor());
             updateStatement.setInt(3, transactionId);
             updateStatement.executeUpdate(); // Execute the update query.
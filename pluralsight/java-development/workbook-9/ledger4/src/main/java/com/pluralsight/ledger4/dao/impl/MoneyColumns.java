@@ -0,0 +1,29 @@
+package com.pluralsight.ledger4.dao.impl;
+
+import com.pluralsight.ledger4.models.Money;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JDBC binding for Money against DECIMAL(10, 2) columns. It goes through
+ * BigDecimal, which both drivers map to DECIMAL exactly, instead of
+ * setDouble/getDouble.
+ */
+final class MoneyColumns {
+
+    private MoneyColumns() {
+    }
+
+    static void set(PreparedStatement statement, int index, Money amount) throws SQLException {
+        statement.setBigDecimal(index, amount == null ? null : amount.toBigDecimal());
+    }
+
+    static Money get(ResultSet resultSet, String column) throws SQLException {
+        BigDecimal amount = resultSet.getBigDecimal(column);
+        return amount == null ? null : Money.of(amount);
+    }
+
+}
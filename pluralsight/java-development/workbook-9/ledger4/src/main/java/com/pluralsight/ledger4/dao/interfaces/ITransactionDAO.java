@@ -33,6 +33,14 @@ public interface ITransactionDAO {
      */
     Transaction getTransactionById(int transactionId);
 
+    /**
+     * Retrieves all transactions for a vendor.
+     *
+     * @param vendor The vendor name, matched exactly.
+     * @return A list of the vendor's transactions, empty if there are none.
+     */
+    List<Transaction> getTransactionsByVendor(String vendor);
+
     /**
      * Updates an existing transaction in the data store.
      *
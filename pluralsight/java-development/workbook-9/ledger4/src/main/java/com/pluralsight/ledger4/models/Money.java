@@ -0,0 +1,111 @@
+package com.pluralsight.ledger4.models;
+
+import java.math.BigDecimal;
+
+/**
+ * An amount of money held as a whole number of cents, so adding amounts is
+ * exact (0.10 + 0.20 is 0.30, not 0.30000000000000004) and totals can be kept
+ * in a primitive long.
+ * <p>
+ * In the database it is a DECIMAL(10, 2); see MoneyColumns for the JDBC side.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Exact conversion; amounts with more than two decimal places are rejected
+     * rather than rounded.
+     */
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofCents(amount.movePointRight(2).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Not a whole number of cents: " + amount.toPlainString());
+        }
+    }
+
+    /**
+     * Parses "12", "12.5", "-0.75" and the like without going through a double.
+     * Anything else a BigDecimal accepts (such as "1.5E2") is handled too.
+     */
+    public static Money parse(String text) {
+        int length = text.length();
+        int start = length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        long whole = 0;
+        long fraction = 0;
+        int fractionDigits = -1;
+
+        for (int i = start; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9' && fractionDigits < 2 && whole < Long.MAX_VALUE / 1000) {
+                if (fractionDigits < 0) {
+                    whole = whole * 10 + (c - '0');
+                } else {
+                    fraction = fraction * 10 + (c - '0');
+                    fractionDigits++;
+                }
+            } else {
+                return of(new BigDecimal(text));
+            }
+        }
+        if (length == start || (fractionDigits == 0 && length == start + 1)) {
+            throw new NumberFormatException("Not an amount: \"" + text + "\"");
+        }
+
+        long cents = whole * 100 + (fractionDigits == 1 ? fraction * 10 : fraction);
+        return ofCents(text.charAt(0) == '-' ? -cents : cents);
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money money && money.cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * Always two decimals ("2000.00").
+     */
+    @Override
+    public String toString() {
+        long units = Math.abs(cents / 100);
+        long remainder = Math.abs(cents % 100);
+        return (cents < 0 ? "-" : "") + units + (remainder < 10 ? ".0" : ".") + remainder;
+    }
+}
@@ -2,15 +2,15 @@ package com.pluralsight.ledger4.models;
 
 public class Transaction {
     private Integer transactionId;
-    private double amount;
+    private Money amount;
     private String vendor;
 
-    public Transaction(double amount, String vendor) {
+    public Transaction(Money amount, String vendor) {
         this.amount = amount;
         this.vendor = vendor;
     }
 
-    public Transaction(Integer transactionId, double amount, String vendor) {
+    public Transaction(Integer transactionId, Money amount, String vendor) {
         this.transactionId = transactionId;
         this.amount = amount;
         this.vendor = vendor;
@@ -24,11 +24,11 @@ public class Transaction {
         this.transactionId = transactionId;
     }
 
-    public double getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
@@ -56,6 +56,16 @@ public class TransactionService {
         return transactionDAO.getTransactionById(transactionId);
     }
 
+    /**
+     * Retrieves the transactions for a vendor.
+     *
+     * @param vendor the vendor name.
+     * @return the vendor's transactions.
+     */
+    public List<Transaction> getTransactionsByVendor(String vendor) {
+        return transactionDAO.getTransactionsByVendor(vendor);
+    }
+
     /**
      * Updates an existing transaction.
      *
@@ -0,0 +1,82 @@
+package com.pluralsight.ledger4.dao.impl;
+
+import com.pluralsight.ledger4.models.Money;
+import com.pluralsight.ledger4.models.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTransactionDAOTests {
+
+    @Test
+    void vendorIndexFollowsUpdatesAndDeletes() {
+        ConcurrentTransactionDAO dao = new ConcurrentTransactionDAO();
+        Transaction added = dao.add(new Transaction(Money.parse("10.00"), "Target"));
+
+        assertEquals(4, added.getTransactionId());
+        assertEquals(1, dao.getTransactionsByVendor("Target").size());
+
+        dao.update(added.getTransactionId(), new Transaction(Money.parse("12.50"), "Amazon"));
+        assertTrue(dao.getTransactionsByVendor("Target").isEmpty());
+        assertEquals(List.of(1, 4), ids(dao.getTransactionsByVendor("Amazon")));
+        assertEquals(Money.parse("12.50"), dao.getTransactionById(4).getAmount());
+
+        dao.delete(1);
+        assertNull(dao.getTransactionById(1));
+        assertEquals(List.of(4), ids(dao.getTransactionsByVendor("Amazon")));
+    }
+
+    @Test
+    void returnedTransactionsDoNotChangeTheStore() {
+        ConcurrentTransactionDAO dao = new ConcurrentTransactionDAO();
+
+        dao.getTransactionById(1).setVendor("Someone else");
+
+        assertEquals("Amazon", dao.getTransactionById(1).getVendor());
+        assertEquals(1, dao.getTransactionsByVendor("Amazon").size());
+    }
+
+    @Test
+    void concurrentWritersGetDistinctIds() throws Exception {
+        ConcurrentTransactionDAO dao = new ConcurrentTransactionDAO();
+        int threads = 8;
+        int perThread = 1000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                String vendor = "Vendor " + (t % 2);
+                futures[t] = executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        Transaction added = dao.add(new Transaction(Money.ofCents(i), vendor));
+                        if (i % 2 == 0) {
+                            dao.delete(added.getTransactionId());
+                        }
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Transaction> all = dao.getAllTransactions();
+        assertEquals(3 + threads * perThread / 2, all.size());
+        assertEquals(all.size(), new HashSet<>(ids(all)).size());
+        assertEquals(threads * perThread / 4, dao.getTransactionsByVendor("Vendor 0").size());
+        assertEquals(threads * perThread / 4, dao.getTransactionsByVendor("Vendor 1").size());
+    }
+
+    private static List<Integer> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getTransactionId).toList();
+    }
+}
@@ -1,29 +1,78 @@
 package com.pluralsight.ledgerapi6.config;
 
+import com.pluralsight.ledgerapi6.metrics.ConnectionPoolMetrics;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 import javax.sql.DataSource;
 
 @Configuration
 public class DbConfiguration {
     private BasicDataSource basicDataSource;
+    private ConnectionPoolMetrics connectionPoolMetrics;
+    private DataSource dataSource;
+    private BasicDataSource exportDataSource;
 
     @Bean
+    @Primary
     public DataSource dataSource() {
-        return basicDataSource;
+        return dataSource;
+    }
+
+    /**
+     * A few connections of their own for GET /transactions/export, so settings
+     * that only suit a long streaming read (server-side cursors on MySQL) stay off
+     * the connections every other query uses.
+     */
+    @Bean
+    public DataSource exportDataSource() {
+        return exportDataSource;
+    }
+
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return connectionPoolMetrics;
     }
 
     public DbConfiguration(@Value("${datasource.url}") String url,
                            @Value("${datasource.username}") String username,
-                           @Value("${datasource.password}") String password
+                           @Value("${datasource.password}") String password,
+                           ConnectionPoolProperties poolProperties,
+                           @Value("${datasource.bulkhead.enabled:false}") boolean bulkheadEnabled,
+                           @Value("${datasource.bulkhead.timeout-ms:5000}") long bulkheadTimeoutMillis,
+                           @Value("${datasource.export.max-total:2}") int exportMaxTotal,
+                           @Value("${datasource.export.connection-properties:}") String exportConnectionProperties
     ) {
         basicDataSource = new BasicDataSource();
         basicDataSource.setUrl(url);
         basicDataSource.setUsername(username);
         basicDataSource.setPassword(password);
+        poolProperties.applyTo(basicDataSource);
+
+        connectionPoolMetrics = new ConnectionPoolMetrics(basicDataSource);
+        dataSource = new PoolMetricsDataSource(basicDataSource, connectionPoolMetrics);
+
+        // The bulkhead gets one permit per pooled connection, so the DAO never
+        // asks DBCP for more connections than it can hand out.
+        if (bulkheadEnabled) {
+            dataSource = new BulkheadDataSource(dataSource, basicDataSource.getMaxTotal(), bulkheadTimeoutMillis);
+        }
+
+        exportDataSource = new BasicDataSource();
+        exportDataSource.setUrl(url);
+        exportDataSource.setUsername(username);
+        exportDataSource.setPassword(password);
+        poolProperties.applyTo(exportDataSource);
+        exportDataSource.setInitialSize(0);
+        exportDataSource.setMinIdle(0);
+        exportDataSource.setMaxTotal(exportMaxTotal);
+        exportDataSource.setMaxIdle(exportMaxTotal);
+        if (!exportConnectionProperties.isBlank()) {
+            exportDataSource.setConnectionProperties(exportConnectionProperties);
+        }
     }
 }
 
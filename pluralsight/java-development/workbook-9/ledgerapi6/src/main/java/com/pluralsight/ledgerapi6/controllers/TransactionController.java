@@ -1,30 +1,100 @@
 package com.pluralsight.ledgerapi6.controllers;
 
 import com.pluralsight.ledgerapi6.dao.interfaces.ITransactionDAO;
+import com.pluralsight.ledgerapi6.dao.interfaces.ITransactionHistory;
+import com.pluralsight.ledgerapi6.dao.interfaces.VersionConflictException;
+import com.pluralsight.ledgerapi6.models.RollupBucket;
 import com.pluralsight.ledgerapi6.models.Transaction;
+import com.pluralsight.ledgerapi6.models.TransactionRollup;
+import com.pluralsight.ledgerapi6.models.TransactionSummary;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 @RestController
 public class TransactionController {
     private final ITransactionDAO transactionDAO;
+    private final Optional<ITransactionHistory> transactionHistory; // Only the event log backend keeps history.
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public TransactionController(ITransactionDAO transactionDAO) {
+    public TransactionController(ITransactionDAO transactionDAO, Optional<ITransactionHistory> transactionHistory,
+                                 ObjectMapper objectMapper) {
         this.transactionDAO = transactionDAO;
+        this.transactionHistory = transactionHistory;
+        this.objectMapper = objectMapper;
     }
 
     @RequestMapping(path = "/transactions", method = RequestMethod.GET)
-    public List<Transaction> getAllTransactions() {
+    public List<Transaction> getAllTransactions(@RequestParam(required = false) Instant asOf) {
+        if (asOf != null) {
+            return history().getAllTransactionsAsOf(asOf);
+        }
         return transactionDAO.getAllTransactions();
     }
 
+    /**
+     * Every transaction as newline-delimited JSON, in ID order, written as it is read
+     * so memory use doesn't grow with the ledger. To resume an interrupted export,
+     * pass the transactionId of the last complete line as after.
+     */
+    @RequestMapping(path = "/transactions/export", method = RequestMethod.GET)
+    public void exportTransactions(@RequestParam(defaultValue = "0") int after, HttpServletResponse response) throws IOException {
+        if (after < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "after must not be negative");
+        }
+        // Written on this request thread rather than as an async StreamingResponseBody, which would time out on large ledgers.
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        // Each line ends with its own newline, so no separator between root values.
+        ObjectWriter writer = objectMapper.writerFor(Transaction.class).withRootValueSeparator("");
+        try (JsonGenerator generator = writer.createGenerator(response.getOutputStream())) {
+            transactionDAO.exportTransactions(after, transaction -> {
+                generator.writePOJO(transaction);
+                generator.writeRaw('\n');
+            });
+        }
+    }
+
+    @RequestMapping(path = "/transactions/summary", method = RequestMethod.GET)
+    public TransactionSummary getSummary() {
+        return transactionDAO.getSummary();
+    }
+
+    @RequestMapping(path = "/transactions/rollup", method = RequestMethod.GET)
+    public TransactionRollup getRollup(@RequestParam Instant from, @RequestParam Instant to,
+                                       @RequestParam(defaultValue = "hour") String bucket) {
+        RollupBucket rollupBucket;
+        try {
+            rollupBucket = RollupBucket.valueOf(bucket.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bucket must be minute, hour or day");
+        }
+        try {
+            return transactionDAO.getRollup(from, to, rollupBucket);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @RequestMapping(path = "/transactions/{transactionId}", method = RequestMethod.GET)
-    public Transaction getTransactionById(@PathVariable int transactionId) {
-        return transactionDAO.getTransactionById(transactionId);
+    public ResponseEntity<Transaction> getTransactionById(@PathVariable int transactionId, @RequestParam(required = false) Instant asOf) {
+        if (asOf != null) {
+            return withETag(history().getTransactionByIdAsOf(transactionId, asOf));
+        }
+        return withETag(transactionDAO.getTransactionById(transactionId));
     }
 
     @RequestMapping(path = "/transactions", method = RequestMethod.POST)
@@ -33,9 +103,19 @@ public class TransactionController {
         return transactionDAO.add(transaction);
     }
 
+    /**
+     * Replaces a transaction only if it is still at the version the client last saw,
+     * taken from If-Match or else the version in the body. Without either, the last
+     * writer wins. A stale version gets 409 with the current transaction.
+     */
     @RequestMapping(path = "/transactions/{transactionId}", method = RequestMethod.PUT)
-    public void updateTransaction(@PathVariable int transactionId, @RequestBody Transaction transaction) {
-        transactionDAO.update(transactionId, transaction);
+    public ResponseEntity<Transaction> updateTransaction(@PathVariable int transactionId, @RequestBody Transaction transaction,
+                                                         @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        Transaction updated = transactionDAO.update(transactionId, transaction, expectedVersion(ifMatch, transaction.getVersion()));
+        if (updated == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No transaction " + transactionId);
+        }
+        return withETag(updated);
     }
 
     @RequestMapping(path = "/transactions/{transactionId}", method = RequestMethod.DELETE)
@@ -43,4 +123,44 @@ public class TransactionController {
     public void deleteTransaction(@PathVariable int transactionId) {
         transactionDAO.delete(transactionId);
     }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<Transaction> versionConflict(VersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).eTag(eTag(e.getCurrent())).body(e.getCurrent());
+    }
+
+    private static ResponseEntity<Transaction> withETag(Transaction transaction) {
+        if (transaction == null || transaction.getVersion() == null) {
+            return ResponseEntity.ok(transaction);
+        }
+        return ResponseEntity.ok().eTag(eTag(transaction)).body(transaction);
+    }
+
+    private static String eTag(Transaction transaction) {
+        return "\"" + transaction.getVersion() + "\"";
+    }
+
+    private static Integer expectedVersion(String ifMatch, Integer bodyVersion) {
+        if (ifMatch == null) {
+            return bodyVersion;
+        }
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null; // Any current version will do.
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Integer.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Falls through; not one of ours.
+            }
+        }
+        // Weak or unknown tags can never match the strong ETags handed out above.
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match must be an ETag from this API");
+    }
+
+    private ITransactionHistory history() {
+        return transactionHistory.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED,
+                "Point-in-time reads need ledger.store=eventlog"));
+    }
 }
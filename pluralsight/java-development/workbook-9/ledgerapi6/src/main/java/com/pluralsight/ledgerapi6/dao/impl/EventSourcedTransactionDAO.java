@@ -0,0 +1,364 @@
+package com.pluralsight.ledgerapi6.dao.impl;
+
+import com.pluralsight.ledgerapi6.dao.interfaces.ITransactionDAO;
+import com.pluralsight.ledgerapi6.dao.interfaces.ITransactionHistory;
+import com.pluralsight.ledgerapi6.dao.interfaces.VersionConflictException;
+import com.pluralsight.ledgerapi6.eventlog.EventLog;
+import com.pluralsight.ledgerapi6.eventlog.LedgerState;
+import com.pluralsight.ledgerapi6.eventlog.SnapshotStore;
+import com.pluralsight.ledgerapi6.eventlog.TransactionEvent;
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.RollupBucket;
+import com.pluralsight.ledgerapi6.models.Transaction;
+import com.pluralsight.ledgerapi6.models.TransactionRollup;
+import com.pluralsight.ledgerapi6.models.TransactionSummary;
+import com.pluralsight.ledgerapi6.summary.TransactionRollups;
+import com.pluralsight.ledgerapi6.summary.VendorAggregates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * ITransactionDAO backed by an append-only event log on local disk instead of the
+ * transactions table. Enabled with ledger.store=eventlog.
+ * <p>
+ * Every add, update and delete appends an immutable event; nothing is overwritten,
+ * so the full history is kept and point-in-time reads are possible. Reads are
+ * served from an in-memory index folded from the events. Every snapshot-every
+ * events the index is written out as a snapshot, so a restart loads the newest
+ * snapshot and replays only the events after it.
+ * <p>
+ * Writers are ordered by a short lock that checks the write against the ledger
+ * plus the writes still in flight and queues its event, then wait for the log's
+ * group commit outside it, so many concurrent writes share one fsync. Events are
+ * applied to the in-memory index, summary and rollups only once they are on disk,
+ * in log order: readers never see a write that could still be lost, and a write
+ * whose fsync fails leaves nothing behind. A write returns once it is applied.
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.store", havingValue = "eventlog")
+public class EventSourcedTransactionDAO implements ITransactionDAO, ITransactionHistory, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(EventSourcedTransactionDAO.class);
+
+    private final EventLog eventLog;
+    private final SnapshotStore snapshotStore;
+    private final VendorAggregates vendorAggregates;
+    private final TransactionRollups transactionRollups;
+    private final int snapshotEvery;
+
+    private final Object writeLock = new Object();
+    private final LedgerState state = new LedgerState(new ConcurrentHashMap<>());
+    // Guarded by writeLock: the log position including writes that aren't durable yet.
+    private long sequence;
+    private int lastTransactionId;
+    private long lastTimestamp;
+
+    // Appended events in sequence order, and the newest one per transaction, until they're applied or fail.
+    private final Queue<PendingWrite> inFlight = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, PendingWrite> latestWrites = new ConcurrentHashMap<>();
+
+    private final Object applyLock = new Object();
+    private int eventsSinceSnapshot; // Guarded by applyLock.
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ledger-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public EventSourcedTransactionDAO(@Value("${ledger.eventlog.directory:data/ledger}") String directory,
+                                      @Value("${ledger.eventlog.segment-bytes:67108864}") long segmentBytes,
+                                      @Value("${ledger.eventlog.max-batch:512}") int maxBatch,
+                                      @Value("${ledger.eventlog.snapshot-every:10000}") int snapshotEvery,
+                                      @Value("${ledger.eventlog.snapshots-kept:3}") int snapshotsKept,
+                                      VendorAggregates vendorAggregates,
+                                      TransactionRollups transactionRollups) throws IOException {
+        Path path = Path.of(directory);
+        this.eventLog = new EventLog(path.resolve("events"), segmentBytes, maxBatch);
+        this.snapshotStore = new SnapshotStore(path.resolve("snapshots"), snapshotsKept);
+        this.vendorAggregates = vendorAggregates;
+        this.transactionRollups = transactionRollups;
+        this.snapshotEvery = snapshotEvery;
+
+        // Start from the newest snapshot and replay only the events after it.
+        LedgerState snapshot = snapshotStore.loadLatest();
+        state.load(snapshot);
+        eventLog.recover(snapshot.getSequence(), event -> {
+            state.apply(event);
+            eventsSinceSnapshot++;
+        });
+        sequence = state.getSequence();
+        lastTransactionId = state.getLastTransactionId();
+        lastTimestamp = state.getTimestamp();
+
+        vendorAggregates.clear();
+        transactionRollups.clear();
+        for (Transaction transaction : state.getAll()) {
+            vendorAggregates.append(transaction.getVendor(), transaction.getAmount().getCents());
+            transactionRollups.add(transaction.getCreatedAt(), transaction.getAmount());
+        }
+
+        if (state.getSequence() == 0) {
+            // A brand-new log gets the same starter rows JdbcTransactionDAO seeds an empty table with.
+            add(new Transaction(null, Money.ofCents(200000), "Raymond"));
+            add(new Transaction(null, Money.ofCents(250000), "John"));
+            add(new Transaction(null, Money.ofCents(400000), "Jane"));
+        }
+    }
+
+    @Override
+    public List<Transaction> getAllTransactions() {
+        return sortedCopies(state.getAll());
+    }
+
+    @Override
+    public void exportTransactions(int afterTransactionId, Consumer<Transaction> consumer) {
+        // IDs are dense and increasing, so walking them gives ID order without sorting a copy of everything.
+        int lastTransactionId = state.getLastTransactionId();
+        for (int transactionId = afterTransactionId + 1; transactionId <= lastTransactionId; transactionId++) {
+            Transaction transaction = state.get(transactionId);
+            if (transaction != null) {
+                consumer.accept(copyOf(transaction));
+            }
+        }
+    }
+
+    @Override
+    public Transaction getTransactionById(int transactionId) {
+        return copyOf(state.get(transactionId));
+    }
+
+    @Override
+    public Transaction add(Transaction transaction) {
+        PendingWrite write;
+        synchronized (writeLock) {
+            TransactionEvent event = nextEvent(TransactionEvent.Type.CREATE, lastTransactionId + 1, transaction);
+            write = append(event, new Transaction(event.getTransactionId(), transaction.getAmount(), transaction.getVendor(),
+                    Instant.ofEpochMilli(event.getTimestamp()), 0));
+            lastTransactionId = event.getTransactionId();
+        }
+        awaitDurable(write);
+        transaction.setTransactionId(write.after.getTransactionId());
+        transaction.setCreatedAt(write.after.getCreatedAt());
+        transaction.setVersion(0);
+        return transaction;
+    }
+
+    @Override
+    public Transaction update(int transactionId, Transaction transaction, Integer expectedVersion) {
+        PendingWrite write;
+        synchronized (writeLock) {
+            Transaction previous = latest(transactionId);
+            if (previous == null) {
+                return null; // Same as an UPDATE that matches no row.
+            }
+            if (expectedVersion != null && !expectedVersion.equals(previous.getVersion())) {
+                throw new VersionConflictException(copyOf(previous));
+            }
+            TransactionEvent event = nextEvent(TransactionEvent.Type.UPDATE, transactionId, transaction);
+            // Same as LedgerState.apply: the creation time stays and the version goes up.
+            write = append(event, new Transaction(transactionId, transaction.getAmount(), transaction.getVendor(),
+                    previous.getCreatedAt(), previous.getVersion() + 1));
+        }
+        awaitDurable(write);
+        return copyOf(write.after);
+    }
+
+    @Override
+    public void delete(int transactionId) {
+        PendingWrite write;
+        synchronized (writeLock) {
+            if (latest(transactionId) == null) {
+                return;
+            }
+            write = append(nextEvent(TransactionEvent.Type.DELETE, transactionId, null), null);
+        }
+        awaitDurable(write);
+    }
+
+    @Override
+    public TransactionSummary getSummary() {
+        return vendorAggregates.snapshot();
+    }
+
+    @Override
+    public TransactionRollup getRollup(Instant from, Instant to, RollupBucket bucket) {
+        return transactionRollups.query(from, to, bucket);
+    }
+
+    @Override
+    public List<Transaction> getAllTransactionsAsOf(Instant asOf) {
+        return sortedCopies(stateAsOf(asOf).getAll());
+    }
+
+    @Override
+    public Transaction getTransactionByIdAsOf(int transactionId, Instant asOf) {
+        return copyOf(stateAsOf(asOf).get(transactionId));
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // A pending snapshot waits on the log, so let it finish before the log stops.
+        snapshotWriter.shutdown();
+        snapshotWriter.awaitTermination(30, TimeUnit.SECONDS);
+        eventLog.close();
+    }
+
+    // Rebuilds the ledger at a moment from the newest snapshot before it plus the events up to it.
+    private LedgerState stateAsOf(Instant asOf) {
+        long millis = asOf.toEpochMilli();
+        try {
+            LedgerState past = snapshotStore.loadLatestAtOrBefore(millis);
+            eventLog.read(past.getSequence(), event -> {
+                if (event.getTimestamp() > millis) {
+                    return false;
+                }
+                past.apply(event);
+                return true;
+            });
+            return past;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TransactionEvent nextEvent(TransactionEvent.Type type, int transactionId, Transaction transaction) {
+        // Timestamps never go backwards, so "events up to time T" is always a prefix of the log.
+        lastTimestamp = Math.max(lastTimestamp, System.currentTimeMillis());
+        long cents = transaction == null ? 0 : transaction.getAmount().getCents();
+        String vendor = transaction == null ? null : transaction.getVendor();
+        return new TransactionEvent(sequence + 1, lastTimestamp, type, transactionId, cents, vendor);
+    }
+
+    // The transaction as the next write should see it: its newest in-flight version, else the applied one.
+    private Transaction latest(int transactionId) {
+        PendingWrite write = latestWrites.get(transactionId);
+        return write != null ? write.after : state.get(transactionId);
+    }
+
+    /**
+     * @param after The transaction once the event is applied, or null for a delete.
+     */
+    private PendingWrite append(TransactionEvent event, Transaction after) {
+        CompletableFuture<Void> written = eventLog.append(event);
+        if (written.isCompletedExceptionally()) {
+            join(written); // The log has failed; throws without queueing anything.
+        }
+        sequence = event.getSequence();
+        PendingWrite write = new PendingWrite(event, after, written);
+        inFlight.add(write);
+        latestWrites.put(event.getTransactionId(), write);
+        return write;
+    }
+
+    private void awaitDurable(PendingWrite write) {
+        try {
+            join(write.written);
+        } finally {
+            applyDurable(); // Also drops a failed write, so it never reaches the ledger.
+        }
+    }
+
+    private static void join(CompletableFuture<Void> written) {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // The log completes appends in order, so whoever gets here applies every durable event still queued.
+    private void applyDurable() {
+        synchronized (applyLock) {
+            PendingWrite write;
+            while ((write = inFlight.peek()) != null && write.written.isDone()) {
+                inFlight.poll();
+                if (!write.written.isCompletedExceptionally()) {
+                    apply(write.event);
+                }
+                // Applied first, so a writer that misses the pending version finds it in the state.
+                latestWrites.remove(write.event.getTransactionId(), write);
+            }
+        }
+    }
+
+    private void apply(TransactionEvent event) {
+        Transaction previous = state.get(event.getTransactionId());
+        state.apply(event);
+        Transaction current = state.get(event.getTransactionId());
+        switch (event.getType()) {
+            case CREATE -> {
+                vendorAggregates.add(current.getVendor(), current.getAmount());
+                transactionRollups.add(current.getCreatedAt(), current.getAmount());
+            }
+            case UPDATE -> {
+                vendorAggregates.replace(previous.getVendor(), previous.getAmount(), current.getVendor(), current.getAmount());
+                transactionRollups.remove(previous.getCreatedAt(), previous.getAmount());
+                transactionRollups.add(current.getCreatedAt(), current.getAmount());
+            }
+            case DELETE -> {
+                vendorAggregates.remove(previous.getVendor(), previous.getAmount());
+                transactionRollups.remove(previous.getCreatedAt(), previous.getAmount());
+            }
+        }
+        maybeSnapshot();
+    }
+
+    private void maybeSnapshot() {
+        if (++eventsSinceSnapshot < snapshotEvery) {
+            return;
+        }
+        eventsSinceSnapshot = 0;
+        // The state only holds durable events, so a restart never sees rows the log doesn't have.
+        LedgerState copy = state.copy();
+        snapshotWriter.execute(() -> {
+            try {
+                snapshotStore.write(copy);
+            } catch (IOException e) {
+                // The next snapshot will cover these events; until then a restart replays more of the log.
+                logger.warn("Could not write ledger snapshot", e);
+            }
+        });
+    }
+
+    private static List<Transaction> sortedCopies(Iterable<Transaction> transactions) {
+        List<Transaction> copies = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            copies.add(copyOf(transaction));
+        }
+        copies.sort(Comparator.comparing(Transaction::getTransactionId));
+        return copies;
+    }
+
+    private record PendingWrite(TransactionEvent event, Transaction after, CompletableFuture<Void> written) {
+    }
+
+    // Stored transactions are shared with snapshots, so callers only ever get copies.
+    private static Transaction copyOf(Transaction transaction) {
+        return transaction == null ? null
+                : new Transaction(transaction.getTransactionId(), transaction.getAmount(), transaction.getVendor(),
+                        transaction.getCreatedAt(), transaction.getVersion());
+    }
+}
@@ -1,72 +1,97 @@
 package com.pluralsight.ledgerapi6.dao.impl;
 
 import com.pluralsight.ledgerapi6.dao.interfaces.ITransactionDAO;
+import com.pluralsight.ledgerapi6.dao.interfaces.VersionConflictException;
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.RollupBucket;
 import com.pluralsight.ledgerapi6.models.Transaction;
+import com.pluralsight.ledgerapi6.models.TransactionRollup;
+import com.pluralsight.ledgerapi6.models.TransactionSummary;
+import com.pluralsight.ledgerapi6.summary.TransactionRollups;
+import com.pluralsight.ledgerapi6.summary.VendorAggregates;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.sql.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 @Component
+@ConditionalOnProperty(name = "ledger.store", havingValue = "jdbc", matchIfMissing = true) // The default backend; see EventSourcedTransactionDAO.
 public class JdbcTransactionDAO implements ITransactionDAO {
 
     private DataSource dataSource;
+    private DataSource exportDataSource; // Its own small pool; see DbConfiguration.exportDataSource.
+    private VendorAggregates vendorAggregates; // Per-vendor summary, kept in step with every write below.
+    private TransactionRollups transactionRollups; // Minute/hour/day totals, kept in step the same way.
+
+    private final int exportFetchSize; // Rows per round trip when streaming an export.
+    private final CompletableFuture<Void> ready; // Completes once the schema is in place and the summary is loaded.
+    // Held only while one compare-and-set runs and its summary change is applied, so two writes that
+    // succeed one after the other on the same row also reach the summary in that order. Not a row lock:
+    // nothing is held between requests, and other instances are kept apart by the version check alone.
+    private final ReentrantLock[] writeOrderLocks = new ReentrantLock[64];
 
     @Autowired
-    public JdbcTransactionDAO(DataSource dataSource) {
+    public JdbcTransactionDAO(DataSource dataSource, @Qualifier("exportDataSource") DataSource exportDataSource, VendorAggregates vendorAggregates, TransactionRollups transactionRollups,
+                              @Value("${ledger.bootstrap.schema-location:classpath:db/schema}") String schemaLocation,
+                              @Value("${ledger.bootstrap.seed-file:classpath:db/seed/transactions.csv}") String seedFile,
+                              @Value("${ledger.bootstrap.batch-size:1000}") int batchSize,
+                              @Value("${ledger.export.fetch-size:10000}") int exportFetchSize) {
         this.dataSource = dataSource;
-        initialize(); // Initialize database tables and data on startup.
+        this.exportDataSource = exportDataSource;
+        this.vendorAggregates = vendorAggregates;
+        this.transactionRollups = transactionRollups;
+        this.exportFetchSize = exportFetchSize;
+        for (int i = 0; i < writeOrderLocks.length; i++) {
+            writeOrderLocks[i] = new ReentrantLock();
+        }
+        // Schema and seed data are brought up to date in the background so startup doesn't wait on them.
+        SchemaBootstrap bootstrap = new SchemaBootstrap(dataSource, schemaLocation, seedFile, batchSize);
+        this.ready = bootstrap.start().thenRun(this::loadAggregates); // Build the summary and rollups from the existing rows, once.
     }
 
-    private void initialize() {
-        // This method sets up the database table and populates it with initial data if necessary.
-        try (Connection connection = dataSource.getConnection()) {
-            // SQL statement to create a transactions table if it does not exist.
-            String createTableQuery = "CREATE TABLE IF NOT EXISTS transactions (" +
-                    "transaction_id INT PRIMARY KEY AUTO_INCREMENT," +
-                    "amount DECIMAL(10, 2) NOT NULL," +
-                    "vendor VARCHAR(255) NOT NULL" +
-                    ")";
-            try (PreparedStatement createTableStatement = connection.prepareStatement(createTableQuery)) {
-                createTableStatement.execute(); // Execute the table creation query.
-            }
+    private void awaitReady() {
+        // Only the first requests after startup can actually wait here.
+        try {
+            ready.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Transactions schema could not be initialized", e.getCause());
+        }
+    }
 
-            // Check if the table has any data already.
-            String countQuery = "SELECT COUNT(*) AS rowCount FROM transactions";
-            try (PreparedStatement countStatement = connection.prepareStatement(countQuery);
-                 ResultSet resultSet = countStatement.executeQuery()) {
-                if (resultSet.next() && resultSet.getInt("rowCount") == 0) {
-                    // Insert initial data if the table is empty.
-                    String insertDataQuery = "INSERT INTO transactions (amount, vendor) VALUES (?, ?)";
-                    try (PreparedStatement insertDataStatement = connection.prepareStatement(insertDataQuery)) {
-                        // Insert first transaction.
-                        insertDataStatement.setDouble(1, 2000.00);
-                        insertDataStatement.setString(2, "Raymond");
-                        insertDataStatement.executeUpdate();
-
-                        // Insert second transaction.
-                        insertDataStatement.setDouble(1, 2500.00);
-                        insertDataStatement.setString(2, "John");
-                        insertDataStatement.executeUpdate();
-
-                        // Insert third transaction.
-                        insertDataStatement.setDouble(1, 4000.00);
-                        insertDataStatement.setString(2, "Jane");
-                        insertDataStatement.executeUpdate();
-                    }
-                }
+    private void loadAggregates() {
+        // The only full read of the table for summaries; afterwards add/update/delete keep them current.
+        String selectQuery = "SELECT vendor, amount, created_at FROM transactions";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement selectStatement = connection.prepareStatement(selectQuery);
+             ResultSet resultSet = selectStatement.executeQuery()) {
+            vendorAggregates.clear();
+            transactionRollups.clear();
+            while (resultSet.next()) {
+                long cents = MoneyColumns.getCents(resultSet, "amount");
+                vendorAggregates.append(resultSet.getString("vendor"), cents);
+                transactionRollups.add(resultSet.getTimestamp("created_at").toInstant(), Money.ofCents(cents));
             }
         } catch (SQLException e) {
-            e.printStackTrace(); // Log or handle the SQL exception.
+            // Fails ready, so requests get an error instead of a summary built from some of the rows.
+            throw new IllegalStateException("Could not load transaction summaries", e);
         }
     }
 
-
     @Override
     public List<Transaction> getAllTransactions() {
+        awaitReady();
         // This method retrieves all transactions from the database.
         List<Transaction> transactions = new ArrayList<>();
         String getAllQuery = "SELECT * FROM transactions";
@@ -77,10 +102,12 @@ public class JdbcTransactionDAO implements ITransactionDAO {
             while (resultSet.next()) {
                 // Extract data from each row in the result set.
                 int transactionId = resultSet.getInt("transaction_id");
-                double amount = resultSet.getDouble("amount");
+                Money amount = MoneyColumns.get(resultSet, "amount");
                 String vendor = resultSet.getString("vendor");
+                Instant createdAt = resultSet.getTimestamp("created_at").toInstant();
+                int version = resultSet.getInt("version");
                 // Create a Transaction object and add it to the list.
-                transactions.add(new Transaction(transactionId, amount, vendor));
+                transactions.add(new Transaction(transactionId, amount, vendor, createdAt, version));
             }
         } catch (SQLException e) {
             e.printStackTrace(); // Log or handle the SQL exception.
@@ -88,8 +115,37 @@ public class JdbcTransactionDAO implements ITransactionDAO {
         return transactions; // Return the list of transactions.
     }
 
+    @Override
+    public void exportTransactions(int afterTransactionId, Consumer<Transaction> consumer) {
+        awaitReady();
+        // Walks the primary key from the resume point, so each row is read once and in order.
+        String exportQuery = "SELECT transaction_id, amount, vendor, created_at, version FROM transactions " +
+                "WHERE transaction_id > ? ORDER BY transaction_id";
+        try (Connection connection = exportDataSource.getConnection()) {
+            connection.setAutoCommit(false); // Some drivers only fetch in chunks inside a transaction.
+            try (PreparedStatement exportStatement = connection.prepareStatement(exportQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                exportStatement.setFetchSize(exportFetchSize); // Rows arrive in chunks instead of all at once (MySQL: useCursorFetch on the export pool).
+                exportStatement.setInt(1, afterTransactionId);
+                try (ResultSet resultSet = exportStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        consumer.accept(mapTransaction(resultSet));
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback(); // Also ends the read if the consumer gave up, e.g. the client went away.
+                throw e;
+            }
+        } catch (SQLException e) {
+            // Unlike the other reads, a failed export must not look like a complete (shorter) one.
+            throw new IllegalStateException("Export failed", e);
+        }
+    }
+
     @Override
     public Transaction getTransactionById(int transactionId) {
+        awaitReady();
         // This method retrieves a specific transaction by its ID.
         Transaction transaction = null;
         String getByIdQuery = "SELECT * FROM transactions WHERE transaction_id = ?";
@@ -101,10 +157,12 @@ public class JdbcTransactionDAO implements ITransactionDAO {
                 if (resultSet.next()) {
                     // Extract data from the result set.
                     int transactionIdFromDb = resultSet.getInt("transaction_id");
-                    double amount = resultSet.getDouble("amount");
+                    Money amount = MoneyColumns.get(resultSet, "amount");
                     String vendor = resultSet.getString("vendor");
+                    Instant createdAt = resultSet.getTimestamp("created_at").toInstant();
+                    int version = resultSet.getInt("version");
                     // Create a Transaction object.
-                    transaction = new Transaction(transactionIdFromDb, amount, vendor);
+                    transaction = new Transaction(transactionIdFromDb, amount, vendor, createdAt, version);
                 }
             }
         } catch (SQLException e) {
@@ -115,13 +173,17 @@ public class JdbcTransactionDAO implements ITransactionDAO {
 
     @Override
     public Transaction add(Transaction transaction) {
+        awaitReady();
         // This method adds a new transaction to the database.
-        String insertDataQuery = "INSERT INTO transactions (amount, vendor) VALUES (?, ?)";
+        String insertDataQuery = "INSERT INTO transactions (amount, vendor, created_at) VALUES (?, ?, ?)";
+        // Stamped here rather than by the column default, so the rollups and the row agree to the millisecond.
+        Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
         try (Connection connection = dataSource.getConnection();
              PreparedStatement insertStatement = connection.prepareStatement(insertDataQuery, Statement.RETURN_GENERATED_KEYS)) {
             // Setting parameters for the insert query.
-            insertStatement.setDouble(1, transaction.getAmount());
+            MoneyColumns.set(insertStatement, 1, transaction.getAmount());
             insertStatement.setString(2, transaction.getVendor());
+            insertStatement.setTimestamp(3, Timestamp.from(createdAt));
             int affectedRows = insertStatement.executeUpdate(); // Execute the insert query.
 
             if (affectedRows == 0) {
@@ -132,6 +194,10 @@ public class JdbcTransactionDAO implements ITransactionDAO {
                 if (generatedKeys.next()) {
                     int generatedId = generatedKeys.getInt(1);
                     transaction.setTransactionId(generatedId);
+                    transaction.setCreatedAt(createdAt);
+                    transaction.setVersion(0); // The column default.
+                    vendorAggregates.add(transaction.getVendor(), transaction.getAmount());
+                    transactionRollups.add(createdAt, transaction.getAmount());
                 } else {
                     throw new SQLException("Creating transaction failed, no ID obtained.");
                 }
@@ -144,31 +210,109 @@ public class JdbcTransactionDAO implements ITransactionDAO {
     }
 
     @Override
-    public void update(int transactionId, Transaction transaction) {
-        // This method updates an existing transaction in the database.
-        String updateDataQuery = "UPDATE transactions SET amount = ?, vendor = ? WHERE transaction_id = ?";
+    public Transaction update(int transactionId, Transaction transaction, Integer expectedVersion) {
+        awaitReady();
+        // This method updates an existing transaction in the database with a compare-and-set on its version.
+        String updateDataQuery = "UPDATE transactions SET amount = ?, vendor = ?, version = version + 1 " +
+                "WHERE transaction_id = ? AND version = ?";
         try (Connection connection = dataSource.getConnection();
              PreparedStatement updateStatement = connection.prepareStatement(updateDataQuery)) {
-            // Setting parameters for the update query.
-            updateStatement.setDouble(1, transaction.getAmount());
-            updateStatement.setString(2, transaction.getVendor());
-            updateStatement.setInt(3, transactionId);
-            updateStatement.executeUpdate(); // Execute the update query.
+            while (true) {
+                Transaction previous = selectCurrent(connection, transactionId);
+                if (previous == null) {
+                    return null;
+                }
+                if (expectedVersion != null && !expectedVersion.equals(previous.getVersion())) {
+                    throw new VersionConflictException(previous);
+                }
+                // Setting parameters for the update query.
+                MoneyColumns.set(updateStatement, 1, transaction.getAmount());
+                updateStatement.setString(2, transaction.getVendor());
+                updateStatement.setInt(3, transactionId);
+                updateStatement.setInt(4, previous.getVersion());
+                ReentrantLock writeOrder = writeOrderLock(transactionId);
+                writeOrder.lock();
+                try {
+                    if (updateStatement.executeUpdate() > 0) {
+                        // The version matched, so previous is exactly the row that was replaced.
+                        vendorAggregates.replace(previous.getVendor(), previous.getAmount(),
+                                transaction.getVendor(), transaction.getAmount());
+                        // createdAt isn't updated, so the amount moves within the same buckets.
+                        transactionRollups.remove(previous.getCreatedAt(), previous.getAmount());
+                        transactionRollups.add(previous.getCreatedAt(), transaction.getAmount());
+                        return new Transaction(transactionId, transaction.getAmount(), transaction.getVendor(),
+                                previous.getCreatedAt(), previous.getVersion() + 1);
+                    }
+                } finally {
+                    writeOrder.unlock();
+                }
+                // Another writer got in between the read and the update; read again. With an
+                // expected version that turns into a conflict, otherwise the last writer wins.
+            }
         } catch (SQLException e) {
-            e.printStackTrace(); // Log or handle the SQL exception.
+            // Not null: the controller would turn that into a 404 for a transaction that may well exist.
+            throw new IllegalStateException("Updating transaction " + transactionId + " failed", e);
         }
     }
 
     @Override
     public void delete(int transactionId) {
-        // This method deletes a transaction from the database.
-        String deleteDataQuery = "DELETE FROM transactions WHERE transaction_id = ?";
+        awaitReady();
+        // This method deletes a transaction from the database, with the same compare-and-set as update.
+        String deleteDataQuery = "DELETE FROM transactions WHERE transaction_id = ? AND version = ?";
         try (Connection connection = dataSource.getConnection();
              PreparedStatement deleteStatement = connection.prepareStatement(deleteDataQuery)) {
-            deleteStatement.setInt(1, transactionId); // Set the ID parameter in the delete query.
-            deleteStatement.executeUpdate(); // Execute the delete query.
+            Transaction previous;
+            while ((previous = selectCurrent(connection, transactionId)) != null) {
+                deleteStatement.setInt(1, transactionId); // Set the ID parameter in the delete query.
+                deleteStatement.setInt(2, previous.getVersion());
+                ReentrantLock writeOrder = writeOrderLock(transactionId);
+                writeOrder.lock();
+                try {
+                    if (deleteStatement.executeUpdate() > 0) {
+                        vendorAggregates.remove(previous.getVendor(), previous.getAmount());
+                        transactionRollups.remove(previous.getCreatedAt(), previous.getAmount());
+                        return;
+                    }
+                } finally {
+                    writeOrder.unlock();
+                }
+            }
         } catch (SQLException e) {
-            e.printStackTrace(); // Log or handle the SQL exception.
+            // Otherwise the caller would report a delete that never happened.
+            throw new IllegalStateException("Deleting transaction " + transactionId + " failed", e);
+        }
+    }
+
+    @Override
+    public TransactionSummary getSummary() {
+        awaitReady();
+        return vendorAggregates.snapshot(); // Served from memory; no query.
+    }
+
+    @Override
+    public TransactionRollup getRollup(Instant from, Instant to, RollupBucket bucket) {
+        awaitReady();
+        return transactionRollups.query(from, to, bucket); // Also served from memory.
+    }
+
+    private ReentrantLock writeOrderLock(int transactionId) {
+        return writeOrderLocks[Math.floorMod(transactionId, writeOrderLocks.length)];
+    }
+
+    private Transaction selectCurrent(Connection connection, int transactionId) throws SQLException {
+        // No row lock: the version checked by the following write tells us whether this read is still current.
+        String selectQuery = "SELECT transaction_id, amount, vendor, created_at, version FROM transactions WHERE transaction_id = ?";
+        try (PreparedStatement selectStatement = connection.prepareStatement(selectQuery)) {
+            selectStatement.setInt(1, transactionId);
+            try (ResultSet resultSet = selectStatement.executeQuery()) {
+                return resultSet.next() ? mapTransaction(resultSet) : null;
+            }
         }
     }
+
+    private static Transaction mapTransaction(ResultSet resultSet) throws SQLException {
+        return new Transaction(resultSet.getInt("transaction_id"), MoneyColumns.get(resultSet, "amount"),
+                resultSet.getString("vendor"), resultSet.getTimestamp("created_at").toInstant(), resultSet.getInt("version"));
+    }
 }
@@ -0,0 +1,275 @@
+package com.pluralsight.ledgerapi6.dao.impl;
+
+import com.pluralsight.ledgerapi6.models.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Brings the transactions schema and seed data up to date in the background, so
+ * the application can start serving before it is done.
+ * <p>
+ * Each step, a V[n]__*.sql schema script or the seed file, is recorded in
+ * schema_history with the SHA-256 of its content. On a normal start that is one
+ * SELECT: every step whose checksum is already recorded is skipped without
+ * touching the database. A schema script that changed after it was applied is
+ * refused rather than run again. The seed file (amount,vendor CSV) is loaded
+ * with batched inserts, and only into an empty table.
+ * <p>
+ * A script runs in one transaction where the database's DDL is transactional.
+ * Where DDL commits on its own (MySQL), each statement is committed together with
+ * a step#n row holding its checksum instead, so a script that fails partway is
+ * picked up at the failed statement on the next start rather than re-running the
+ * ones that already took effect. Those rows are removed once the script completes.
+ */
+final class SchemaBootstrap {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaBootstrap.class);
+
+    private final DataSource dataSource;
+    private final String schemaLocation;
+    private final String seedFile;
+    private final int batchSize;
+    private final PathMatchingResourcePatternResolver resources = new PathMatchingResourcePatternResolver();
+
+    SchemaBootstrap(DataSource dataSource, String schemaLocation, String seedFile, int batchSize) {
+        this.dataSource = dataSource;
+        this.schemaLocation = schemaLocation;
+        this.seedFile = seedFile;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Runs the bootstrap on its own thread. The future fails if a step could not be applied.
+     */
+    CompletableFuture<Void> start() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+                done.complete(null);
+            } catch (Exception e) {
+                logger.error("Schema bootstrap failed", e);
+                done.completeExceptionally(e);
+            }
+        }, "schema-bootstrap");
+        thread.setDaemon(true);
+        thread.start();
+        return done;
+    }
+
+    private void run() throws SQLException, IOException {
+        long start = System.nanoTime();
+        int applied = 0;
+        int skipped = 0;
+
+        try (Connection connection = dataSource.getConnection()) {
+            Map<String, String> history = readHistory(connection);
+
+            Resource[] scripts = resources.getResources(schemaLocation + "/V*__*.sql");
+            Arrays.sort(scripts, Comparator.comparingInt(SchemaBootstrap::version));
+            for (Resource script : scripts) {
+                String step = script.getFilename();
+                byte[] content;
+                try (InputStream in = script.getInputStream()) {
+                    content = in.readAllBytes();
+                }
+                String checksum = HexFormat.of().formatHex(sha256().digest(content));
+                String recorded = history.get(step);
+                if (checksum.equals(recorded)) {
+                    skipped++;
+                    continue;
+                }
+                if (recorded != null) {
+                    throw new IllegalStateException("Schema script " + step + " was changed after it was applied; "
+                            + "add a new V<n>__ script instead");
+                }
+                applyScript(connection, step, checksum, new String(content, StandardCharsets.UTF_8), history);
+                applied++;
+            }
+
+            Resource seed = resources.getResource(seedFile);
+            if (seed.exists()) {
+                String step = "seed:" + seed.getFilename();
+                String checksum = checksum(seed);
+                String recorded = history.get(step);
+                if (checksum.equals(recorded)) {
+                    skipped++;
+                } else if (recorded != null) {
+                    logger.warn("Seed file {} changed since it was loaded; existing rows are left as they are", step);
+                    skipped++;
+                } else {
+                    int rows = isEmpty(connection) ? loadSeed(connection, seed) : 0;
+                    record(connection, step, checksum);
+                    logger.info("Seeded {} transactions from {}", rows, seedFile);
+                    applied++;
+                }
+            }
+        }
+        logger.info("Schema bootstrap done in {} ms: {} steps applied, {} up to date",
+                (System.nanoTime() - start) / 1_000_000, applied, skipped);
+    }
+
+    private static Map<String, String> readHistory(Connection connection) throws SQLException {
+        Map<String, String> history = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT step, checksum FROM schema_history")) {
+            while (resultSet.next()) {
+                history.put(resultSet.getString("step"), resultSet.getString("checksum"));
+            }
+        } catch (SQLException e) {
+            // First start against this database: the history table doesn't exist yet.
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS schema_history (" +
+                        "step VARCHAR(200) PRIMARY KEY," +
+                        "checksum CHAR(64) NOT NULL," +
+                        "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                        ")");
+            }
+        }
+        return history;
+    }
+
+    private static void applyScript(Connection connection, String step, String checksum, String script,
+                                    Map<String, String> history) throws SQLException {
+        List<String> statements = statements(script);
+        boolean commitEachStatement = connection.getMetaData().dataDefinitionCausesTransactionCommit();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 0; i < statements.size(); i++) {
+                String sql = statements.get(i);
+                String part = step + "#" + (i + 1);
+                String partChecksum = HexFormat.of().formatHex(sha256().digest(sql.getBytes(StandardCharsets.UTF_8)));
+                String recorded = history.get(part);
+                if (partChecksum.equals(recorded)) {
+                    continue; // Took effect before an earlier attempt at this script failed.
+                }
+                if (recorded != null) {
+                    throw new IllegalStateException("Statement " + (i + 1) + " of schema script " + step
+                            + " was changed after it was applied");
+                }
+                statement.execute(sql);
+                record(connection, part, partChecksum);
+                if (commitEachStatement) {
+                    connection.commit();
+                }
+            }
+            record(connection, step, checksum);
+            try (PreparedStatement deleteParts = connection.prepareStatement("DELETE FROM schema_history WHERE step = ?")) {
+                for (int i = 0; i < statements.size(); i++) {
+                    deleteParts.setString(1, step + "#" + (i + 1));
+                    deleteParts.addBatch();
+                }
+                deleteParts.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static List<String> statements(String script) {
+        return Arrays.stream(script.split(";\\s*(\\r?\\n|$)"))
+                .map(sql -> sql.replaceAll("(?m)^\\s*--.*$", "").trim())
+                .filter(sql -> !sql.isEmpty())
+                .toList();
+    }
+
+    private static void record(Connection connection, String step, String checksum) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO schema_history (step, checksum) VALUES (?, ?)")) {
+            statement.setString(1, step);
+            statement.setString(2, checksum);
+            statement.executeUpdate();
+        }
+    }
+
+    private static boolean isEmpty(Connection connection) throws SQLException {
+        // Databases created before schema_history existed may already hold data; don't seed over it.
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT 1 FROM transactions LIMIT 1")) {
+            return !resultSet.next();
+        }
+    }
+
+    private int loadSeed(Connection connection, Resource seed) throws SQLException, IOException {
+        String insertQuery = "INSERT INTO transactions (amount, vendor) VALUES (?, ?)";
+        int rows = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false); // One commit per batch instead of one per row.
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(seed.getInputStream(), StandardCharsets.UTF_8));
+             PreparedStatement insertStatement = connection.prepareStatement(insertQuery)) {
+            String line = reader.readLine(); // Header
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                MoneyColumns.set(insertStatement, 1, Money.parse(line.substring(0, comma).trim()));
+                insertStatement.setString(2, line.substring(comma + 1).trim());
+                insertStatement.addBatch();
+                if (++rows % batchSize == 0) {
+                    insertStatement.executeBatch();
+                    connection.commit();
+                }
+            }
+            insertStatement.executeBatch();
+            connection.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return rows;
+    }
+
+    private static String checksum(Resource resource) throws IOException {
+        // Streams the file, so a large fixture set isn't read into memory just to hash it.
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static int version(Resource script) {
+        String name = script.getFilename();
+        return Integer.parseInt(name.substring(1, name.indexOf("__")));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.pluralsight.ledgerapi6.dao.interfaces;
 
+import com.pluralsight.ledgerapi6.models.RollupBucket;
 import com.pluralsight.ledgerapi6.models.Transaction;
+import com.pluralsight.ledgerapi6.models.TransactionRollup;
+import com.pluralsight.ledgerapi6.models.TransactionSummary;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for Data Access Object (DAO) operations related to the Transaction model.
@@ -17,6 +22,15 @@ public interface ITransactionDAO {
      */
     List<Transaction> getAllTransactions();
 
+    /**
+     * Streams transactions in ID order without holding them all in memory, for exports.
+     * An interrupted export can resume by passing the last ID it received.
+     *
+     * @param afterTransactionId Only transactions with a greater ID are streamed; 0 for all.
+     * @param consumer Called once for each transaction.
+     */
+    void exportTransactions(int afterTransactionId, Consumer<Transaction> consumer);
+
     /**
      * Retrieves a specific transaction by its ID.
      *
@@ -34,12 +48,15 @@ public interface ITransactionDAO {
     Transaction add(Transaction transaction);
 
     /**
-     * Updates an existing transaction in the data store.
+     * Updates an existing transaction in the data store, without holding locks between requests.
      *
      * @param transactionId The ID of the transaction to update.
      * @param transaction The Transaction object with updated information.
+     * @param expectedVersion The version the caller last read, or null to overwrite whatever is stored.
+     * @return The updated transaction with its new version, or null if there is no such transaction.
+     * @throws VersionConflictException if the stored transaction is no longer at expectedVersion.
      */
-    void update(int transactionId, Transaction transaction);
+    Transaction update(int transactionId, Transaction transaction, Integer expectedVersion);
 
     /**
      * Deletes a transaction from the data store.
@@ -48,4 +65,21 @@ public interface ITransactionDAO {
      */
     void delete(int transactionId);
 
+    /**
+     * Retrieves totals, counts, min/max and percentiles for each vendor.
+     *
+     * @return The summary across all transactions, grouped by vendor.
+     */
+    TransactionSummary getSummary();
+
+    /**
+     * Retrieves transaction counts and totals per time bucket.
+     *
+     * @param from The start of the range, rounded down to a whole bucket.
+     * @param to The end of the range, rounded up to a whole bucket.
+     * @param bucket The bucket size to group by.
+     * @return The totals for each non-empty bucket and for the whole range.
+     */
+    TransactionRollup getRollup(Instant from, Instant to, RollupBucket bucket);
+
 }
@@ -0,0 +1,30 @@
+package com.pluralsight.ledgerapi6.dao.interfaces;
+
+import com.pluralsight.ledgerapi6.models.Transaction;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Point-in-time reads, for stores that keep every change rather than only the
+ * latest row.
+ */
+public interface ITransactionHistory {
+
+    /**
+     * Retrieves all transactions as they were at a given moment.
+     *
+     * @param asOf The moment to read at.
+     * @return A list of the transactions that existed then, with their values at that time.
+     */
+    List<Transaction> getAllTransactionsAsOf(Instant asOf);
+
+    /**
+     * Retrieves a specific transaction as it was at a given moment.
+     *
+     * @param transactionId The ID of the transaction to retrieve.
+     * @param asOf The moment to read at.
+     * @return The Transaction as it was then, or null if it did not exist at that time.
+     */
+    Transaction getTransactionByIdAsOf(int transactionId, Instant asOf);
+}
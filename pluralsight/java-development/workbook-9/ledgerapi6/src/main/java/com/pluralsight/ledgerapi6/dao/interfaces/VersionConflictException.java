@@ -0,0 +1,23 @@
+package com.pluralsight.ledgerapi6.dao.interfaces;
+
+import com.pluralsight.ledgerapi6.models.Transaction;
+
+/**
+ * Thrown by an update whose expected version no longer matches the stored
+ * transaction because someone else changed it first. Carries the current
+ * transaction so the caller can show it or retry against it.
+ */
+public class VersionConflictException extends RuntimeException {
+    private static final long serialVersionUID = 7788870779206584775L;
+
+    private final Transaction current;
+
+    public VersionConflictException(Transaction current) {
+        super("Transaction " + current.getTransactionId() + " is at version " + current.getVersion());
+        this.current = current;
+    }
+
+    public Transaction getCurrent() {
+        return current;
+    }
+}
@@ -0,0 +1,317 @@
+package com.pluralsight.ledgerapi6.eventlog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of TransactionEvents, split into segment files named after the
+ * sequence of their first event (segment-00000000000000000001.log, ...).
+ * <p>
+ * Each record is [payload length][CRC32 of payload][payload]. Appends are queued
+ * and written by a single thread, which takes everything that queued up while it
+ * was busy, writes it back to back at the end of the segment and makes it durable
+ * with one fsync (group commit), so concurrent writers share the cost of a sync.
+ * <p>
+ * A record cut short by a crash is dropped on recovery. Any other damage, including
+ * a bad record in the last segment with complete records after it, stops startup
+ * rather than silently losing history.
+ */
+public class EventLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(EventLog.class);
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    // sequence, timestamp, type, transactionId, amountCents, vendor length
+    private static final int FIXED_PAYLOAD_BYTES = 8 + 8 + 1 + 4 + 8 + 2;
+    private static final int MAX_PAYLOAD_BYTES = FIXED_PAYLOAD_BYTES + 0xFFFF;
+    // UTF-8 takes at most three bytes per Java char, and the length is stored in two bytes.
+    private static final int MAX_VENDOR_CHARS = 0xFFFF / 3;
+    private static final PendingAppend SHUTDOWN = new PendingAppend(null);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxBatch;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // Only touched by the writer thread once recovery is done.
+    private FileChannel segment;
+    private long segmentSize;
+    private volatile IOException failure;
+
+    public EventLog(Path directory, long segmentBytes, int maxBatch) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::writeLoop, "ledger-event-log");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Replays every event after the given sequence, truncates a torn record at the
+     * end of the last segment, and starts accepting appends. Call once, before append.
+     */
+    public void recover(long afterSequence, Consumer<TransactionEvent> consumer) throws IOException {
+        List<Path> segments = segments();
+        for (int i = firstSegmentFor(segments, afterSequence); i < segments.size(); i++) {
+            Path path = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            long validBytes = read(path, event -> {
+                if (event.getSequence() > afterSequence) {
+                    consumer.accept(event);
+                }
+                return true;
+            }, !last);
+            if (last) {
+                segment = FileChannel.open(path, StandardOpenOption.WRITE);
+                if (validBytes < segment.size()) {
+                    logger.warn("Truncating torn record at byte {} of {}", validBytes, path);
+                    segment.truncate(validBytes);
+                    segment.force(true);
+                }
+                segment.position(validBytes);
+                segmentSize = validBytes;
+            }
+        }
+        writer.start();
+    }
+
+    /**
+     * Queues an event. The future completes once the event is on disk.
+     */
+    public CompletableFuture<Void> append(TransactionEvent event) {
+        if (event.getVendor() != null && event.getVendor().length() > MAX_VENDOR_CHARS) {
+            throw new IllegalArgumentException("Vendor name is longer than " + MAX_VENDOR_CHARS + " characters");
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(failure));
+        }
+        PendingAppend pending = new PendingAppend(event);
+        queue.add(pending);
+        return pending.done;
+    }
+
+    /**
+     * Reads events after the given sequence in order, until the predicate returns false.
+     * Safe to call while appends are going on; it sees a prefix of the log.
+     */
+    public void read(long afterSequence, Predicate<TransactionEvent> consumer) throws IOException {
+        List<Path> segments = segments();
+        boolean[] more = {true};
+        for (int i = firstSegmentFor(segments, afterSequence); i < segments.size() && more[0]; i++) {
+            read(segments.get(i), event -> {
+                if (event.getSequence() > afterSequence) {
+                    more[0] = consumer.test(event);
+                }
+                return more[0];
+            }, false);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (writer.isAlive()) {
+            queue.add(SHUTDOWN);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (segment != null) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not close ledger event log segment", e);
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+
+            boolean shutdown = batch.remove(SHUTDOWN);
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                for (PendingAppend pending : batch) {
+                    write(pending.event);
+                }
+                if (!batch.isEmpty()) {
+                    segment.force(false);
+                }
+                for (PendingAppend pending : batch) {
+                    pending.done.complete(null);
+                }
+            } catch (IOException e) {
+                // Nothing after a failed write can be trusted to be on disk, so the log stops taking appends.
+                failure = e;
+                for (PendingAppend pending : batch) {
+                    pending.done.completeExceptionally(new UncheckedIOException(e));
+                }
+            }
+            batch.clear();
+            if (shutdown) {
+                return;
+            }
+        }
+    }
+
+    private void write(TransactionEvent event) throws IOException {
+        byte[] vendor = event.getVendor() == null ? new byte[0] : event.getVendor().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(FIXED_PAYLOAD_BYTES + vendor.length);
+        payload.putLong(event.getSequence())
+                .putLong(event.getTimestamp())
+                .put((byte) event.getType().ordinal())
+                .putInt(event.getTransactionId())
+                .putLong(event.getAmountCents())
+                .putShort((short) vendor.length)
+                .put(vendor);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.capacity());
+        record.putInt(payload.capacity()).putInt((int) crc.getValue()).put(payload.array()).flip();
+
+        if (segment == null || (segmentSize > 0 && segmentSize + record.remaining() > segmentBytes)) {
+            roll(event.getSequence());
+        }
+        while (record.hasRemaining()) {
+            segmentSize += segment.write(record);
+        }
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        if (segment != null) {
+            segment.force(false);
+            segment.close();
+        }
+        segment = FileChannel.open(directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentSize = 0;
+    }
+
+    /**
+     * @param strict Whether even a torn last record is an error (sealed segments). Damage that complete
+     *               records follow is always one: only a crash mid-append can cut the end of a segment short.
+     * @return The number of bytes up to the end of the last good record.
+     */
+    private static long read(Path path, Predicate<TransactionEvent> consumer, boolean strict) throws IOException {
+        long validBytes = 0;
+        long size = Files.size(path);
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 64 * 1024))) {
+            CRC32 crc = new CRC32();
+            while (validBytes < size) {
+                byte[] payload;
+                int expectedCrc;
+                int length;
+                try {
+                    length = in.readInt();
+                    // A record running past the end of the file is the one a crash cut short.
+                    boolean reachesEnd = length > 0 && validBytes + 8 + length >= size;
+                    if (length < FIXED_PAYLOAD_BYTES || length > MAX_PAYLOAD_BYTES) {
+                        return damaged(path, validBytes, strict || !reachesEnd);
+                    }
+                    expectedCrc = in.readInt();
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    return damaged(path, validBytes, strict);
+                }
+
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    return damaged(path, validBytes, strict || validBytes + 8 + length < size);
+                }
+                validBytes += 8 + payload.length;
+                if (!consumer.test(decode(payload))) {
+                    return validBytes;
+                }
+            }
+        }
+        return validBytes;
+    }
+
+    private static long damaged(Path path, long validBytes, boolean fatal) {
+        if (fatal) {
+            throw new IllegalStateException("Corrupt ledger event log segment " + path + " at byte " + validBytes);
+        }
+        return validBytes;
+    }
+
+    private static TransactionEvent decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long sequence = buffer.getLong();
+        long timestamp = buffer.getLong();
+        TransactionEvent.Type type = TransactionEvent.Type.values()[buffer.get()];
+        int transactionId = buffer.getInt();
+        long amountCents = buffer.getLong();
+        int vendorLength = Short.toUnsignedInt(buffer.getShort());
+        String vendor = new String(payload, buffer.position(), vendorLength, StandardCharsets.UTF_8);
+        return new TransactionEvent(sequence, timestamp, type, transactionId, amountCents, vendor);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    // The last segment starting at or before the first event we need.
+    private static int firstSegmentFor(List<Path> segments, long afterSequence) {
+        int first = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            String name = segments.get(i).getFileName().toString();
+            long firstSequence = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+            if (firstSequence <= afterSequence + 1) {
+                first = i;
+            }
+        }
+        return first;
+    }
+
+    private static final class PendingAppend {
+        private final TransactionEvent event;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingAppend(TransactionEvent event) {
+            this.event = event;
+        }
+    }
+}
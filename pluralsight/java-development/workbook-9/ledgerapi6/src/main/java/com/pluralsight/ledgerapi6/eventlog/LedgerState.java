@@ -0,0 +1,105 @@
+package com.pluralsight.ledgerapi6.eventlog;
+
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.Transaction;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ledger as of some point in the event log: every live transaction, folded
+ * from a snapshot plus the events after it.
+ * <p>
+ * Not thread-safe by itself. The live state is built over a ConcurrentHashMap and
+ * only ever applied to by one writer at a time, so readers can use it without locking.
+ */
+public class LedgerState {
+    private final Map<Integer, Transaction> transactions;
+    private long sequence;
+    private long timestamp;
+    private int lastTransactionId;
+
+    public LedgerState() {
+        this(new HashMap<>());
+    }
+
+    public LedgerState(Map<Integer, Transaction> transactions) {
+        this.transactions = transactions;
+    }
+
+    public void apply(TransactionEvent event) {
+        switch (event.getType()) {
+            case CREATE -> transactions.put(event.getTransactionId(), new Transaction(event.getTransactionId(),
+                    Money.ofCents(event.getAmountCents()), event.getVendor(), Instant.ofEpochMilli(event.getTimestamp()), 0));
+            case UPDATE -> {
+                // A transaction keeps the time it was created; updates change amount and vendor and bump the version.
+                Transaction previous = transactions.get(event.getTransactionId());
+                Instant createdAt = previous == null ? Instant.ofEpochMilli(event.getTimestamp()) : previous.getCreatedAt();
+                int version = previous == null ? 0 : previous.getVersion() + 1;
+                transactions.put(event.getTransactionId(), new Transaction(event.getTransactionId(),
+                        Money.ofCents(event.getAmountCents()), event.getVendor(), createdAt, version));
+            }
+            case DELETE -> transactions.remove(event.getTransactionId());
+        }
+        sequence = event.getSequence();
+        timestamp = event.getTimestamp();
+        lastTransactionId = Math.max(lastTransactionId, event.getTransactionId());
+    }
+
+    /**
+     * Takes over the rows and log position of another state, e.g. one read from a snapshot.
+     */
+    public void load(LedgerState other) {
+        transactions.putAll(other.transactions);
+        restorePosition(other.sequence, other.timestamp, other.lastTransactionId);
+    }
+
+    /**
+     * Used when reading a snapshot, which stores rows rather than events.
+     */
+    void restore(Transaction transaction) {
+        transactions.put(transaction.getTransactionId(), transaction);
+    }
+
+    void restorePosition(long sequence, long timestamp, int lastTransactionId) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.lastTransactionId = lastTransactionId;
+    }
+
+    public Transaction get(int transactionId) {
+        return transactions.get(transactionId);
+    }
+
+    public Collection<Transaction> getAll() {
+        return transactions.values();
+    }
+
+    public int size() {
+        return transactions.size();
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getLastTransactionId() {
+        return lastTransactionId;
+    }
+
+    /**
+     * A detached copy for writing a snapshot while the live state keeps changing.
+     * Transactions are replaced rather than mutated by apply, so sharing them is safe.
+     */
+    public LedgerState copy() {
+        LedgerState copy = new LedgerState(new HashMap<>(transactions));
+        copy.restorePosition(sequence, timestamp, lastTransactionId);
+        return copy;
+    }
+}
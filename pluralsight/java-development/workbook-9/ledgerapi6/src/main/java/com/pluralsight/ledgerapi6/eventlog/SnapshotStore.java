@@ -0,0 +1,156 @@
+package com.pluralsight.ledgerapi6.eventlog;
+
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.Transaction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compacted copies of the ledger state, one row per live transaction, so startup
+ * only has to replay the events written since the newest snapshot.
+ * <p>
+ * Files are named snapshot-[sequence]-[timestamp].snap and end with a CRC32 of
+ * everything before it. They are written to a temporary file and renamed into
+ * place, so a crash mid-write never leaves a half snapshot behind. Only the
+ * newest few are kept; the event log itself keeps the full history.
+ */
+public class SnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    // "LDG3": rows carry createdAt and version. Older snapshots fail the check and are rebuilt from the log.
+    private static final int MAGIC = 0x4C444733;
+
+    private final Path directory;
+    private final int snapshotsKept;
+
+    public SnapshotStore(Path directory, int snapshotsKept) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.snapshotsKept = snapshotsKept;
+    }
+
+    public void write(LedgerState state) throws IOException {
+        String name = String.format("%s%020d-%020d%s", PREFIX, state.getSequence(), state.getTimestamp(), SUFFIX);
+        Path temporary = directory.resolve(name + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             BufferedOutputStream buffered = new BufferedOutputStream(file, 64 * 1024)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, crc));
+            out.writeInt(MAGIC);
+            out.writeLong(state.getSequence());
+            out.writeLong(state.getTimestamp());
+            out.writeInt(state.getLastTransactionId());
+            out.writeInt(state.size());
+            for (Transaction transaction : state.getAll()) {
+                out.writeInt(transaction.getTransactionId());
+                out.writeLong(transaction.getAmount().getCents());
+                out.writeLong(transaction.getCreatedAt().toEpochMilli());
+                out.writeInt(transaction.getVersion());
+                out.writeUTF(transaction.getVendor() == null ? "" : transaction.getVendor());
+            }
+            out.flush();
+            // The checksum itself goes around the checked stream.
+            new DataOutputStream(buffered).writeLong(crc.getValue());
+            buffered.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> snapshots = snapshots();
+        for (int i = 0; i < snapshots.size() - snapshotsKept; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    /**
+     * The newest snapshot that reads back intact, or an empty state if there is none.
+     */
+    public LedgerState loadLatest() throws IOException {
+        return loadLatestAtOrBefore(Long.MAX_VALUE);
+    }
+
+    /**
+     * The newest intact snapshot taken no later than the given time, for point-in-time reads.
+     */
+    public LedgerState loadLatestAtOrBefore(long timestamp) throws IOException {
+        List<Path> snapshots = snapshots();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path path = snapshots.get(i);
+            if (timestampOf(path) > timestamp) {
+                continue;
+            }
+            try {
+                return read(path);
+            } catch (IOException | IllegalStateException e) {
+                // Fall back to the one before; the log still has every event since.
+                logger.warn("Skipping unreadable snapshot {}: {}", path, e.getMessage());
+            }
+        }
+        return new LedgerState();
+    }
+
+    private static LedgerState read(Path path) throws IOException {
+        try (InputStream file = Files.newInputStream(path);
+             BufferedInputStream buffered = new BufferedInputStream(file, 64 * 1024)) {
+            CRC32 crc = new CRC32();
+            DataInputStream in = new DataInputStream(new CheckedInputStream(buffered, crc));
+            if (in.readInt() != MAGIC) {
+                throw new IllegalStateException("not a ledger snapshot");
+            }
+            long sequence = in.readLong();
+            long timestamp = in.readLong();
+            int lastTransactionId = in.readInt();
+            int count = in.readInt();
+
+            LedgerState state = new LedgerState();
+            for (int i = 0; i < count; i++) {
+                int transactionId = in.readInt();
+                long cents = in.readLong();
+                long createdAt = in.readLong();
+                int version = in.readInt();
+                String vendor = in.readUTF();
+                state.restore(new Transaction(transactionId, Money.ofCents(cents), vendor, Instant.ofEpochMilli(createdAt), version));
+            }
+            long expected = crc.getValue();
+            if (new DataInputStream(buffered).readLong() != expected) {
+                throw new IllegalStateException("checksum mismatch");
+            }
+            state.restorePosition(sequence, timestamp, lastTransactionId);
+            return state;
+        }
+    }
+
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static long timestampOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(name.lastIndexOf('-') + 1, name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,55 @@
+package com.pluralsight.ledgerapi6.eventlog;
+
+/**
+ * One immutable entry in the ledger event log. Events are never changed or
+ * removed; the current state of a transaction is whatever its latest event says.
+ */
+public final class TransactionEvent {
+
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    private final long sequence;
+    private final long timestamp;
+    private final Type type;
+    private final int transactionId;
+    private final long amountCents;
+    private final String vendor;
+
+    public TransactionEvent(long sequence, long timestamp, Type type, int transactionId, long amountCents, String vendor) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.transactionId = transactionId;
+        this.amountCents = amountCents;
+        this.vendor = vendor;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Epoch milliseconds. Never decreases from one event to the next, even if the clock does.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getTransactionId() {
+        return transactionId;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public String getVendor() {
+        return vendor;
+    }
+}
@@ -0,0 +1,18 @@
+package com.pluralsight.ledgerapi6.json;
+
+import com.pluralsight.ledgerapi6.models.Money;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+
+/**
+ * Writes Money as a JSON number with two decimals (150.75), built straight from
+ * the cents without going through a double or a BigDecimal.
+ */
+public class MoneySerializer extends ValueSerializer<Money> {
+
+    @Override
+    public void serialize(Money value, JsonGenerator generator, SerializationContext context) {
+        generator.writeNumber(value.toString());
+    }
+}
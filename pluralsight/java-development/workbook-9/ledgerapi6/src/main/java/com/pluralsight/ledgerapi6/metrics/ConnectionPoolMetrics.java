@@ -0,0 +1,73 @@
+package com.pluralsight.ledgerapi6.metrics;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live health of the DBCP pool: the gauges are read straight from the pool,
+ * everything else is recorded by PoolMetricsDataSource as connections are borrowed.
+ */
+public class ConnectionPoolMetrics {
+    private final BasicDataSource basicDataSource;
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder borrowFailures = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    public ConnectionPoolMetrics(BasicDataSource basicDataSource) {
+        this.basicDataSource = basicDataSource;
+    }
+
+    public void recordBorrow(long waitNanos) {
+        borrowWait.record(waitNanos);
+    }
+
+    public void recordBorrowTimeout() {
+        borrowTimeouts.increment();
+    }
+
+    public void recordBorrowFailure() {
+        borrowFailures.increment();
+    }
+
+    public void recordStatementCacheHit() {
+        statementCacheHits.increment();
+    }
+
+    public void recordStatementCacheMiss() {
+        statementCacheMisses.increment();
+    }
+
+    public LatencyHistogram getBorrowWait() {
+        return borrowWait;
+    }
+
+    public int getActiveConnections() {
+        return basicDataSource.getNumActive();
+    }
+
+    public int getIdleConnections() {
+        return basicDataSource.getNumIdle();
+    }
+
+    public int getMaxTotal() {
+        return basicDataSource.getMaxTotal();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("active", getActiveConnections());
+        result.put("idle", getIdleConnections());
+        result.put("maxTotal", getMaxTotal());
+        result.put("borrowTimeouts", borrowTimeouts.sum());
+        result.put("borrowFailures", borrowFailures.sum());
+        result.put("statementCacheHits", statementCacheHits.sum());
+        result.put("statementCacheMisses", statementCacheMisses.sum());
+        result.put("borrowWait", borrowWait.snapshot());
+        return result;
+    }
+}
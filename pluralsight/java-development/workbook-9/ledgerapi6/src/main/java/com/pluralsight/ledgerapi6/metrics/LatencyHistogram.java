@@ -0,0 +1,93 @@
+package com.pluralsight.ledgerapi6.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram. Recording is lock-free (one atomic increment
+ * per call) so it can sit on the request path; percentiles are read back at
+ * bucket resolution.
+ */
+public class LatencyHistogram {
+    // Upper bounds of each bucket in microseconds; the last bucket catches everything above.
+    private static final long[] BOUNDS_MICROS = {
+            50, 100, 250, 500,
+            1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000, 10_000_000
+    };
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MICROS.length + 1);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = nanos / 1_000;
+        int bucket = 0;
+        while (bucket < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        totalNanos.add(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile A value between 0 and 100.
+     * @return The upper bound, in milliseconds, of the bucket holding that percentile.
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long count = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile / 100.0 * count);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return BOUNDS_MICROS[i] / 1_000.0;
+            }
+        }
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long count = getCount();
+        result.put("count", count);
+        result.put("meanMs", count == 0 ? 0 : totalNanos.sum() / (double) count / 1_000_000.0);
+        result.put("p50Ms", getPercentileMillis(50));
+        result.put("p90Ms", getPercentileMillis(90));
+        result.put("p99Ms", getPercentileMillis(99));
+        result.put("maxMs", maxNanos.get() / 1_000_000.0);
+
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            buckets.put("le_" + BOUNDS_MICROS[i] / 1_000.0 + "ms", counts.get(i));
+        }
+        buckets.put("le_inf", counts.get(BOUNDS_MICROS.length));
+        result.put("buckets", buckets);
+        return result;
+    }
+}
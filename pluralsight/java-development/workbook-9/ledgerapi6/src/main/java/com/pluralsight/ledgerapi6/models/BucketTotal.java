@@ -0,0 +1,27 @@
+package com.pluralsight.ledgerapi6.models;
+
+import java.time.Instant;
+
+public class BucketTotal {
+    private final Instant start;
+    private final long count;
+    private final Money total;
+
+    public BucketTotal(Instant start, long count, Money total) {
+        this.start = start;
+        this.count = count;
+        this.total = total;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+}
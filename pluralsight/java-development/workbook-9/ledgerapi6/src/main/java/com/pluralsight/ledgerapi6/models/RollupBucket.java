@@ -0,0 +1,29 @@
+package com.pluralsight.ledgerapi6.models;
+
+/**
+ * Bucket sizes kept by the transaction rollups. Buckets start on whole UTC
+ * minutes, hours and days.
+ */
+public enum RollupBucket {
+    MINUTE(60_000L),
+    HOUR(60 * 60_000L),
+    DAY(24 * 60 * 60_000L);
+
+    private final long millis;
+
+    RollupBucket(long millis) {
+        this.millis = millis;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long floor(long epochMilli) {
+        return Math.floorDiv(epochMilli, millis) * millis;
+    }
+
+    public long ceil(long epochMilli) {
+        return -Math.floorDiv(-epochMilli, millis) * millis;
+    }
+}
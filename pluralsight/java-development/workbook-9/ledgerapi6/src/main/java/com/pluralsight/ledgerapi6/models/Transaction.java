@@ -1,14 +1,31 @@
 package com.pluralsight.ledgerapi6.models;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.time.Instant;
+
 public class Transaction {
     private Integer transactionId;
-    private double amount;
+    private Money amount;
     private String vendor;
+    private Instant createdAt; // Set by the store when the transaction is added; updates keep it.
+    private Integer version; // Bumped by every update; a PUT can send it back to detect concurrent edits.
+
+    @JsonCreator // Request bodies don't set createdAt; version, if sent, goes through its setter.
+    public Transaction(Integer transactionId, Money amount, String vendor) {
+        this(transactionId, amount, vendor, null);
+    }
 
-    public Transaction(Integer transactionId, double amount, String vendor) {
+    public Transaction(Integer transactionId, Money amount, String vendor, Instant createdAt) {
+        this(transactionId, amount, vendor, createdAt, null);
+    }
+
+    public Transaction(Integer transactionId, Money amount, String vendor, Instant createdAt, Integer version) {
         this.transactionId = transactionId;
         this.amount = amount;
         this.vendor = vendor;
+        this.createdAt = createdAt;
+        this.version = version;
     }
 
     public Integer getTransactionId() {
@@ -19,11 +36,11 @@ public class Transaction {
         this.transactionId = transactionId;
     }
 
-    public double getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
@@ -35,12 +52,30 @@ public class Transaction {
         this.vendor = vendor;
     }
 
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Transaction{" +
                 "transactionId=" + transactionId +
                 ", amount=" + amount +
                 ", vendor='" + vendor + '\'' +
+                ", createdAt=" + createdAt +
+                ", version=" + version +
                 '}';
     }
 }
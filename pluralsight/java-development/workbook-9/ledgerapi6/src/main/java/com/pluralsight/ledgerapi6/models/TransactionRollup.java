@@ -0,0 +1,46 @@
+package com.pluralsight.ledgerapi6.models;
+
+import java.time.Instant;
+import java.util.List;
+
+public class TransactionRollup {
+    private final Instant from;
+    private final Instant to;
+    private final RollupBucket bucket;
+    private final long count;
+    private final Money total;
+    private final List<BucketTotal> buckets;
+
+    public TransactionRollup(Instant from, Instant to, RollupBucket bucket, long count, Money total, List<BucketTotal> buckets) {
+        this.from = from;
+        this.to = to;
+        this.bucket = bucket;
+        this.count = count;
+        this.total = total;
+        this.buckets = buckets;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public RollupBucket getBucket() {
+        return bucket;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public List<BucketTotal> getBuckets() {
+        return buckets;
+    }
+}
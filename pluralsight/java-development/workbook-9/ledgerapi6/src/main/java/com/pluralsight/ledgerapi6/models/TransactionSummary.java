@@ -0,0 +1,27 @@
+package com.pluralsight.ledgerapi6.models;
+
+import java.util.List;
+
+public class TransactionSummary {
+    private final long count;
+    private final Money total;
+    private final List<VendorSummary> vendors;
+
+    public TransactionSummary(long count, Money total, List<VendorSummary> vendors) {
+        this.count = count;
+        this.total = total;
+        this.vendors = vendors;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public List<VendorSummary> getVendors() {
+        return vendors;
+    }
+}
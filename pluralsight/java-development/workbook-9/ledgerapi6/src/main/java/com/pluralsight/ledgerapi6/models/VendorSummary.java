@@ -0,0 +1,62 @@
+package com.pluralsight.ledgerapi6.models;
+
+public class VendorSummary {
+    private final String vendor;
+    private final long count;
+    private final Money total;
+    private final Money min;
+    private final Money max;
+    private final Money average;
+    private final Money p50;
+    private final Money p90;
+    private final Money p99;
+
+    public VendorSummary(String vendor, long count, Money total, Money min, Money max,
+                         Money average, Money p50, Money p90, Money p99) {
+        this.vendor = vendor;
+        this.count = count;
+        this.total = total;
+        this.min = min;
+        this.max = max;
+        this.average = average;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    public String getVendor() {
+        return vendor;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public Money getMin() {
+        return min;
+    }
+
+    public Money getMax() {
+        return max;
+    }
+
+    public Money getAverage() {
+        return average;
+    }
+
+    public Money getP50() {
+        return p50;
+    }
+
+    public Money getP90() {
+        return p90;
+    }
+
+    public Money getP99() {
+        return p99;
+    }
+}
@@ -0,0 +1,94 @@
+package com.pluralsight.ledgerapi6.summary;
+
+import com.pluralsight.ledgerapi6.models.BucketTotal;
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.RollupBucket;
+import com.pluralsight.ledgerapi6.models.TransactionRollup;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Transaction counts and totals per minute, hour and day of createdAt, kept up
+ * to date by the DAO on every add, update and delete the same way
+ * VendorAggregates is, so GET /transactions/rollup sums a few pre-aggregated
+ * buckets instead of scanning rows.
+ * <p>
+ * Only buckets that have transactions are stored, so memory grows with the
+ * number of active minutes rather than the number of rows.
+ */
+@Component
+public class TransactionRollups {
+    static final int MAX_BUCKETS = 10_000; // Per query; a larger range needs a coarser bucket.
+
+    private final Map<RollupBucket, ConcurrentSkipListMap<Long, Totals>> rollups = new EnumMap<>(RollupBucket.class);
+
+    public TransactionRollups() {
+        for (RollupBucket bucket : RollupBucket.values()) {
+            rollups.put(bucket, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    public void add(Instant createdAt, Money amount) {
+        apply(createdAt, 1, amount.getCents());
+    }
+
+    public void remove(Instant createdAt, Money amount) {
+        apply(createdAt, -1, -amount.getCents());
+    }
+
+    public void clear() {
+        for (ConcurrentSkipListMap<Long, Totals> buckets : rollups.values()) {
+            buckets.clear();
+        }
+    }
+
+    /**
+     * Totals for every non-empty bucket between from and to. The range is widened
+     * to whole buckets, and the returned from/to say exactly what was covered.
+     *
+     * @throws IllegalArgumentException if to is before from, or the range spans more than MAX_BUCKETS buckets.
+     */
+    public TransactionRollup query(Instant from, Instant to, RollupBucket bucket) {
+        long start = bucket.floor(from.toEpochMilli());
+        long end = bucket.ceil(to.toEpochMilli());
+        if (end < start) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        if ((end - start) / bucket.getMillis() > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range spans more than " + MAX_BUCKETS + " " +
+                    bucket.name().toLowerCase() + " buckets; use a coarser bucket");
+        }
+
+        List<BucketTotal> buckets = new ArrayList<>();
+        long count = 0;
+        long totalCents = 0;
+        for (Map.Entry<Long, Totals> entry : rollups.get(bucket).subMap(start, end).entrySet()) {
+            Totals totals = entry.getValue();
+            buckets.add(new BucketTotal(Instant.ofEpochMilli(entry.getKey()), totals.count, Money.ofCents(totals.cents)));
+            count += totals.count;
+            totalCents += totals.cents;
+        }
+        return new TransactionRollup(Instant.ofEpochMilli(start), Instant.ofEpochMilli(end), bucket,
+                count, Money.ofCents(totalCents), buckets);
+    }
+
+    private void apply(Instant createdAt, long count, long cents) {
+        long millis = createdAt.toEpochMilli();
+        for (Map.Entry<RollupBucket, ConcurrentSkipListMap<Long, Totals>> rollup : rollups.entrySet()) {
+            // Totals are immutable, so compute's retry under contention can't double count.
+            rollup.getValue().compute(rollup.getKey().floor(millis), (start, totals) -> {
+                Totals updated = totals == null ? new Totals(count, cents) : new Totals(totals.count + count, totals.cents + cents);
+                return updated.count == 0 ? null : updated; // Drop buckets whose transactions were all removed.
+            });
+        }
+    }
+
+    private record Totals(long count, long cents) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.pluralsight.ledgerapi6.summary;
+
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.VendorSummary;
+
+import java.util.Arrays;
+
+/**
+ * Running totals for one vendor. Amounts are held as cents in a sorted long[],
+ * so min, max and percentiles are array lookups and stay exact when a
+ * transaction is removed, and nothing is boxed. The summary is recomputed only
+ * on the first read after a change.
+ */
+class VendorAggregate {
+    private final String vendor;
+    private long[] sortedCents = new long[8];
+    private int count;
+    private long totalCents;
+    private boolean sorted = true;
+    private VendorSummary summary;
+
+    VendorAggregate(String vendor) {
+        this.vendor = vendor;
+    }
+
+    synchronized void add(long cents) {
+        ensureSorted();
+        int index = Arrays.binarySearch(sortedCents, 0, count, cents);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        grow();
+        System.arraycopy(sortedCents, index, sortedCents, index + 1, count - index);
+        sortedCents[index] = cents;
+        count++;
+        totalCents += cents;
+        summary = null;
+    }
+
+    /**
+     * For bulk loading: appends without keeping the array sorted. It is sorted
+     * once, on the next add, remove or summary.
+     */
+    synchronized void append(long cents) {
+        grow();
+        sortedCents[count++] = cents;
+        totalCents += cents;
+        sorted = false;
+        summary = null;
+    }
+
+    synchronized void replace(long oldCents, long newCents) {
+        remove(oldCents);
+        add(newCents);
+    }
+
+    synchronized void remove(long cents) {
+        ensureSorted();
+        int index = Arrays.binarySearch(sortedCents, 0, count, cents);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(sortedCents, index + 1, sortedCents, index, count - index - 1);
+        count--;
+        totalCents -= cents;
+        summary = null;
+    }
+
+    synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Null once the last transaction has been removed.
+     */
+    synchronized VendorSummary summary() {
+        if (summary == null && count > 0) {
+            ensureSorted();
+            summary = new VendorSummary(vendor, count, Money.ofCents(totalCents),
+                    Money.ofCents(sortedCents[0]), Money.ofCents(sortedCents[count - 1]),
+                    Money.ofCents(Math.round((double) totalCents / count)),
+                    percentile(0.50), percentile(0.90), percentile(0.99));
+        }
+        return summary;
+    }
+
+    // Nearest-rank: the smallest amount with at least p of the transactions at or below it.
+    private Money percentile(double p) {
+        int rank = Math.max(1, (int) Math.ceil(p * count));
+        return Money.ofCents(sortedCents[rank - 1]);
+    }
+
+    private void ensureSorted() {
+        if (!sorted) {
+            Arrays.sort(sortedCents, 0, count);
+            sorted = true;
+        }
+    }
+
+    private void grow() {
+        if (count == sortedCents.length) {
+            sortedCents = Arrays.copyOf(sortedCents, count * 2);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.pluralsight.ledgerapi6.summary;
+
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.TransactionSummary;
+import com.pluralsight.ledgerapi6.models.VendorSummary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-vendor totals, counts, min/max and percentiles, kept up to date by the DAO
+ * on every add, update and delete so GET /transactions/summary never reads the
+ * transactions table.
+ * <p>
+ * The DAO loads it once at startup. Rows changed by anything other than this
+ * application instance are not seen until the next restart.
+ * <p>
+ * Transactions without a vendor are summarized under the empty vendor name.
+ */
+@Component
+public class VendorAggregates {
+    private final ConcurrentMap<String, VendorAggregate> aggregates = new ConcurrentHashMap<>();
+    // Shared by moves between vendors, exclusive for a snapshot, so a snapshot never sees a moved transaction twice or not at all.
+    private final ReadWriteLock moves = new ReentrantReadWriteLock();
+
+    public void add(String vendor, Money amount) {
+        aggregates.compute(key(vendor), (name, aggregate) -> {
+            VendorAggregate updated = aggregate == null ? new VendorAggregate(name) : aggregate;
+            updated.add(amount.getCents());
+            return updated;
+        });
+    }
+
+    /**
+     * Bulk-load variant of add for the startup scan: the vendor's amounts are
+     * sorted once when the load is done instead of on every row.
+     */
+    public void append(String vendor, long cents) {
+        aggregates.compute(key(vendor), (name, aggregate) -> {
+            VendorAggregate updated = aggregate == null ? new VendorAggregate(name) : aggregate;
+            updated.append(cents);
+            return updated;
+        });
+    }
+
+    public void remove(String vendor, Money amount) {
+        // compute holds the vendor's bin lock, so an add can't slip in between emptying and dropping it.
+        aggregates.computeIfPresent(key(vendor), (name, aggregate) -> {
+            aggregate.remove(amount.getCents());
+            return aggregate.isEmpty() ? null : aggregate;
+        });
+    }
+
+    public void replace(String oldVendor, Money oldAmount, String newVendor, Money newAmount) {
+        if (key(oldVendor).equals(key(newVendor))) {
+            // One compute, so the aggregate is never seen without the transaction.
+            aggregates.compute(key(newVendor), (name, aggregate) -> {
+                VendorAggregate updated = aggregate == null ? new VendorAggregate(name) : aggregate;
+                updated.replace(oldAmount.getCents(), newAmount.getCents());
+                return updated;
+            });
+            return;
+        }
+        moves.readLock().lock();
+        try {
+            remove(oldVendor, oldAmount);
+            add(newVendor, newAmount);
+        } finally {
+            moves.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        aggregates.clear();
+    }
+
+    public TransactionSummary snapshot() {
+        List<VendorSummary> vendors = new ArrayList<>(aggregates.size());
+        long count = 0;
+        long totalCents = 0;
+        moves.writeLock().lock();
+        try {
+            for (VendorAggregate aggregate : aggregates.values()) {
+                VendorSummary summary = aggregate.summary();
+                if (summary == null) {
+                    continue; // Emptied by a concurrent remove after we reached it.
+                }
+                vendors.add(summary);
+                count += summary.getCount();
+                totalCents += summary.getTotal().getCents();
+            }
+        } finally {
+            moves.writeLock().unlock();
+        }
+        vendors.sort(Comparator.comparing(VendorSummary::getVendor));
+        return new TransactionSummary(count, Money.ofCents(totalCents), vendors);
+    }
+
+    private static String key(String vendor) {
+        return vendor == null ? "" : vendor;
+    }
+}
@@ -0,0 +1,7 @@
+-- Applied once by SchemaBootstrap and recorded in schema_history with its checksum.
+-- Never edit a script that has been applied; add the next V<n>__ script instead.
+CREATE TABLE IF NOT EXISTS transactions (
+    transaction_id INT PRIMARY KEY AUTO_INCREMENT,
+    amount DECIMAL(10, 2) NOT NULL,
+    vendor VARCHAR(255) NOT NULL
+);
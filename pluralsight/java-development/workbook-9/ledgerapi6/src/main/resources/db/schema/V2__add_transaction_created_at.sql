@@ -0,0 +1,3 @@
+-- Rows that existed before this script get the time it was applied.
+ALTER TABLE transactions ADD COLUMN created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3);
+CREATE INDEX transactions_created_at ON transactions (created_at);
@@ -0,0 +1,2 @@
+-- Compare-and-set updates: UPDATE ... WHERE transaction_id = ? AND version = ?
+ALTER TABLE transactions ADD COLUMN version INT NOT NULL DEFAULT 0;
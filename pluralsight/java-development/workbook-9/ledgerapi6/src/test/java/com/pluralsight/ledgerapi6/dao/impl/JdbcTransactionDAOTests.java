@@ -0,0 +1,134 @@
+package com.pluralsight.ledgerapi6.dao.impl;
+
+import com.pluralsight.ledgerapi6.dao.interfaces.VersionConflictException;
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.Transaction;
+import com.pluralsight.ledgerapi6.summary.TransactionRollups;
+import com.pluralsight.ledgerapi6.summary.VendorAggregates;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcTransactionDAOTests {
+
+    @TempDir
+    Path directory;
+
+    private BasicDataSource dataSource;
+    private VendorAggregates vendorAggregates;
+    private JdbcTransactionDAO dao;
+
+    @BeforeEach
+    void openDatabase() {
+        dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        vendorAggregates = new VendorAggregates();
+        dao = new JdbcTransactionDAO(dataSource, dataSource, vendorAggregates, new TransactionRollups(),
+                "classpath:db/schema", "classpath:db/seed/transactions.csv", 1000, 100);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void failingToLoadTheSummaryFailsRequestsInsteadOfServingPartialTotals() throws Exception {
+        // A schema without created_at, so the summary scan fails after the bootstrap succeeds.
+        Path schema = Files.createDirectories(directory.resolve("schema"));
+        Files.writeString(schema.resolve("V1__create_transactions.sql"),
+                "CREATE TABLE transactions (transaction_id INT PRIMARY KEY AUTO_INCREMENT, amount DECIMAL(10, 2), vendor VARCHAR(255));");
+        try (BasicDataSource otherDatabase = new BasicDataSource()) {
+            otherDatabase.setUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+            otherDatabase.setUsername("sa");
+            JdbcTransactionDAO broken = new JdbcTransactionDAO(otherDatabase, otherDatabase, new VendorAggregates(), new TransactionRollups(),
+                    "file:" + schema, "classpath:none.csv", 1000, 100);
+
+            IllegalStateException e = assertThrows(IllegalStateException.class, broken::getSummary);
+            assertInstanceOf(SQLException.class, e.getCause().getCause());
+        }
+    }
+
+    @Test
+    void updateComparesAndSetsTheVersion() {
+        assertEquals(0, dao.getTransactionById(1).getVersion());
+
+        Transaction updated = dao.update(1, new Transaction(null, Money.parse("1.00"), "First"), 0);
+        assertEquals(1, updated.getVersion());
+        assertEquals(dao.getTransactionById(1).getCreatedAt(), updated.getCreatedAt());
+
+        VersionConflictException conflict = assertThrows(VersionConflictException.class,
+                () -> dao.update(1, new Transaction(null, Money.parse("2.00"), "Second"), 0));
+        assertEquals("First", conflict.getCurrent().getVendor());
+        assertEquals(1, conflict.getCurrent().getVersion());
+
+        assertNull(dao.update(99, new Transaction(null, Money.parse("2.00"), "Nobody"), 0));
+    }
+
+    @Test
+    void aFailedWriteIsAnErrorRatherThanAMissingTransaction() throws Exception {
+        assertNotNull(dao.getTransactionById(1));
+        dataSource.close();
+
+        IllegalStateException update = assertThrows(IllegalStateException.class,
+                () -> dao.update(1, new Transaction(null, Money.parse("1.00"), "First"), null));
+        assertInstanceOf(SQLException.class, update.getCause());
+        IllegalStateException delete = assertThrows(IllegalStateException.class, () -> dao.delete(1));
+        assertInstanceOf(SQLException.class, delete.getCause());
+    }
+
+    @Test
+    void concurrentWritersNeverOverwriteEachOther() throws Exception {
+        int threads = 8;
+        int attempts = 50;
+        AtomicInteger applied = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String vendor = "Writer " + t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < attempts; i++) {
+                        // Read-modify-write: only one writer per version may succeed.
+                        Transaction current = dao.getTransactionById(1);
+                        try {
+                            dao.update(1, new Transaction(null, current.getAmount().plus(Money.ofCents(1)), vendor), current.getVersion());
+                            applied.incrementAndGet();
+                        } catch (VersionConflictException e) {
+                            // Lost the race; the next read sees the winner's row.
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Transaction result = dao.getTransactionById(1);
+        assertEquals(applied.get(), result.getVersion());
+        assertEquals(Money.parse("2000.00").plus(Money.ofCents(applied.get())), result.getAmount());
+        // The summary moved in step with the row: it still totals the three seeded rows.
+        assertEquals(3, vendorAggregates.snapshot().getCount());
+        assertEquals(Money.parse("6500.00").plus(result.getAmount()), vendorAggregates.snapshot().getTotal());
+    }
+}
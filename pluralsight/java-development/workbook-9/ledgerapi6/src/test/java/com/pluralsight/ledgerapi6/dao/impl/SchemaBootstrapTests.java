@@ -0,0 +1,124 @@
+package com.pluralsight.ledgerapi6.dao.impl;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaBootstrapTests {
+
+    @TempDir
+    Path directory;
+
+    private BasicDataSource dataSource;
+
+    @BeforeEach
+    void openDatabase() {
+        dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void appliesSchemaAndSeedOnlyOnce() throws SQLException {
+        bootstrap("classpath:db/schema", "classpath:db/seed/transactions.csv").start().join();
+        assertEquals(3, count("transactions"));
+        int steps = count("schema_history");
+
+        bootstrap("classpath:db/schema", "classpath:db/seed/transactions.csv").start().join();
+        assertEquals(3, count("transactions"));
+        assertEquals(steps, count("schema_history"));
+    }
+
+    @Test
+    void loadsLargeSeedFileInBatches() throws Exception {
+        Path seed = directory.resolve("fixtures.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(seed)) {
+            writer.write("amount,vendor\n");
+            for (int i = 0; i < 2500; i++) {
+                writer.write((i % 100) + "." + (i % 10) + "5,Vendor " + (i % 7) + "\n");
+            }
+        }
+        bootstrap("classpath:db/schema", "file:" + seed).start().join();
+        assertEquals(2500, count("transactions"));
+
+        // A different seed file isn't loaded into a table that already has rows.
+        bootstrap("classpath:db/schema", "classpath:db/seed/transactions.csv").start().join();
+        assertEquals(2500, count("transactions"));
+    }
+
+    @Test
+    void refusesSchemaScriptChangedAfterItWasApplied() throws Exception {
+        Path schema = Files.createDirectories(directory.resolve("schema"));
+        Files.writeString(schema.resolve("V1__create_transactions.sql"),
+                "CREATE TABLE transactions (transaction_id INT PRIMARY KEY AUTO_INCREMENT, amount DECIMAL(10, 2), vendor VARCHAR(255));");
+        bootstrap("file:" + schema, "classpath:none.csv").start().join();
+
+        Files.writeString(schema.resolve("V1__create_transactions.sql"),
+                "CREATE TABLE transactions (transaction_id INT PRIMARY KEY, amount DECIMAL(12, 2), vendor VARCHAR(255));");
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> bootstrap("file:" + schema, "classpath:none.csv").start().join());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+
+        // New scripts are still applied in version order.
+        Files.writeString(schema.resolve("V1__create_transactions.sql"),
+                "CREATE TABLE transactions (transaction_id INT PRIMARY KEY AUTO_INCREMENT, amount DECIMAL(10, 2), vendor VARCHAR(255));");
+        Files.writeString(schema.resolve("V10__add_note.sql"), "ALTER TABLE transactions ADD COLUMN memo VARCHAR(20);");
+        Files.writeString(schema.resolve("V2__add_index.sql"), "CREATE INDEX transactions_vendor ON transactions (vendor);");
+        bootstrap("file:" + schema, "classpath:none.csv").start().join();
+        assertEquals(3, count("schema_history"));
+    }
+
+    @Test
+    void scriptThatFailedPartwayResumesAtTheFailedStatement() throws Exception {
+        Path schema = Files.createDirectories(directory.resolve("schema"));
+        Files.writeString(schema.resolve("V1__create_transactions.sql"),
+                "CREATE TABLE transactions (transaction_id INT PRIMARY KEY AUTO_INCREMENT, amount DECIMAL(10, 2), vendor VARCHAR(255));");
+        Files.writeString(schema.resolve("V2__add_columns.sql"),
+                "ALTER TABLE transactions ADD COLUMN memo VARCHAR(20);\nALTER TABLE no_such_table ADD COLUMN note VARCHAR(20);\n");
+        assertThrows(CompletionException.class, () -> bootstrap("file:" + schema, "classpath:none.csv").start().join());
+
+        // Fixing the failed statement is enough; the first one already took effect and isn't run again.
+        Files.writeString(schema.resolve("V2__add_columns.sql"),
+                "ALTER TABLE transactions ADD COLUMN memo VARCHAR(20);\nALTER TABLE transactions ADD COLUMN note VARCHAR(20);\n");
+        bootstrap("file:" + schema, "classpath:none.csv").start().join();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SELECT memo, note FROM transactions");
+        }
+        assertEquals(2, count("schema_history"));
+    }
+
+    private SchemaBootstrap bootstrap(String schemaLocation, String seedFile) {
+        return new SchemaBootstrap(dataSource, schemaLocation, seedFile, 1000);
+    }
+
+    private int count(String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
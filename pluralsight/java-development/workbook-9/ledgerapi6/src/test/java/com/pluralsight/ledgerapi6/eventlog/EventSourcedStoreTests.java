@@ -0,0 +1,249 @@
+package com.pluralsight.ledgerapi6.eventlog;
+
+import com.pluralsight.ledgerapi6.dao.impl.EventSourcedTransactionDAO;
+import com.pluralsight.ledgerapi6.dao.interfaces.VersionConflictException;
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.Transaction;
+import com.pluralsight.ledgerapi6.models.RollupBucket;
+import com.pluralsight.ledgerapi6.summary.TransactionRollups;
+import com.pluralsight.ledgerapi6.summary.VendorAggregates;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventSourcedStoreTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restartReplaysSnapshotPlusTail() throws Exception {
+        EventSourcedTransactionDAO dao = open(5);
+        for (int i = 1; i <= 12; i++) {
+            dao.add(new Transaction(null, Money.ofCents(i * 100L), "Vendor " + (i % 3)));
+        }
+        Instant createdAt = dao.getTransactionById(4).getCreatedAt();
+        dao.update(4, new Transaction(null, Money.parse("99.99"), "Changed"), null);
+        dao.delete(5);
+        dao.destroy();
+
+        try (Stream<Path> snapshots = Files.list(directory.resolve("snapshots"))) {
+            assertTrue(snapshots.findAny().isPresent());
+        }
+
+        EventSourcedTransactionDAO reopened = open(5);
+        // 3 seeded + 12 added - 1 deleted
+        assertEquals(14, reopened.getAllTransactions().size());
+        assertEquals(Money.parse("99.99"), reopened.getTransactionById(4).getAmount());
+        assertEquals(createdAt, reopened.getTransactionById(4).getCreatedAt());
+        assertNull(reopened.getTransactionById(5));
+        assertEquals(16, reopened.add(new Transaction(null, Money.parse("1"), "Next")).getTransactionId());
+        assertEquals(15, reopened.getSummary().getCount());
+        assertEquals(15, reopened.getRollup(createdAt.minusSeconds(3600), Instant.now(), RollupBucket.HOUR).getCount());
+        reopened.destroy();
+    }
+
+    @Test
+    void tornTailIsDroppedOnRecovery() throws Exception {
+        EventSourcedTransactionDAO dao = open(1000);
+        dao.add(new Transaction(null, Money.parse("10"), "Amazon"));
+        dao.destroy();
+
+        Path segment;
+        try (Stream<Path> segments = Files.list(directory.resolve("events"))) {
+            segment = segments.findFirst().orElseThrow();
+        }
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        EventSourcedTransactionDAO reopened = open(1000);
+        assertNull(reopened.getTransactionById(4));
+        assertEquals(3, reopened.getAllTransactions().size());
+        // The log is writable again right after the truncated record.
+        assertEquals(4, reopened.add(new Transaction(null, Money.parse("11"), "Amazon")).getTransactionId());
+        reopened.destroy();
+
+        EventSourcedTransactionDAO again = open(1000);
+        assertEquals(Money.parse("11"), again.getTransactionById(4).getAmount());
+        again.destroy();
+    }
+
+    @Test
+    void aDamagedRecordWithRecordsAfterItStopsStartup() throws Exception {
+        EventSourcedTransactionDAO dao = open(1000);
+        dao.add(new Transaction(null, Money.parse("10"), "Amazon"));
+        dao.destroy();
+
+        Path segment = onlySegment();
+        byte[] before = Files.readAllBytes(segment);
+        flipPayloadByte(segment, 1);
+
+        // Not a torn tail: truncating here would drop the fsync'd events after it.
+        Exception e = assertThrows(Exception.class, () -> open(1000));
+        assertTrue(causes(e).contains("Corrupt ledger event log segment"), causes(e));
+        assertEquals(before.length, Files.size(segment));
+    }
+
+    @Test
+    void aDamagedLastRecordIsDroppedAsATornTail() throws Exception {
+        EventSourcedTransactionDAO dao = open(1000);
+        dao.add(new Transaction(null, Money.parse("10"), "Amazon"));
+        dao.destroy();
+
+        flipPayloadByte(onlySegment(), 3);
+
+        EventSourcedTransactionDAO reopened = open(1000);
+        assertNull(reopened.getTransactionById(4));
+        assertEquals(3, reopened.getAllTransactions().size());
+        reopened.destroy();
+    }
+
+    @Test
+    void readsAsOfAnEarlierMoment() throws Exception {
+        EventSourcedTransactionDAO dao = open(2);
+        dao.add(new Transaction(null, Money.parse("10"), "Amazon"));
+        Thread.sleep(5);
+        Instant before = Instant.now();
+        Thread.sleep(5);
+        dao.update(4, new Transaction(null, Money.parse("20"), "Amazon"), 0);
+        dao.delete(1);
+
+        assertEquals(Money.parse("10"), dao.getTransactionByIdAsOf(4, before).getAmount());
+        assertNotNull(dao.getTransactionByIdAsOf(1, before));
+        assertEquals(4, dao.getAllTransactionsAsOf(before).size());
+        assertTrue(dao.getAllTransactionsAsOf(Instant.EPOCH).isEmpty());
+        assertEquals(Money.parse("20"), dao.getTransactionById(4).getAmount());
+        dao.destroy();
+    }
+
+    @Test
+    void staleVersionIsRejectedWithTheCurrentTransaction() throws Exception {
+        EventSourcedTransactionDAO dao = open(1000);
+        Transaction updated = dao.update(1, new Transaction(null, Money.parse("1"), "First"), 0);
+        assertEquals(1, updated.getVersion());
+
+        VersionConflictException conflict = assertThrows(VersionConflictException.class,
+                () -> dao.update(1, new Transaction(null, Money.parse("2"), "Second"), 0));
+        assertEquals("First", conflict.getCurrent().getVendor());
+        assertEquals(1, conflict.getCurrent().getVersion());
+        assertEquals(2, dao.update(1, new Transaction(null, Money.parse("2"), "Second"), null).getVersion());
+        assertNull(dao.update(99, new Transaction(null, Money.parse("2"), "Nobody"), 0));
+        dao.destroy();
+
+        // Versions are rebuilt from the log.
+        EventSourcedTransactionDAO reopened = open(1000);
+        assertEquals(2, reopened.getTransactionById(1).getVersion());
+        reopened.destroy();
+    }
+
+    @Test
+    void exportsInIdOrderFromTheResumePoint() throws Exception {
+        EventSourcedTransactionDAO dao = open(1000);
+        for (int i = 0; i < 20; i++) {
+            dao.add(new Transaction(null, Money.ofCents(i), "Vendor " + i));
+        }
+        dao.delete(10);
+
+        List<Integer> ids = new ArrayList<>();
+        dao.exportTransactions(8, transaction -> ids.add(transaction.getTransactionId()));
+        assertEquals(List.of(9, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23), ids);
+        dao.destroy();
+    }
+
+    @Test
+    void concurrentWritersShareTheLog() throws Exception {
+        EventSourcedTransactionDAO dao = open(500);
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        dao.add(new Transaction(null, Money.ofCents(i), "Concurrent"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        dao.destroy();
+
+        EventSourcedTransactionDAO reopened = open(500);
+        assertEquals(3 + threads * perThread, reopened.getAllTransactions().size());
+        reopened.destroy();
+    }
+
+    @Test
+    void aWriteThatFailsToReachDiskLeavesNothingBehind() throws Exception {
+        // One event per segment, so the next append has to create segment 4, which is already taken.
+        EventSourcedTransactionDAO dao = open(1, 1000);
+        Files.createDirectory(directory.resolve("events").resolve(String.format("segment-%020d.log", 4)));
+
+        assertThrows(UncheckedIOException.class, () -> dao.add(new Transaction(null, Money.parse("10"), "Amazon")));
+        assertThrows(UncheckedIOException.class, () -> dao.update(1, new Transaction(null, Money.parse("1"), "Lost"), 0));
+
+        assertNull(dao.getTransactionById(4));
+        assertEquals(3, dao.getAllTransactions().size());
+        assertEquals(0, dao.getTransactionById(1).getVersion());
+        assertEquals(3, dao.getSummary().getCount());
+        assertEquals(Money.parse("8500"), dao.getSummary().getTotal());
+        dao.destroy();
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> segments = Files.list(directory.resolve("events"))) {
+            return segments.findFirst().orElseThrow();
+        }
+    }
+
+    // Flips the last byte of the index'th record's payload, so only its checksum gives it away.
+    private static void flipPayloadByte(Path segment, int index) throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int offset = 0;
+        for (int i = 0; i < index; i++) {
+            offset += 8 + buffer.getInt(offset);
+        }
+        bytes[offset + 8 + buffer.getInt(offset) - 1] ^= 1;
+        Files.write(segment, bytes);
+    }
+
+    private static String causes(Throwable e) {
+        StringBuilder messages = new StringBuilder();
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            messages.append(cause.getMessage()).append('\n');
+        }
+        return messages.toString();
+    }
+
+    private EventSourcedTransactionDAO open(int snapshotEvery) throws IOException {
+        return open(4096, snapshotEvery);
+    }
+
+    private EventSourcedTransactionDAO open(long segmentBytes, int snapshotEvery) throws IOException {
+        return new EventSourcedTransactionDAO(directory.toString(), segmentBytes, 64, snapshotEvery, 2, new VendorAggregates(), new TransactionRollups());
+    }
+}
@@ -0,0 +1,52 @@
+package com.pluralsight.ledgerapi6.models;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.exc.InvalidFormatException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTests {
+
+    @Test
+    void parsesWithoutRounding() {
+        assertEquals(1234, Money.parse("12.34").getCents());
+        assertEquals(1250, Money.parse("12.5").getCents());
+        assertEquals(-75, Money.parse("-0.75").getCents());
+        assertEquals(15000, Money.parse("1.5E2").getCents());
+        assertEquals(123, Money.parse("1.230").getCents());
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.234"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("twelve"));
+    }
+
+    @Test
+    void formatsWithTwoDecimals() {
+        assertEquals("2000.00", Money.ofCents(200000).toString());
+        assertEquals("0.05", Money.ofCents(5).toString());
+        assertEquals("-0.75", Money.ofCents(-75).toString());
+        assertEquals(new BigDecimal("12.34"), Money.ofCents(1234).toBigDecimal());
+    }
+
+    @Test
+    void addsExactly() {
+        assertEquals(Money.parse("0.30"), Money.parse("0.10").plus(Money.parse("0.20")));
+    }
+
+    @Test
+    void roundTripsThroughJson() {
+        JsonMapper mapper = JsonMapper.builder().build();
+        Transaction transaction = new Transaction(1, Money.parse("150.70"), "Amazon");
+
+        String json = mapper.writeValueAsString(transaction);
+        assertTrue(json.contains("\"amount\":150.70"), json);
+
+        assertEquals(Money.ofCents(1999), mapper.readValue("{\"amount\":19.99,\"vendor\":\"x\"}", Transaction.class).getAmount());
+        assertEquals(Money.ofCents(2000), mapper.readValue("{\"amount\":20,\"vendor\":\"x\"}", Transaction.class).getAmount());
+        assertEquals(Money.ofCents(2001), mapper.readValue("{\"amount\":\"20.01\",\"vendor\":\"x\"}", Transaction.class).getAmount());
+        assertThrows(InvalidFormatException.class,
+                () -> mapper.readValue("{\"amount\":0.001,\"vendor\":\"x\"}", Transaction.class));
+    }
+}
@@ -0,0 +1,76 @@
+package com.pluralsight.ledgerapi6.summary;
+
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.RollupBucket;
+import com.pluralsight.ledgerapi6.models.TransactionRollup;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRollupsTests {
+
+    @Test
+    void groupsTransactionsIntoBuckets() {
+        TransactionRollups rollups = new TransactionRollups();
+        rollups.add(Instant.parse("2025-01-01T10:15:30Z"), Money.parse("10.00"));
+        rollups.add(Instant.parse("2025-01-01T10:15:59.999Z"), Money.parse("0.10"));
+        rollups.add(Instant.parse("2025-01-01T10:45:00Z"), Money.parse("5.00"));
+        rollups.add(Instant.parse("2025-01-01T23:59:59Z"), Money.parse("1.00"));
+        rollups.add(Instant.parse("2025-01-02T00:00:00Z"), Money.parse("2.00"));
+
+        TransactionRollup minutes = rollups.query(Instant.parse("2025-01-01T10:00:00Z"),
+                Instant.parse("2025-01-01T11:00:00Z"), RollupBucket.MINUTE);
+        assertEquals(2, minutes.getBuckets().size());
+        assertEquals(Instant.parse("2025-01-01T10:15:00Z"), minutes.getBuckets().get(0).getStart());
+        assertEquals(2, minutes.getBuckets().get(0).getCount());
+        assertEquals(Money.parse("10.10"), minutes.getBuckets().get(0).getTotal());
+        assertEquals(Money.parse("15.10"), minutes.getTotal());
+
+        TransactionRollup days = rollups.query(Instant.parse("2025-01-01T00:00:00Z"),
+                Instant.parse("2025-01-03T00:00:00Z"), RollupBucket.DAY);
+        assertEquals(2, days.getBuckets().size());
+        assertEquals(5, days.getCount());
+        assertEquals(Money.parse("18.10"), days.getTotal());
+    }
+
+    @Test
+    void widensTheRangeToWholeBuckets() {
+        TransactionRollups rollups = new TransactionRollups();
+        rollups.add(Instant.parse("2025-01-01T10:05:00Z"), Money.parse("1.00"));
+        rollups.add(Instant.parse("2025-01-01T11:00:00Z"), Money.parse("2.00"));
+
+        TransactionRollup hours = rollups.query(Instant.parse("2025-01-01T10:30:00Z"),
+                Instant.parse("2025-01-01T10:40:00Z"), RollupBucket.HOUR);
+        assertEquals(Instant.parse("2025-01-01T10:00:00Z"), hours.getFrom());
+        assertEquals(Instant.parse("2025-01-01T11:00:00Z"), hours.getTo());
+        // to is exclusive, so the 11:00 transaction isn't counted.
+        assertEquals(1, hours.getCount());
+    }
+
+    @Test
+    void removingEveryTransactionDropsTheBucket() {
+        TransactionRollups rollups = new TransactionRollups();
+        Instant at = Instant.parse("2025-01-01T10:05:00Z");
+        rollups.add(at, Money.parse("1.00"));
+        rollups.add(at, Money.parse("2.00"));
+        rollups.remove(at, Money.parse("1.00"));
+        assertEquals(Money.parse("2.00"), rollups.query(at, at.plusSeconds(1), RollupBucket.MINUTE).getTotal());
+
+        rollups.remove(at, Money.parse("2.00"));
+        for (RollupBucket bucket : RollupBucket.values()) {
+            assertTrue(rollups.query(at, at.plusSeconds(1), bucket).getBuckets().isEmpty());
+        }
+    }
+
+    @Test
+    void rejectsRangesWithTooManyBuckets() {
+        TransactionRollups rollups = new TransactionRollups();
+        assertThrows(IllegalArgumentException.class,
+                () -> rollups.query(Instant.EPOCH, Instant.parse("2025-01-01T00:00:00Z"), RollupBucket.MINUTE));
+        assertThrows(IllegalArgumentException.class,
+                () -> rollups.query(Instant.parse("2025-01-02T00:00:00Z"), Instant.parse("2025-01-01T00:00:00Z"), RollupBucket.DAY));
+        assertEquals(0, rollups.query(Instant.parse("2000-01-01T00:00:00Z"), Instant.parse("2025-01-01T00:00:00Z"), RollupBucket.DAY).getCount());
+    }
+}
@@ -0,0 +1,133 @@
+package com.pluralsight.ledgerapi6.summary;
+
+import com.pluralsight.ledgerapi6.models.Money;
+import com.pluralsight.ledgerapi6.models.TransactionSummary;
+import com.pluralsight.ledgerapi6.models.VendorSummary;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VendorAggregatesTests {
+
+    @Test
+    void summarizesEachVendor() {
+        VendorAggregates aggregates = new VendorAggregates();
+        for (int i = 1; i <= 100; i++) {
+            aggregates.add("Amazon", Money.ofCents(i * 100L));
+        }
+        aggregates.add("Walmart", Money.parse("0.10"));
+        aggregates.add("Walmart", Money.parse("0.20"));
+
+        TransactionSummary summary = aggregates.snapshot();
+
+        assertEquals(102, summary.getCount());
+        assertEquals(Money.parse("5050.30"), summary.getTotal());
+        VendorSummary amazon = summary.getVendors().get(0);
+        assertEquals("Amazon", amazon.getVendor());
+        assertEquals(Money.parse("1.0"), amazon.getMin());
+        assertEquals(Money.parse("100.0"), amazon.getMax());
+        assertEquals(Money.parse("50.5"), amazon.getAverage());
+        assertEquals(Money.parse("50.0"), amazon.getP50());
+        assertEquals(Money.parse("90.0"), amazon.getP90());
+        assertEquals(Money.parse("99.0"), amazon.getP99());
+        // Summed in cents, so no 0.30000000000000004.
+        assertEquals(Money.parse("0.30"), summary.getVendors().get(1).getTotal());
+    }
+
+    @Test
+    void removingTheExtremesMovesMinAndMax() {
+        VendorAggregates aggregates = new VendorAggregates();
+        aggregates.add("Amazon", Money.parse("5"));
+        aggregates.add("Amazon", Money.parse("10"));
+        aggregates.add("Amazon", Money.parse("20"));
+        aggregates.snapshot();
+
+        aggregates.remove("Amazon", Money.parse("20"));
+        aggregates.replace("Amazon", Money.parse("5"), "Target", Money.parse("5"));
+
+        TransactionSummary summary = aggregates.snapshot();
+        assertEquals(2, summary.getVendors().size());
+        VendorSummary amazon = summary.getVendors().get(0);
+        assertEquals(1, amazon.getCount());
+        assertEquals(Money.parse("10.0"), amazon.getMin());
+        assertEquals(Money.parse("10.0"), amazon.getMax());
+        assertEquals("Target", summary.getVendors().get(1).getVendor());
+    }
+
+    @Test
+    void vendorDisappearsWithItsLastTransaction() {
+        VendorAggregates aggregates = new VendorAggregates();
+        aggregates.add("Amazon", Money.parse("5"));
+        aggregates.remove("Amazon", Money.parse("5"));
+        // Removing an amount that was never added changes nothing.
+        aggregates.remove("Amazon", Money.parse("5"));
+
+        assertTrue(aggregates.snapshot().getVendors().isEmpty());
+        assertEquals(0, aggregates.snapshot().getCount());
+    }
+
+    @Test
+    void appendedAmountsAreSortedBeforeTheyAreRead() {
+        VendorAggregates aggregates = new VendorAggregates();
+        aggregates.append("Amazon", 3000);
+        aggregates.append("Amazon", 1000);
+        aggregates.append("Amazon", 2000);
+        aggregates.add("Amazon", Money.parse("15"));
+
+        VendorSummary amazon = aggregates.snapshot().getVendors().get(0);
+        assertEquals(Money.parse("10"), amazon.getMin());
+        assertEquals(Money.parse("15"), amazon.getP50());
+        assertEquals(Money.parse("30"), amazon.getMax());
+        assertEquals(Money.parse("75"), amazon.getTotal());
+    }
+
+    @Test
+    void replacingWithinAVendorKeepsItsCount() {
+        VendorAggregates aggregates = new VendorAggregates();
+        aggregates.add("Amazon", Money.parse("5"));
+        aggregates.add("Amazon", Money.parse("10"));
+
+        aggregates.replace("Amazon", Money.parse("5"), "Amazon", Money.parse("50"));
+
+        VendorSummary amazon = aggregates.snapshot().getVendors().get(0);
+        assertEquals(2, amazon.getCount());
+        assertEquals(Money.parse("10"), amazon.getMin());
+        assertEquals(Money.parse("50"), amazon.getMax());
+    }
+
+    @Test
+    void transactionsWithoutAVendorAreSummarizedUnderAnEmptyName() {
+        VendorAggregates aggregates = new VendorAggregates();
+        aggregates.add(null, Money.parse("5"));
+        aggregates.replace(null, Money.parse("5"), "Amazon", Money.parse("5"));
+        aggregates.add(null, Money.parse("7"));
+
+        TransactionSummary summary = aggregates.snapshot();
+        assertEquals(2, summary.getCount());
+        assertEquals("", summary.getVendors().get(0).getVendor());
+        assertEquals(Money.parse("7"), summary.getVendors().get(0).getTotal());
+    }
+
+    @Test
+    void snapshotsStayConsistentWhileVendorsEmptyAndMove() throws InterruptedException {
+        VendorAggregates aggregates = new VendorAggregates();
+        aggregates.add("Anchor", Money.parse("1"));
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                aggregates.add("Amazon", Money.parse("5"));
+                aggregates.replace("Amazon", Money.parse("5"), "Target", Money.parse("5"));
+                aggregates.remove("Target", Money.parse("5"));
+            }
+        });
+        writer.start();
+        try {
+            while (writer.isAlive()) {
+                TransactionSummary summary = aggregates.snapshot(); // Used to throw on a vendor emptied mid-iteration.
+                assertTrue(summary.getCount() == 1 || summary.getCount() == 2, "count " + summary.getCount());
+            }
+        } finally {
+            writer.join();
+        }
+        assertEquals(1, aggregates.snapshot().getCount());
+    }
+}